@@ -27,6 +27,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static io.microsphere.util.ArrayUtils.EMPTY_STRING_ARRAY;
 import static io.microsphere.util.ArrayUtils.isEmpty;
@@ -46,6 +47,10 @@ public class WebEndpointConfig {
     @Valid
     private List<Mapping> excludes = new LinkedList<>();
 
+    @Nullable
+    @Valid
+    private HashPolicy hashPolicy;
+
     public List<Mapping> getExcludes() {
         return excludes;
     }
@@ -54,6 +59,103 @@ public class WebEndpointConfig {
         this.excludes = excludes;
     }
 
+    @Nullable
+    public HashPolicy getHashPolicy() {
+        return hashPolicy;
+    }
+
+    public void setHashPolicy(@Nullable HashPolicy hashPolicy) {
+        this.hashPolicy = hashPolicy;
+    }
+
+    /**
+     * The policy of the consistent hashing that selects the instance by the key of request, the key is resolved from
+     * the header, the cookie or the path variable of the matched mapping in order.
+     */
+    public static class HashPolicy {
+
+        /**
+         * The default load factor of the bounded load
+         */
+        public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+        @Nullable
+        private String header;
+
+        @Nullable
+        private String cookie;
+
+        @Nullable
+        private String pathVariable;
+
+        private double loadFactor = DEFAULT_LOAD_FACTOR;
+
+        @Nullable
+        public String getHeader() {
+            return header;
+        }
+
+        public void setHeader(@Nullable String header) {
+            this.header = header;
+        }
+
+        @Nullable
+        public String getCookie() {
+            return cookie;
+        }
+
+        public void setCookie(@Nullable String cookie) {
+            this.cookie = cookie;
+        }
+
+        @Nullable
+        public String getPathVariable() {
+            return pathVariable;
+        }
+
+        public void setPathVariable(@Nullable String pathVariable) {
+            this.pathVariable = pathVariable;
+        }
+
+        /**
+         * Get the load factor of the bounded load, the in-flight requests of the chosen instance must be less than
+         * the average multiplied by it, the non-positive value means no bound
+         *
+         * @return the load factor
+         */
+        public double getLoadFactor() {
+            return loadFactor;
+        }
+
+        public void setLoadFactor(double loadFactor) {
+            this.loadFactor = loadFactor;
+        }
+
+        /**
+         * Get the hash key of the request
+         *
+         * @param request            the request
+         * @param headerValue        the function to get the value of the header by name
+         * @param cookieValue        the function to get the value of the cookie by name
+         * @param pathVariableValue  the function to get the value of the path variable by name
+         * @param <R>                the type of request
+         * @return <code>null</code> if absent
+         */
+        @Nullable
+        public <R> String getHashKey(R request, BiFunction<R, String, String> headerValue,
+                                     BiFunction<R, String, String> cookieValue,
+                                     BiFunction<R, String, String> pathVariableValue) {
+            String hashKey = header == null ? null : headerValue.apply(request, header);
+            if (hashKey == null && cookie != null) {
+                hashKey = cookieValue.apply(request, cookie);
+            }
+            if (hashKey == null && pathVariable != null) {
+                hashKey = pathVariableValue.apply(request, pathVariable);
+            }
+            return hashKey;
+        }
+    }
+
     /**
      * @see WebEndpointMapping
      */
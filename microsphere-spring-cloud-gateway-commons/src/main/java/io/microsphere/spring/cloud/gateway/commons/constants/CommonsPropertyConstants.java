@@ -64,4 +64,302 @@ public interface CommonsPropertyConstants {
             source = APPLICATION_SOURCE
     )
     String MICROSPHERE_WEB_ENDPOINT_MAPPING_ENABLED_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + ENABLED_PROPERTY_NAME;
-}
\ No newline at end of file
+
+    /**
+     * The default value of the max size of the matching result cache : "0", the cache is disabled
+     */
+    String DEFAULT_MATCHING_CACHE_MAX_SIZE = "0";
+
+    /**
+     * The property name of the max size of the matching result cache per route and application :
+     * "microsphere.spring.cloud.web-endpoint-mapping.matching-cache.max-size"
+     */
+    @ConfigurationProperty(
+            type = int.class,
+            defaultValue = DEFAULT_MATCHING_CACHE_MAX_SIZE,
+            source = APPLICATION_SOURCE
+    )
+    String MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "matching-cache.max-size";
+
+    /**
+     * The default value of the timeout in milliseconds to choose the service instance : "3000"
+     */
+    String DEFAULT_CHOOSE_TIMEOUT = "3000";
+
+    /**
+     * The property name of the timeout in milliseconds to choose the service instance from the load balancer, when
+     * timed out, the last chosen instance of the application is used as the fallback :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.choose-timeout"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_CHOOSE_TIMEOUT,
+            source = APPLICATION_SOURCE
+    )
+    String CHOOSE_TIMEOUT_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.choose-timeout";
+
+    /**
+     * The default value of the delegation to the load balancer client filter : "false"
+     */
+    String DEFAULT_LOAD_BALANCER_DELEGATED = "false";
+
+    /**
+     * The property name of the delegation to the load balancer client filter, if enabled, the mapping only rewrites
+     * the request URL to "lb://{application}/{rewritePath}", thus the load balancer client filter chooses the instance
+     * with the full lifecycle callbacks : "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.delegated"
+     */
+    @ConfigurationProperty(
+            type = boolean.class,
+            defaultValue = DEFAULT_LOAD_BALANCER_DELEGATED,
+            source = APPLICATION_SOURCE
+    )
+    String LOAD_BALANCER_DELEGATED_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.delegated";
+
+    /**
+     * The property name of the zone of Spring Cloud LoadBalancer : "spring.cloud.loadbalancer.zone"
+     */
+    String LOAD_BALANCER_ZONE_PROPERTY_NAME = "spring.cloud.loadbalancer.zone";
+
+    /**
+     * The property name of the zone of the gateway, whose instances in the same zone are preferred, if absent, the
+     * value of {@link #LOAD_BALANCER_ZONE_PROPERTY_NAME "spring.cloud.loadbalancer.zone"} is used :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.zone"
+     */
+    @ConfigurationProperty(
+            source = APPLICATION_SOURCE
+    )
+    String ZONE_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.zone";
+
+    /**
+     * The default value of the minimum count of the instances in the same zone : "1"
+     */
+    String DEFAULT_ZONE_MIN_INSTANCES = "1";
+
+    /**
+     * The property name of the minimum count of the instances in the same zone, otherwise the instances in the other
+     * zones are used : "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.zone-min-instances"
+     */
+    @ConfigurationProperty(
+            type = int.class,
+            defaultValue = DEFAULT_ZONE_MIN_INSTANCES,
+            source = APPLICATION_SOURCE
+    )
+    String ZONE_MIN_INSTANCES_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.zone-min-instances";
+
+    /**
+     * The default value of the least-loaded load balancer : "false"
+     */
+    String DEFAULT_LEAST_LOADED = "false";
+
+    /**
+     * The property name of the least-loaded load balancer, if enabled, the instance is chosen from two random
+     * candidates by the lower load that is measured by the in-flight requests and the latency of the gateway :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.least-loaded"
+     */
+    @ConfigurationProperty(
+            type = boolean.class,
+            defaultValue = DEFAULT_LEAST_LOADED,
+            source = APPLICATION_SOURCE
+    )
+    String LEAST_LOADED_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.least-loaded";
+
+    /**
+     * The default value of the decay time in milliseconds of the latency EWMA : "10000"
+     */
+    String DEFAULT_LATENCY_DECAY_TIME = "10000";
+
+    /**
+     * The property name of the decay time in milliseconds of the exponentially weighted moving average of the latency
+     * per instance, the shorter, the more reactive to the recent latencies :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.latency-decay-time"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_LATENCY_DECAY_TIME,
+            source = APPLICATION_SOURCE
+    )
+    String LATENCY_DECAY_TIME_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.latency-decay-time";
+
+    /**
+     * The default value of the slow-start window in milliseconds : "0", the slow start is disabled
+     */
+    String DEFAULT_SLOW_START_WINDOW = "0";
+
+    /**
+     * The property name of the slow-start window in milliseconds, the selection weight of the newly discovered
+     * instance ramps from a small fraction to full over the window :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.slow-start-window"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_SLOW_START_WINDOW,
+            source = APPLICATION_SOURCE
+    )
+    String SLOW_START_WINDOW_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.slow-start-window";
+
+    /**
+     * The default value of the outlier detection : "false"
+     */
+    String DEFAULT_OUTLIER_DETECTION_ENABLED = "false";
+
+    /**
+     * The property name of the outlier detection, if enabled, the instance failing consecutively is ejected from the
+     * selection for a period growing exponentially by its ejections :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.enabled"
+     */
+    @ConfigurationProperty(
+            type = boolean.class,
+            defaultValue = DEFAULT_OUTLIER_DETECTION_ENABLED,
+            source = APPLICATION_SOURCE
+    )
+    String OUTLIER_DETECTION_ENABLED_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.outlier-detection.enabled";
+
+    /**
+     * The default value of the consecutive failures to eject the instance : "5"
+     */
+    String DEFAULT_OUTLIER_CONSECUTIVE_FAILURES = "5";
+
+    /**
+     * The property name of the consecutive failures to eject the instance, the failure is the 5xx response, the
+     * connection failure or the response slower than the latency threshold :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.consecutive-failures"
+     */
+    @ConfigurationProperty(
+            type = int.class,
+            defaultValue = DEFAULT_OUTLIER_CONSECUTIVE_FAILURES,
+            source = APPLICATION_SOURCE
+    )
+    String OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.outlier-detection.consecutive-failures";
+
+    /**
+     * The default value of the base ejection time in milliseconds : "30000"
+     */
+    String DEFAULT_OUTLIER_BASE_EJECTION_TIME = "30000";
+
+    /**
+     * The property name of the base ejection time in milliseconds, which is doubled by each ejection in succession :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.base-ejection-time"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_OUTLIER_BASE_EJECTION_TIME,
+            source = APPLICATION_SOURCE
+    )
+    String OUTLIER_BASE_EJECTION_TIME_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.outlier-detection.base-ejection-time";
+
+    /**
+     * The default value of the max percent of the ejected instances : "50"
+     */
+    String DEFAULT_OUTLIER_MAX_EJECTION_PERCENT = "50";
+
+    /**
+     * The property name of the max percent of the ejected instances of the service, if exceeded, only the most
+     * recently ejected ones within the percent are kept out of the selection :
+     * "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.max-ejection-percent"
+     */
+    @ConfigurationProperty(
+            type = int.class,
+            defaultValue = DEFAULT_OUTLIER_MAX_EJECTION_PERCENT,
+            source = APPLICATION_SOURCE
+    )
+    String OUTLIER_MAX_EJECTION_PERCENT_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.outlier-detection.max-ejection-percent";
+
+    /**
+     * The default value of the latency threshold in milliseconds : "0", the latency is not regarded as the failure
+     */
+    String DEFAULT_OUTLIER_LATENCY_THRESHOLD = "0";
+
+    /**
+     * The property name of the latency threshold in milliseconds, the response slower than it is regarded as the
+     * failure : "microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.latency-threshold"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_OUTLIER_LATENCY_THRESHOLD,
+            source = APPLICATION_SOURCE
+    )
+    String OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "load-balancer.outlier-detection.latency-threshold";
+
+    /**
+     * The default value of the parallelism to load the mappings of the services on the refresh : "8"
+     */
+    String DEFAULT_REFRESH_PARALLELISM = "8";
+
+    /**
+     * The property name of the parallelism to load the mappings of the services on the refresh :
+     * "microsphere.spring.cloud.web-endpoint-mapping.refresh.parallelism"
+     */
+    @ConfigurationProperty(
+            type = int.class,
+            defaultValue = DEFAULT_REFRESH_PARALLELISM,
+            source = APPLICATION_SOURCE
+    )
+    String REFRESH_PARALLELISM_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "refresh.parallelism";
+
+    /**
+     * The default value of the timeout in milliseconds to load the mappings of a service on the refresh : "10000"
+     */
+    String DEFAULT_REFRESH_TIMEOUT = "10000";
+
+    /**
+     * The property name of the timeout in milliseconds to load the mappings of a service on the refresh, the previous
+     * mappings of the service are kept if timed out : "microsphere.spring.cloud.web-endpoint-mapping.refresh.timeout"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_REFRESH_TIMEOUT,
+            source = APPLICATION_SOURCE
+    )
+    String REFRESH_TIMEOUT_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "refresh.timeout";
+
+    /**
+     * The default value of the quiet period in milliseconds of the refresh-triggering events : "0", the events are
+     * not coalesced
+     */
+    String DEFAULT_REFRESH_QUIET_PERIOD = "0";
+
+    /**
+     * The property name of the quiet period in milliseconds of the refresh-triggering events, the pending events of
+     * the same service or route are coalesced into one refresh until no event arrives in the period :
+     * "microsphere.spring.cloud.web-endpoint-mapping.refresh.quiet-period"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_REFRESH_QUIET_PERIOD,
+            source = APPLICATION_SOURCE
+    )
+    String REFRESH_QUIET_PERIOD_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "refresh.quiet-period";
+
+    /**
+     * The default value of the max delay in milliseconds of the coalesced refresh : "5000"
+     */
+    String DEFAULT_REFRESH_MAX_DELAY = "5000";
+
+    /**
+     * The property name of the max delay in milliseconds of the coalesced refresh since its first event, which bounds
+     * the staleness under the continuous events : "microsphere.spring.cloud.web-endpoint-mapping.refresh.max-delay"
+     */
+    @ConfigurationProperty(
+            type = long.class,
+            defaultValue = DEFAULT_REFRESH_MAX_DELAY,
+            source = APPLICATION_SOURCE
+    )
+    String REFRESH_MAX_DELAY_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "refresh.max-delay";
+
+    /**
+     * The default value of the snapshot file of the mappings : "", the snapshot is disabled
+     */
+    String DEFAULT_SNAPSHOT_FILE = "";
+
+    /**
+     * The property name of the snapshot file of the mappings, which is written after each successful refresh and
+     * loaded to serve the requests at startup until the first refresh is finished :
+     * "microsphere.spring.cloud.web-endpoint-mapping.snapshot.file"
+     */
+    @ConfigurationProperty(
+            type = String.class,
+            defaultValue = DEFAULT_SNAPSHOT_FILE,
+            source = APPLICATION_SOURCE
+    )
+    String SNAPSHOT_FILE_PROPERTY_NAME = MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX + "snapshot.file";
+}
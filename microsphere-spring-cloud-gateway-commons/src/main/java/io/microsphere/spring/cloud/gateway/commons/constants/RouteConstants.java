@@ -32,6 +32,11 @@ public interface RouteConstants {
      */
     String SCHEME = "we";
 
+    /**
+     * The scheme of the load-balanced URI that is resolved by the load balancer client filter
+     */
+    String LOAD_BALANCER_SCHEME = "lb";
+
     /**
      * The all services for mapping
      */
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The immutable ring of the consistent hashing, each instance key owns {@link #VIRTUAL_NODES} points on the ring, and
+ * the request key is served by the owner of the first point clockwise from its hash.
+ * <p>
+ * The ring is {@link #update(Collection) updated} incrementally, the points of the remaining instances are kept as
+ * they are and only the points of the added instances are hashed and merged, thus only the keys owned by the changed
+ * instances are moved.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ConsistentHashSelector
+ * @since 1.0.0
+ */
+public class ConsistentHashRing {
+
+    /**
+     * The count of the points per instance key
+     */
+    public static final int VIRTUAL_NODES = 100;
+
+    /**
+     * The empty {@link ConsistentHashRing}
+     */
+    public static final ConsistentHashRing EMPTY = new ConsistentHashRing(new String[0], new long[0], new int[0]);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The instance keys indexed by the owners of the points
+     */
+    private final String[] keys;
+
+    /**
+     * The sorted hashes of the points
+     */
+    private final long[] hashes;
+
+    /**
+     * The indexes of the instance keys owning the points
+     */
+    private final int[] owners;
+
+    private ConsistentHashRing(String[] keys, long[] hashes, int[] owners) {
+        this.keys = keys;
+        this.hashes = hashes;
+        this.owners = owners;
+    }
+
+    /**
+     * Create the {@link ConsistentHashRing} of the instance keys
+     *
+     * @param keys the instance keys
+     * @return non-null
+     */
+    @Nonnull
+    public static ConsistentHashRing of(Collection<String> keys) {
+        return EMPTY.update(keys);
+    }
+
+    /**
+     * Update the ring with the current instance keys, the points of the removed keys are dropped, and the ones of the
+     * added keys are merged
+     *
+     * @param keys the current instance keys
+     * @return this if the keys are not changed, otherwise the new {@link ConsistentHashRing}
+     */
+    @Nonnull
+    public ConsistentHashRing update(Collection<String> keys) {
+        Map<String, Integer> indexes = new LinkedHashMap<>(keys.size() * 4 / 3 + 1);
+        for (String key : keys) {
+            indexes.putIfAbsent(key, indexes.size());
+        }
+        String[] newKeys = indexes.keySet().toArray(new String[0]);
+        if (Arrays.equals(this.keys, newKeys)) {
+            return this;
+        }
+
+        // The owners of the remaining points are remapped to the new indexes
+        int[] remappedOwners = new int[this.keys.length];
+        int keptCount = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            Integer index = indexes.remove(this.keys[i]);
+            remappedOwners[i] = index == null ? -1 : index;
+            if (index != null) {
+                keptCount++;
+            }
+        }
+
+        // The remaining entries of indexes are the added keys
+        int addedSize = indexes.size() * VIRTUAL_NODES;
+        long[] addedPoints = new long[addedSize];
+        int[] addedOwners = new int[addedSize];
+        sortPoints(indexes, addedPoints, addedOwners);
+
+        int size = keptCount * VIRTUAL_NODES + addedSize;
+        long[] newHashes = new long[size];
+        int[] newOwners = new int[size];
+        int i = 0, j = 0, k = 0;
+        int pointsSize = this.hashes.length;
+        while (k < size) {
+            // Skip the points of the removed keys
+            while (i < pointsSize && remappedOwners[this.owners[i]] < 0) {
+                i++;
+            }
+            if (i < pointsSize && (j == addedSize || this.hashes[i] <= addedPoints[j])) {
+                newHashes[k] = this.hashes[i];
+                newOwners[k++] = remappedOwners[this.owners[i++]];
+            } else {
+                newHashes[k] = addedPoints[j];
+                newOwners[k++] = addedOwners[j++];
+            }
+        }
+        return new ConsistentHashRing(newKeys, newHashes, newOwners);
+    }
+
+    /**
+     * Hash the points of the keys and sort them
+     */
+    private static void sortPoints(Map<String, Integer> indexes, long[] points, int[] owners) {
+        int size = points.length;
+        if (size == 0) {
+            return;
+        }
+        long[][] pairs = new long[size][];
+        int n = 0;
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            String key = entry.getKey();
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                pairs[n++] = new long[]{hash(key + '#' + i), entry.getValue()};
+            }
+        }
+        Arrays.sort(pairs, (p1, p2) -> Long.compare(p1[0], p2[0]));
+        for (int i = 0; i < size; i++) {
+            points[i] = pairs[i][0];
+            owners[i] = (int) pairs[i][1];
+        }
+    }
+
+    /**
+     * Choose the instance key by the hash, the points are walked clockwise until the owner is accepted by the
+     * predicate
+     *
+     * @param hash      the hash of the request key
+     * @param predicate the predicate of the instance key
+     * @return <code>null</code> if no instance key is accepted
+     */
+    @Nullable
+    public String choose(long hash, Predicate<String> predicate) {
+        int size = this.hashes.length;
+        if (size == 0) {
+            return null;
+        }
+        int start = Arrays.binarySearch(this.hashes, hash);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        // The owners rejected already
+        boolean[] rejected = new boolean[this.keys.length];
+        int rejectedCount = 0;
+        for (int i = 0; i < size && rejectedCount < rejected.length; i++) {
+            int owner = this.owners[(start + i) % size];
+            if (rejected[owner]) {
+                continue;
+            }
+            String key = this.keys[owner];
+            if (predicate.test(key)) {
+                return key;
+            }
+            rejected[owner] = true;
+            rejectedCount++;
+        }
+        return null;
+    }
+
+    /**
+     * Get the count of the instance keys
+     *
+     * @return the count
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Get the count of the points
+     *
+     * @return the count
+     */
+    int getPointCount() {
+        return this.hashes.length;
+    }
+
+    /**
+     * Hash the key by the 64-bit FNV-1a mixed by the finalizer of MurmurHash3 for the uniform distribution
+     *
+     * @param key the key
+     * @return the hash
+     */
+    public static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{instances=" + this.keys.length + ", points=" + this.hashes.length + '}';
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nullable;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashRing.hash;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.getInstanceKey;
+
+/**
+ * The selector of the {@link ServiceInstance} by the consistent hashing of the request key with the bounded load, thus
+ * the requests of the same key are routed to the same instance for the locality of the backend cache, and the instance
+ * whose in-flight requests exceed the load factor times the average is skipped to the next one on the ring.
+ * <p>
+ * The {@link ConsistentHashRing} of the service is built from all instances, the unavailable ones, e.g. the ejected
+ * or the ones not serving the mapping, are skipped on choosing, so the keys of the others are never moved.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ConsistentHashRing
+ * @since 1.0.0
+ */
+public class ConsistentHashSelector {
+
+    /**
+     * The {@link ServiceRing ServiceRings} keyed by the service id
+     */
+    private final Map<String, ServiceRing> serviceRings = new ConcurrentHashMap<>();
+
+    /**
+     * The in-flight requests keyed by the service id and then the instance key
+     */
+    private final Map<String, Map<String, AtomicInteger>> inFlightRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Choose the {@link ServiceInstance} by the hash key
+     *
+     * @param serviceInstances          all {@link ServiceInstance service instances} of the service
+     * @param availableServiceInstances the available {@link ServiceInstance service instances} to be chosen
+     * @param hashKey                   the hash key of the request
+     * @param loadFactor                the load factor of the bounded load, the non-positive value means no bound
+     * @param <S>                       the type of {@link ServiceInstance}
+     * @return <code>null</code> if no instance is available
+     */
+    @Nullable
+    public <S extends ServiceInstance> S choose(List<? extends ServiceInstance> serviceInstances, List<S> availableServiceInstances,
+                                                String hashKey, double loadFactor) {
+        int availableSize = availableServiceInstances.size();
+        if (availableSize == 0) {
+            return null;
+        }
+        String serviceId = availableServiceInstances.get(0).getServiceId();
+        ConsistentHashRing ring = getRing(serviceId, serviceInstances);
+        Map<String, S> availableInstances = new HashMap<>(availableSize * 4 / 3 + 1);
+        for (S serviceInstance : availableServiceInstances) {
+            availableInstances.put(getInstanceKey(serviceInstance), serviceInstance);
+        }
+        long hash = hash(hashKey);
+        String instanceKey = null;
+        if (loadFactor > 0) {
+            Map<String, AtomicInteger> inFlights = getInFlightRequests(serviceId);
+            int total = 0;
+            for (String key : availableInstances.keySet()) {
+                total += getInFlightRequests(inFlights, key);
+            }
+            // The in-flight requests of the chosen one must not exceed the cap after this request
+            int capacity = (int) Math.ceil(loadFactor * (total + 1) / availableSize);
+            instanceKey = ring.choose(hash, key -> availableInstances.containsKey(key) && getInFlightRequests(inFlights, key) < capacity);
+        }
+        if (instanceKey == null) {
+            instanceKey = ring.choose(hash, availableInstances::containsKey);
+        }
+        // The available instance may be absent in the ring that is built from the other instances
+        return instanceKey == null ? availableServiceInstances.get(0) : availableInstances.get(instanceKey);
+    }
+
+    private ConsistentHashRing getRing(String serviceId, List<? extends ServiceInstance> serviceInstances) {
+        ServiceRing serviceRing = this.serviceRings.get(serviceId);
+        if (serviceRing != null && serviceRing.serviceInstances == serviceInstances) {
+            return serviceRing.ring;
+        }
+        List<String> keys = new ArrayList<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            keys.add(getInstanceKey(serviceInstance));
+        }
+        ConsistentHashRing ring = (serviceRing == null ? ConsistentHashRing.EMPTY : serviceRing.ring).update(keys);
+        this.serviceRings.put(serviceId, new ServiceRing(serviceInstances, ring));
+        return ring;
+    }
+
+    /**
+     * Begin the request to the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     */
+    public void begin(ServiceInstance serviceInstance) {
+        getInFlightRequests(serviceInstance.getServiceId())
+                .computeIfAbsent(getInstanceKey(serviceInstance), key -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    /**
+     * End the request to the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     */
+    public void end(ServiceInstance serviceInstance) {
+        Map<String, AtomicInteger> inFlights = this.inFlightRequests.get(serviceInstance.getServiceId());
+        AtomicInteger inFlight = inFlights == null ? null : inFlights.get(getInstanceKey(serviceInstance));
+        if (inFlight != null) {
+            inFlight.updateAndGet(count -> count > 0 ? count - 1 : 0);
+        }
+    }
+
+    /**
+     * Get the in-flight requests of the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return the count
+     */
+    public int getInFlightRequests(ServiceInstance serviceInstance) {
+        return getInFlightRequests(getInFlightRequests(serviceInstance.getServiceId()), getInstanceKey(serviceInstance));
+    }
+
+    private Map<String, AtomicInteger> getInFlightRequests(String serviceId) {
+        return this.inFlightRequests.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+    }
+
+    private static int getInFlightRequests(Map<String, AtomicInteger> inFlights, String instanceKey) {
+        AtomicInteger inFlight = inFlights.get(instanceKey);
+        return inFlight == null ? 0 : inFlight.get();
+    }
+
+    /**
+     * Whether the instances of the service were chosen by this selector
+     *
+     * @param serviceId the service id
+     * @return <code>true</code> if chosen
+     */
+    public boolean contains(String serviceId) {
+        return this.serviceRings.containsKey(serviceId);
+    }
+
+    /**
+     * Retain the ring and the in-flight requests of the current instances of the service, the ring is updated
+     * incrementally
+     *
+     * @param serviceId        the service id
+     * @param serviceInstances the current {@link ServiceInstance service instances}
+     */
+    public void retain(String serviceId, Collection<? extends ServiceInstance> serviceInstances) {
+        Set<String> keys = new HashSet<>(serviceInstances.size());
+        List<String> orderedKeys = new ArrayList<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            String key = getInstanceKey(serviceInstance);
+            keys.add(key);
+            orderedKeys.add(key);
+        }
+        ServiceRing serviceRing = this.serviceRings.get(serviceId);
+        if (serviceRing != null) {
+            // The instances will be compared by the keys on next choosing
+            this.serviceRings.put(serviceId, new ServiceRing(null, serviceRing.ring.update(orderedKeys)));
+        }
+        Map<String, AtomicInteger> inFlights = this.inFlightRequests.get(serviceId);
+        if (inFlights != null) {
+            inFlights.keySet().retainAll(keys);
+        }
+    }
+
+    /**
+     * The {@link ConsistentHashRing} built from the {@link ServiceInstance service instances}
+     */
+    private static class ServiceRing {
+
+        @Nullable
+        private final List<? extends ServiceInstance> serviceInstances;
+
+        private final ConsistentHashRing ring;
+
+        private ServiceRing(@Nullable List<? extends ServiceInstance> serviceInstances, ConsistentHashRing ring) {
+            this.serviceInstances = serviceInstances;
+            this.ring = ring;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import io.microsphere.logging.Logger;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.microsphere.logging.LoggerFactory.getLogger;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_BASE_EJECTION_TIME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_CONSECUTIVE_FAILURES;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_DETECTION_ENABLED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_LATENCY_THRESHOLD;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_MAX_EJECTION_PERCENT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_BASE_EJECTION_TIME_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_DETECTION_ENABLED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_MAX_EJECTION_PERCENT_PROPERTY_NAME;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * The passive outlier detector of the {@link ServiceInstance service instances}, which tracks the responses routed by
+ * the gateway per instance, the instance failing consecutively is ejected from the selection for the base ejection
+ * time that is doubled by each ejection in succession, like the outlier detection of Envoy. The failure is the 5xx
+ * response, the connection failure or the response slower than the latency threshold.
+ * <p>
+ * The ejected instances are capped at the max percent of the service like Envoy, if exceeded, only the most recently
+ * ejected ones are kept out of the selection, and at least one instance is always selectable.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstance
+ * @since 1.0.0
+ */
+public class OutlierDetector {
+
+    private static final Logger logger = getLogger(OutlierDetector.class);
+
+    /**
+     * The max multiplier of the base ejection time
+     */
+    public static final int MAX_EJECTION_TIME_MULTIPLIER = 8;
+
+    /**
+     * The disabled {@link OutlierDetector}
+     */
+    public static final OutlierDetector NONE = new OutlierDetector(false, parseInt(DEFAULT_OUTLIER_CONSECUTIVE_FAILURES),
+            parseLong(DEFAULT_OUTLIER_BASE_EJECTION_TIME), parseInt(DEFAULT_OUTLIER_MAX_EJECTION_PERCENT),
+            parseLong(DEFAULT_OUTLIER_LATENCY_THRESHOLD), new Statistics());
+
+    private final boolean enabled;
+
+    private final int consecutiveFailures;
+
+    private final long baseEjectionTime;
+
+    private final int maxEjectionPercent;
+
+    private final long latencyThreshold;
+
+    private final Statistics statistics;
+
+    /**
+     * The {@link ServiceOutliers} keyed by the service id
+     */
+    private final Map<String, ServiceOutliers> serviceOutliersMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled             whether the outlier detection is enabled
+     * @param consecutiveFailures the consecutive failures to eject the instance
+     * @param baseEjectionTime    the base ejection time in milliseconds
+     * @param maxEjectionPercent  the max percent of the ejected instances of the service
+     * @param latencyThreshold    the latency threshold in milliseconds, non-positive means the latency is ignored
+     * @param statistics          the {@link Statistics}, which may be shared by the detectors across the refreshes
+     */
+    public OutlierDetector(boolean enabled, int consecutiveFailures, long baseEjectionTime, int maxEjectionPercent,
+                           long latencyThreshold, Statistics statistics) {
+        this.enabled = enabled;
+        this.consecutiveFailures = Math.max(consecutiveFailures, 1);
+        this.baseEjectionTime = Math.max(baseEjectionTime, 1);
+        this.maxEjectionPercent = Math.min(Math.max(maxEjectionPercent, 0), 100);
+        this.latencyThreshold = latencyThreshold;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Record the response of the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @param statusCode      the status code of the response, non-positive means the connection failure
+     * @param latency         the latency in milliseconds
+     */
+    public void record(ServiceInstance serviceInstance, int statusCode, long latency) {
+        record(serviceInstance.getServiceId(), serviceInstance.getHost(), serviceInstance.getPort(), statusCode, latency);
+    }
+
+    /**
+     * Record the response of the instance addressed by the host and the port
+     *
+     * @param serviceId  the service id
+     * @param host       the host of instance
+     * @param port       the port of instance
+     * @param statusCode the status code of the response, non-positive means the connection failure
+     * @param latency    the latency in milliseconds
+     */
+    public void record(String serviceId, String host, int port, int statusCode, long latency) {
+        if (this.enabled) {
+            record(serviceId, getAddress(host, port), isFailure(statusCode, latency), currentTimeMillis());
+        }
+    }
+
+    void record(String serviceId, String address, boolean failure, long now) {
+        if (!failure) {
+            ServiceOutliers serviceOutliers = this.serviceOutliersMap.get(serviceId);
+            Outlier outlier = serviceOutliers == null ? null : serviceOutliers.outliers.get(address);
+            if (outlier != null) {
+                outlier.onSuccess();
+            }
+            return;
+        }
+        this.statistics.failureCount.increment();
+        ServiceOutliers serviceOutliers = this.serviceOutliersMap.computeIfAbsent(serviceId, id -> new ServiceOutliers());
+        Outlier outlier = serviceOutliers.outliers.computeIfAbsent(address, a -> new Outlier());
+        long ejectionTime = outlier.onFailure(this.consecutiveFailures, this.baseEjectionTime, now);
+        if (ejectionTime > 0) {
+            this.statistics.ejectionCount.increment();
+            serviceOutliers.eject(now + ejectionTime);
+            logger.warn("The instance['{}'] of service['{}'] was ejected for {} ms after {} consecutive failures",
+                    address, serviceId, ejectionTime, this.consecutiveFailures);
+        }
+    }
+
+    boolean isFailure(int statusCode, long latency) {
+        return statusCode <= 0 || statusCode >= 500 || (this.latencyThreshold > 0 && latency > this.latencyThreshold);
+    }
+
+    /**
+     * Filter the {@link ServiceInstance service instances} that are not ejected
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances} of the same service
+     * @param <S>              the type of {@link ServiceInstance}
+     * @return the available instances, or the original ones if none is ejected
+     */
+    @Nonnull
+    public <S extends ServiceInstance> List<S> filter(List<S> serviceInstances) {
+        return filter(serviceInstances, currentTimeMillis());
+    }
+
+    <S extends ServiceInstance> List<S> filter(List<S> serviceInstances, long now) {
+        int size = serviceInstances.size();
+        if (size == 0 || !this.enabled) {
+            return serviceInstances;
+        }
+        ServiceOutliers serviceOutliers = this.serviceOutliersMap.get(serviceInstances.get(0).getServiceId());
+        if (serviceOutliers == null || now >= serviceOutliers.ejectedUntil) {
+            return serviceInstances;
+        }
+        Outlier[] ejectedOutliers = new Outlier[size];
+        int ejected = 0;
+        for (int i = 0; i < size; i++) {
+            Outlier outlier = serviceOutliers.getEjectedOutlier(getAddress(serviceInstances.get(i)), now);
+            if (outlier != null) {
+                ejectedOutliers[i] = outlier;
+                ejected++;
+            }
+        }
+        // The max ejected instances, at least one instance is kept
+        int maxEjected = Math.min(size * this.maxEjectionPercent / 100, size - 1);
+        if (ejected == 0 || maxEjected == 0) {
+            return serviceInstances;
+        }
+        if (ejected > maxEjected) {
+            keepMostRecentlyEjected(ejectedOutliers, maxEjected);
+        }
+        List<S> availableServiceInstances = new ArrayList<>(size - Math.min(ejected, maxEjected));
+        for (int i = 0; i < size; i++) {
+            if (ejectedOutliers[i] == null) {
+                availableServiceInstances.add(serviceInstances.get(i));
+            }
+        }
+        return availableServiceInstances;
+    }
+
+    /**
+     * Keep the most recently ejected outliers up to the max, the others are cleared and returned to the selection
+     *
+     * @param ejectedOutliers the ejected {@link Outlier outliers} aligned with the instances, <code>null</code> if not
+     *                        ejected
+     * @param maxEjected      the max ejected instances
+     */
+    private static void keepMostRecentlyEjected(Outlier[] ejectedOutliers, int maxEjected) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < ejectedOutliers.length; i++) {
+            if (ejectedOutliers[i] != null) {
+                indexes.add(i);
+            }
+        }
+        indexes.sort((i, j) -> Long.compare(ejectedOutliers[j].ejectedAt, ejectedOutliers[i].ejectedAt));
+        for (int k = maxEjected; k < indexes.size(); k++) {
+            ejectedOutliers[indexes.get(k)] = null;
+        }
+    }
+
+    /**
+     * Whether any instance of the service is ejected
+     *
+     * @param serviceId the service id
+     * @return <code>true</code> if ejecting
+     */
+    public boolean isEjecting(String serviceId) {
+        if (!this.enabled) {
+            return false;
+        }
+        ServiceOutliers serviceOutliers = this.serviceOutliersMap.get(serviceId);
+        return serviceOutliers != null && currentTimeMillis() < serviceOutliers.ejectedUntil;
+    }
+
+    /**
+     * Whether the {@link ServiceInstance} is ejected
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return <code>true</code> if ejected
+     */
+    public boolean isEjected(ServiceInstance serviceInstance) {
+        ServiceOutliers serviceOutliers = this.serviceOutliersMap.get(serviceInstance.getServiceId());
+        return serviceOutliers != null && serviceOutliers.isEjected(getAddress(serviceInstance), currentTimeMillis());
+    }
+
+    /**
+     * Get the count of the instances being ejected
+     *
+     * @return the count
+     */
+    public int getEjectedInstanceCount() {
+        long now = currentTimeMillis();
+        int count = 0;
+        for (ServiceOutliers serviceOutliers : this.serviceOutliersMap.values()) {
+            for (Outlier outlier : serviceOutliers.outliers.values()) {
+                if (now < outlier.ejectedUntil) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retain the outliers of the current instances of the service, the others are removed
+     *
+     * @param serviceId        the service id
+     * @param serviceInstances the current {@link ServiceInstance service instances}
+     */
+    public void retain(String serviceId, Collection<? extends ServiceInstance> serviceInstances) {
+        ServiceOutliers serviceOutliers = this.serviceOutliersMap.get(serviceId);
+        if (serviceOutliers == null) {
+            return;
+        }
+        Set<String> addresses = new HashSet<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            addresses.add(getAddress(serviceInstance));
+        }
+        serviceOutliers.outliers.keySet().retainAll(addresses);
+    }
+
+    /**
+     * Whether the settings are the same as the other's
+     *
+     * @param other the other {@link OutlierDetector}
+     * @return <code>true</code> if same
+     */
+    public boolean hasSameSettings(OutlierDetector other) {
+        return this.enabled == other.enabled
+                && this.consecutiveFailures == other.consecutiveFailures
+                && this.baseEjectionTime == other.baseEjectionTime
+                && this.maxEjectionPercent == other.maxEjectionPercent
+                && this.latencyThreshold == other.latencyThreshold;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getConsecutiveFailures() {
+        return this.consecutiveFailures;
+    }
+
+    public long getBaseEjectionTime() {
+        return this.baseEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return this.maxEjectionPercent;
+    }
+
+    public long getLatencyThreshold() {
+        return this.latencyThreshold;
+    }
+
+    @Nonnull
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Get the address of {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return "{host}:{port}"
+     */
+    @Nonnull
+    public static String getAddress(ServiceInstance serviceInstance) {
+        return getAddress(serviceInstance.getHost(), serviceInstance.getPort());
+    }
+
+    /**
+     * Get the address of the host and the port, the brackets of IPv6 host are removed
+     *
+     * @param host the host
+     * @param port the port
+     * @return "{host}:{port}"
+     */
+    @Nonnull
+    public static String getAddress(String host, int port) {
+        if (host.length() > 1 && host.charAt(0) == '[' && host.charAt(host.length() - 1) == ']') {
+            host = host.substring(1, host.length() - 1);
+        }
+        return host + ':' + port;
+    }
+
+    /**
+     * Create the {@link OutlierDetector} from the {@link Environment}
+     *
+     * @param environment {@link Environment}
+     * @param statistics  the {@link Statistics}
+     * @return {@link #NONE} if the environment is <code>null</code> or the outlier detection is disabled
+     */
+    @Nonnull
+    public static OutlierDetector of(@Nullable Environment environment, Statistics statistics) {
+        if (environment == null ||
+                !parseBoolean(environment.getProperty(OUTLIER_DETECTION_ENABLED_PROPERTY_NAME, DEFAULT_OUTLIER_DETECTION_ENABLED))) {
+            return NONE;
+        }
+        return new OutlierDetector(true,
+                parseInt(environment.getProperty(OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME, DEFAULT_OUTLIER_CONSECUTIVE_FAILURES)),
+                parseLong(environment.getProperty(OUTLIER_BASE_EJECTION_TIME_PROPERTY_NAME, DEFAULT_OUTLIER_BASE_EJECTION_TIME)),
+                parseInt(environment.getProperty(OUTLIER_MAX_EJECTION_PERCENT_PROPERTY_NAME, DEFAULT_OUTLIER_MAX_EJECTION_PERCENT)),
+                parseLong(environment.getProperty(OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME, DEFAULT_OUTLIER_LATENCY_THRESHOLD)),
+                statistics);
+    }
+
+    /**
+     * The outliers of the service keyed by the address of instance, and the time when the last ejection ends
+     */
+    private static class ServiceOutliers {
+
+        private final Map<String, Outlier> outliers = new ConcurrentHashMap<>();
+
+        private volatile long ejectedUntil;
+
+        private synchronized void eject(long ejectedUntil) {
+            if (ejectedUntil > this.ejectedUntil) {
+                this.ejectedUntil = ejectedUntil;
+            }
+        }
+
+        private boolean isEjected(String address, long now) {
+            return getEjectedOutlier(address, now) != null;
+        }
+
+        @Nullable
+        private Outlier getEjectedOutlier(String address, long now) {
+            Outlier outlier = this.outliers.get(address);
+            return outlier != null && now < outlier.ejectedUntil ? outlier : null;
+        }
+    }
+
+    /**
+     * The consecutive failures and the ejections of the instance
+     */
+    private static class Outlier {
+
+        private volatile int consecutiveFailures;
+
+        private volatile long ejectedAt;
+
+        private volatile long ejectedUntil;
+
+        private int ejections;
+
+        private long ejectionTime;
+
+        private void onSuccess() {
+            if (this.consecutiveFailures > 0) {
+                this.consecutiveFailures = 0;
+            }
+        }
+
+        /**
+         * @return the ejection time in milliseconds if ejected, otherwise 0
+         */
+        private synchronized long onFailure(int threshold, long baseEjectionTime, long now) {
+            if (now < this.ejectedUntil) {
+                // The in-flight requests before the ejection
+                return 0;
+            }
+            if (++this.consecutiveFailures < threshold) {
+                return 0;
+            }
+            this.consecutiveFailures = 0;
+            if (this.ejections > 0 && now - this.ejectedUntil > this.ejectionTime) {
+                // healthy for longer than the last ejection
+                this.ejections = 0;
+            }
+            int multiplier = 1 << Math.min(this.ejections++, 30);
+            this.ejectionTime = baseEjectionTime * Math.min(multiplier, MAX_EJECTION_TIME_MULTIPLIER);
+            this.ejectedAt = now;
+            this.ejectedUntil = now + this.ejectionTime;
+            return this.ejectionTime;
+        }
+    }
+
+    /**
+     * The statistics of {@link OutlierDetector}, which may be shared by the detectors to accumulate the counts across
+     * the refreshes
+     */
+    public static class Statistics {
+
+        private final LongAdder failureCount = new LongAdder();
+
+        private final LongAdder ejectionCount = new LongAdder();
+
+        public long getFailureCount() {
+            return this.failureCount.sum();
+        }
+
+        public long getEjectionCount() {
+            return this.ejectionCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "failureCount=" + getFailureCount() +
+                    ", ejectionCount=" + getEjectionCount() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.net.URI;
+
+import static io.microsphere.util.StringUtils.isBlank;
+
+/**
+ * The immutable base URI of {@link ServiceInstance} that is precomputed from the scheme, the host and the port, the
+ * encoded prefix is reused by the target URIs of all requests routed to the instance. As same as the URI reconstructed
+ * by the load balancer, the scheme falls back to the secure flag, and the web context path is never prepended.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstance
+ * @since 1.0.0
+ */
+public class ServiceInstanceBaseURI {
+
+    private final String serviceId;
+
+    private final String host;
+
+    private final int port;
+
+    /**
+     * The encoded prefix : "{scheme}://{host}:{port}"
+     */
+    private final String prefix;
+
+    private ServiceInstanceBaseURI(String serviceId, String scheme, String host, int port) {
+        this.serviceId = serviceId;
+        this.host = host;
+        this.port = port;
+        StringBuilder prefix = new StringBuilder(scheme.length() + host.length() + 10);
+        prefix.append(scheme).append("://");
+        if (host.indexOf(':') > -1 && host.charAt(0) != '[') {
+            // IPv6
+            prefix.append('[').append(host).append(']');
+        } else {
+            prefix.append(host);
+        }
+        prefix.append(':').append(port);
+        this.prefix = prefix.toString();
+    }
+
+    /**
+     * Resolve the target {@link URI} with the encoded path
+     *
+     * @param rawPath the encoded path, e.g. the value of the rewrite path
+     * @return non-null
+     */
+    @Nonnull
+    public URI resolve(String rawPath) {
+        return URI.create(this.prefix.concat(rawPath));
+    }
+
+    /**
+     * Whether the {@link ServiceInstance} has the same address
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return <code>true</code> if matches
+     */
+    public boolean matches(ServiceInstance serviceInstance) {
+        return this.port == serviceInstance.getPort() && this.host.equals(serviceInstance.getHost());
+    }
+
+    public String getServiceId() {
+        return this.serviceId;
+    }
+
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * Create the {@link ServiceInstanceBaseURI} of {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return non-null
+     */
+    @Nonnull
+    public static ServiceInstanceBaseURI of(ServiceInstance serviceInstance) {
+        String scheme = serviceInstance.getScheme();
+        if (isBlank(scheme)) {
+            scheme = serviceInstance.isSecure() ? "https" : "http";
+        }
+        return new ServiceInstanceBaseURI(serviceInstance.getServiceId(), scheme, serviceInstance.getHost(),
+                serviceInstance.getPort());
+    }
+
+    @Override
+    public String toString() {
+        return this.prefix;
+    }
+}
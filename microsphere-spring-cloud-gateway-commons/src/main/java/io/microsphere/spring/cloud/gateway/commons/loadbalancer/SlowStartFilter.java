@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_SLOW_START_WINDOW;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SLOW_START_WINDOW_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.getInstanceKey;
+import static java.lang.Long.parseLong;
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * The filter of the {@link ServiceInstance service instances} that ramps the traffic of the newly discovered instances
+ * up, each of them is kept in the candidates by its weight that grows linearly from {@link #MIN_WEIGHT} to full over
+ * the slow-start window since it was first seen, thus the cold instance is chosen less often by any load balancer
+ * running on the filtered instances.
+ * <p>
+ * The instances seen at the first time of the service are regarded as warm, because they were discovered before the
+ * gateway started.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstance
+ * @since 1.0.0
+ */
+public class SlowStartFilter {
+
+    /**
+     * The weight of the instance when it's just discovered
+     */
+    public static final double MIN_WEIGHT = 0.1;
+
+    /**
+     * The {@link SlowStartFilter} without the slow start
+     */
+    public static final SlowStartFilter NONE = new SlowStartFilter(0);
+
+    private final long window;
+
+    /**
+     * The {@link FirstSeenTimes} keyed by the service id
+     */
+    private final Map<String, FirstSeenTimes> firstSeenTimesMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param window the slow-start window in milliseconds, non-positive means disabled
+     */
+    public SlowStartFilter(long window) {
+        this.window = Math.max(window, 0);
+    }
+
+    /**
+     * Record the {@link ServiceInstance service instances} of the service as warm if the service was never recorded
+     *
+     * @param serviceId        the service id
+     * @param serviceInstances all {@link ServiceInstance service instances} of the service
+     */
+    public void initialize(String serviceId, Collection<? extends ServiceInstance> serviceInstances) {
+        if (isEnabled() && !this.firstSeenTimesMap.containsKey(serviceId)) {
+            onServiceInstancesChanged(serviceId, serviceInstances);
+        }
+    }
+
+    /**
+     * Record the first-seen times of the {@link ServiceInstance service instances} of the service, the ones gone are
+     * removed
+     *
+     * @param serviceId        the service id
+     * @param serviceInstances all {@link ServiceInstance service instances} of the service
+     */
+    public void onServiceInstancesChanged(String serviceId, Collection<? extends ServiceInstance> serviceInstances) {
+        onServiceInstancesChanged(serviceId, serviceInstances, currentTimeMillis());
+    }
+
+    void onServiceInstancesChanged(String serviceId, Collection<? extends ServiceInstance> serviceInstances, long now) {
+        if (!isEnabled()) {
+            return;
+        }
+        FirstSeenTimes previous = this.firstSeenTimesMap.get(serviceId);
+        // The warm instances were seen before the window
+        Long warmSeenTime = now - this.window;
+        Map<String, Long> times = new HashMap<>(serviceInstances.size());
+        long lastSeenTime = warmSeenTime;
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            String instanceKey = getInstanceKey(serviceInstance);
+            Long time = previous == null ? warmSeenTime : previous.times.get(instanceKey);
+            if (time == null) {
+                time = now;
+            }
+            times.put(instanceKey, time);
+            lastSeenTime = Math.max(lastSeenTime, time);
+        }
+        this.firstSeenTimesMap.put(serviceId, new FirstSeenTimes(times, lastSeenTime + this.window));
+    }
+
+    /**
+     * Filter the {@link ServiceInstance service instances}, the instance in the slow-start window is kept by the
+     * probability of its weight
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances} of the same service
+     * @param <S>              the type of {@link ServiceInstance}
+     * @return the kept instances, or the original ones if no instance is warming up or none of them is kept
+     */
+    @Nonnull
+    public <S extends ServiceInstance> List<S> filter(List<S> serviceInstances) {
+        return filter(serviceInstances, currentTimeMillis(), ThreadLocalRandom.current());
+    }
+
+    <S extends ServiceInstance> List<S> filter(List<S> serviceInstances, long now, Random random) {
+        int size = serviceInstances.size();
+        if (size < 2 || !isEnabled()) {
+            return serviceInstances;
+        }
+        FirstSeenTimes firstSeenTimes = this.firstSeenTimesMap.get(serviceInstances.get(0).getServiceId());
+        if (firstSeenTimes == null || now >= firstSeenTimes.warmTime) {
+            return serviceInstances;
+        }
+        List<S> keptServiceInstances = null;
+        for (int i = 0; i < size; i++) {
+            S serviceInstance = serviceInstances.get(i);
+            double weight = getWeight(firstSeenTimes.times.get(getInstanceKey(serviceInstance)), now);
+            boolean kept = weight >= 1.0 || random.nextDouble() < weight;
+            if (keptServiceInstances != null) {
+                if (kept) {
+                    keptServiceInstances.add(serviceInstance);
+                }
+            } else if (!kept) {
+                keptServiceInstances = new ArrayList<>(serviceInstances.subList(0, i));
+            }
+        }
+        return keptServiceInstances == null || keptServiceInstances.isEmpty() ? serviceInstances : keptServiceInstances;
+    }
+
+    /**
+     * Get the weight of the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return from {@link #MIN_WEIGHT} to 1.0
+     */
+    public double getWeight(ServiceInstance serviceInstance) {
+        return getWeight(serviceInstance, currentTimeMillis());
+    }
+
+    double getWeight(ServiceInstance serviceInstance, long now) {
+        FirstSeenTimes firstSeenTimes = this.firstSeenTimesMap.get(serviceInstance.getServiceId());
+        return firstSeenTimes == null ? 1.0 : getWeight(firstSeenTimes.times.get(getInstanceKey(serviceInstance)), now);
+    }
+
+    private double getWeight(@Nullable Long firstSeenTime, long now) {
+        if (firstSeenTime == null) {
+            return 1.0;
+        }
+        long elapsed = now - firstSeenTime;
+        if (elapsed >= this.window) {
+            return 1.0;
+        }
+        return MIN_WEIGHT + (1.0 - MIN_WEIGHT) * Math.max(elapsed, 0) / this.window;
+    }
+
+    /**
+     * Whether the slow start is enabled
+     *
+     * @return <code>true</code> if the window is positive
+     */
+    public boolean isEnabled() {
+        return this.window > 0;
+    }
+
+    public long getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Create the {@link SlowStartFilter} from the {@link Environment} by
+     * {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#SLOW_START_WINDOW_PROPERTY_NAME}
+     *
+     * @param environment {@link Environment}
+     * @return {@link #NONE} if the environment is <code>null</code> or the window is not positive
+     */
+    @Nonnull
+    public static SlowStartFilter of(@Nullable Environment environment) {
+        if (environment == null) {
+            return NONE;
+        }
+        long window = parseLong(environment.getProperty(SLOW_START_WINDOW_PROPERTY_NAME, DEFAULT_SLOW_START_WINDOW));
+        return window > 0 ? new SlowStartFilter(window) : NONE;
+    }
+
+    /**
+     * The first-seen times keyed by the instance, and the time when all instances of the service are warm
+     */
+    private static class FirstSeenTimes {
+
+        private final Map<String, Long> times;
+
+        private final long warmTime;
+
+        private FirstSeenTimes(Map<String, Long> times, long warmTime) {
+            this.times = times;
+            this.warmTime = warmTime;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.microsphere.util.StringUtils.isBlank;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * The index of the {@link ServiceInstance service instances} by the {@link WebEndpointMapping#getId() ids} of
+ * {@link WebEndpointMapping WebEndpointMappings} they serve. The mappings of each instance are summarized by the
+ * fingerprint, the instances with the same fingerprint serve the same mappings, thus only the mappings that are not
+ * served by every fingerprint, e.g. the ones added or removed during the rolling deployment, are indexed to the
+ * instances serving them.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMapping
+ * @see ServiceInstance
+ * @since 1.0.0
+ */
+public class WebEndpointMappingInstanceIndex {
+
+    /**
+     * The {@link WebEndpointMappingInstanceIndex} without any instance, all mappings are served by all instances
+     */
+    public static final WebEndpointMappingInstanceIndex EMPTY = new WebEndpointMappingInstanceIndex(emptyMap());
+
+    /**
+     * The fingerprints of the mappings keyed by the instance
+     */
+    private final Map<String, Long> fingerprints;
+
+    /**
+     * The instances serving the mapping keyed by the mapping id, only the mappings that are not served by all
+     * instances are indexed
+     */
+    private final Map<Integer, Set<String>> servingInstances;
+
+    /**
+     * @param instanceWebEndpointMappings the {@link WebEndpointMapping WebEndpointMappings} keyed by the
+     *                                    {@link ServiceInstance}
+     */
+    public WebEndpointMappingInstanceIndex(Map<? extends ServiceInstance, ? extends Collection<WebEndpointMapping>> instanceWebEndpointMappings) {
+        Map<String, Long> fingerprints = new LinkedHashMap<>(instanceWebEndpointMappings.size());
+        // The sorted mapping ids keyed by the fingerprint, that are shared by the instances with the same fingerprint
+        Map<Long, int[]> fingerprintMappingIds = new HashMap<>();
+        for (Map.Entry<? extends ServiceInstance, ? extends Collection<WebEndpointMapping>> entry : instanceWebEndpointMappings.entrySet()) {
+            int[] mappingIds = getMappingIds(entry.getValue());
+            long fingerprint = fingerprint(mappingIds);
+            fingerprints.put(getInstanceKey(entry.getKey()), fingerprint);
+            fingerprintMappingIds.putIfAbsent(fingerprint, mappingIds);
+        }
+        this.fingerprints = fingerprints;
+        this.servingInstances = fingerprintMappingIds.size() < 2 ? emptyMap() : buildServingInstances(fingerprints, fingerprintMappingIds);
+    }
+
+    private static Map<Integer, Set<String>> buildServingInstances(Map<String, Long> fingerprints, Map<Long, int[]> fingerprintMappingIds) {
+        // The fingerprints serving the mapping keyed by the mapping id
+        Map<Integer, Set<Long>> mappingFingerprints = new HashMap<>();
+        for (Map.Entry<Long, int[]> entry : fingerprintMappingIds.entrySet()) {
+            for (int mappingId : entry.getValue()) {
+                mappingFingerprints.computeIfAbsent(mappingId, id -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        int fingerprintCount = fingerprintMappingIds.size();
+        Map<Integer, Set<String>> servingInstances = new HashMap<>();
+        for (Map.Entry<Integer, Set<Long>> entry : mappingFingerprints.entrySet()) {
+            Set<Long> servingFingerprints = entry.getValue();
+            if (servingFingerprints.size() == fingerprintCount) {
+                // served by all instances
+                continue;
+            }
+            Set<String> instanceKeys = new HashSet<>();
+            for (Map.Entry<String, Long> fingerprint : fingerprints.entrySet()) {
+                if (servingFingerprints.contains(fingerprint.getValue())) {
+                    instanceKeys.add(fingerprint.getKey());
+                }
+            }
+            servingInstances.put(entry.getKey(), unmodifiableSet(instanceKeys));
+        }
+        return servingInstances;
+    }
+
+    /**
+     * Filter the {@link ServiceInstance service instances} that serve the mapping
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances}
+     * @param mappingId        the id of {@link WebEndpointMapping}
+     * @param <S>              the type of {@link ServiceInstance}
+     * @return the instances serving the mapping, or all instances if the mapping is served by all of them or none of
+     * them serves the mapping
+     */
+    @Nonnull
+    public <S extends ServiceInstance> List<S> filter(List<S> serviceInstances, int mappingId) {
+        Set<String> instanceKeys = this.servingInstances.get(mappingId);
+        if (instanceKeys == null) {
+            return serviceInstances;
+        }
+        List<S> filteredServiceInstances = new ArrayList<>(serviceInstances.size());
+        for (S serviceInstance : serviceInstances) {
+            if (instanceKeys.contains(getInstanceKey(serviceInstance))) {
+                filteredServiceInstances.add(serviceInstance);
+            }
+        }
+        return filteredServiceInstances.isEmpty() ? serviceInstances : filteredServiceInstances;
+    }
+
+    /**
+     * Whether the mapping is served by all instances, the unknown mapping is considered as served by all
+     *
+     * @param mappingId the id of {@link WebEndpointMapping}
+     * @return <code>true</code> if no instance needs to be filtered
+     */
+    public boolean isServedByAll(int mappingId) {
+        return !this.servingInstances.containsKey(mappingId);
+    }
+
+    /**
+     * Whether all instances serve the same mappings
+     *
+     * @return <code>true</code> if uniform
+     */
+    public boolean isUniform() {
+        return this.servingInstances.isEmpty();
+    }
+
+    /**
+     * Get the keys of the instances serving the mapping
+     *
+     * @param mappingId the id of {@link WebEndpointMapping}
+     * @return the empty set if the mapping is served by all instances
+     * @see #getInstanceKey(ServiceInstance)
+     */
+    @Nonnull
+    public Set<String> getServingInstances(int mappingId) {
+        return this.servingInstances.getOrDefault(mappingId, emptySet());
+    }
+
+    /**
+     * Get the fingerprint of the mappings of {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return <code>null</code> if the instance is not indexed
+     */
+    @Nullable
+    public Long getFingerprint(ServiceInstance serviceInstance) {
+        return this.fingerprints.get(getInstanceKey(serviceInstance));
+    }
+
+    public int size() {
+        return this.fingerprints.size();
+    }
+
+    /**
+     * Get the fingerprint of the {@link WebEndpointMapping WebEndpointMappings}, that is independent of their order
+     *
+     * @param webEndpointMappings {@link WebEndpointMapping WebEndpointMappings}
+     * @return the fingerprint
+     */
+    public static long fingerprint(Collection<WebEndpointMapping> webEndpointMappings) {
+        return fingerprint(getMappingIds(webEndpointMappings));
+    }
+
+    static long fingerprint(int[] sortedMappingIds) {
+        long fingerprint = 1125899906842597L;
+        for (int mappingId : sortedMappingIds) {
+            fingerprint = 31 * fingerprint + mappingId;
+        }
+        return fingerprint;
+    }
+
+    static int[] getMappingIds(Collection<WebEndpointMapping> webEndpointMappings) {
+        int[] mappingIds = new int[webEndpointMappings.size()];
+        int size = 0;
+        for (WebEndpointMapping webEndpointMapping : webEndpointMappings) {
+            mappingIds[size++] = webEndpointMapping.getId();
+        }
+        sort(mappingIds);
+        // distinct
+        int distinctSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinctSize == 0 || mappingIds[distinctSize - 1] != mappingIds[i]) {
+                mappingIds[distinctSize++] = mappingIds[i];
+            }
+        }
+        return distinctSize == size ? mappingIds : copyOf(mappingIds, distinctSize);
+    }
+
+    /**
+     * Get the key of {@link ServiceInstance} in the index, which is the instance id, or "host:port" if absent
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return non-null
+     */
+    @Nonnull
+    public static String getInstanceKey(ServiceInstance serviceInstance) {
+        String instanceId = serviceInstance.getInstanceId();
+        return isBlank(instanceId) ? serviceInstance.getHost() + ":" + serviceInstance.getPort() : instanceId;
+    }
+
+    @Override
+    public String toString() {
+        return "WebEndpointMappingInstanceIndex{instances=" + this.fingerprints.size() +
+                ", partialMappings=" + this.servingInstances.size() + '}';
+    }
+}
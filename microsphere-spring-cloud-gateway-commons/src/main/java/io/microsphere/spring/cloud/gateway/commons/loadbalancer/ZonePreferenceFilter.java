@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_ZONE_MIN_INSTANCES;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_ZONE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_MIN_INSTANCES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_PROPERTY_NAME;
+import static io.microsphere.util.StringUtils.isBlank;
+import static java.lang.Integer.parseInt;
+
+/**
+ * The filter of the {@link ServiceInstance service instances} that prefers the ones in the same zone as the gateway,
+ * the zone of instance is read from its metadata "zone", the same as the "ZonePreferenceServiceInstanceListSupplier"
+ * of Spring Cloud LoadBalancer. If the count of the local instances is less than the threshold, all instances are
+ * used, thus the requests fall back to the other zones.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstance
+ * @since 1.0.0
+ */
+public class ZonePreferenceFilter {
+
+    /**
+     * The metadata name of the zone of {@link ServiceInstance}
+     */
+    public static final String ZONE_METADATA_NAME = "zone";
+
+    /**
+     * The {@link ZonePreferenceFilter} without any zone
+     */
+    public static final ZonePreferenceFilter NONE = new ZonePreferenceFilter(null, 1);
+
+    @Nullable
+    private final String zone;
+
+    private final int minInstances;
+
+    /**
+     * @param zone         the zone of the gateway, <code>null</code> means no preference
+     * @param minInstances the minimum count of the local instances, otherwise all instances are used
+     */
+    public ZonePreferenceFilter(@Nullable String zone, int minInstances) {
+        this.zone = isBlank(zone) ? null : zone;
+        this.minInstances = Math.max(minInstances, 1);
+    }
+
+    /**
+     * Filter the {@link ServiceInstance service instances} in the preferred zone
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances}
+     * @param <S>              the type of {@link ServiceInstance}
+     * @return the local instances if the count of them reaches the threshold, otherwise all instances
+     */
+    @Nonnull
+    public <S extends ServiceInstance> List<S> filter(List<S> serviceInstances) {
+        String zone = this.zone;
+        if (zone == null || serviceInstances.size() < this.minInstances) {
+            return serviceInstances;
+        }
+        List<S> localServiceInstances = new ArrayList<>(serviceInstances.size());
+        for (S serviceInstance : serviceInstances) {
+            if (zone.equalsIgnoreCase(getZone(serviceInstance))) {
+                localServiceInstances.add(serviceInstance);
+            }
+        }
+        int size = localServiceInstances.size();
+        if (size == serviceInstances.size()) {
+            return serviceInstances;
+        }
+        return size < this.minInstances ? serviceInstances : localServiceInstances;
+    }
+
+    /**
+     * Whether the zone is preferred
+     *
+     * @return <code>true</code> if the zone of gateway is configured
+     */
+    public boolean isEnabled() {
+        return this.zone != null;
+    }
+
+    @Nullable
+    public String getZone() {
+        return this.zone;
+    }
+
+    public int getMinInstances() {
+        return this.minInstances;
+    }
+
+    /**
+     * Get the zone of the {@link ServiceInstance}
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return <code>null</code> if absent
+     */
+    @Nullable
+    public static String getZone(ServiceInstance serviceInstance) {
+        Map<String, String> metadata = serviceInstance.getMetadata();
+        return metadata == null ? null : metadata.get(ZONE_METADATA_NAME);
+    }
+
+    /**
+     * Create the {@link ZonePreferenceFilter} from the {@link Environment}, the zone of gateway is resolved from
+     * {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#ZONE_PROPERTY_NAME},
+     * or the zone of Spring Cloud LoadBalancer
+     *
+     * @param environment {@link Environment}
+     * @return {@link #NONE} if the environment is <code>null</code>
+     */
+    @Nonnull
+    public static ZonePreferenceFilter of(@Nullable Environment environment) {
+        if (environment == null) {
+            return NONE;
+        }
+        String zone = environment.getProperty(ZONE_PROPERTY_NAME, environment.getProperty(LOAD_BALANCER_ZONE_PROPERTY_NAME));
+        String minInstances = environment.getProperty(ZONE_MIN_INSTANCES_PROPERTY_NAME, DEFAULT_ZONE_MIN_INSTANCES);
+        return new ZonePreferenceFilter(zone, parseInt(minInstances));
+    }
+
+    @Override
+    public String toString() {
+        return "ZonePreferenceFilter{zone='" + this.zone + "', minInstances=" + this.minInstances + '}';
+    }
+}
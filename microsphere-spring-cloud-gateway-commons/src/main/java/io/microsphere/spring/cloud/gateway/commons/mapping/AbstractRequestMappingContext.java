@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The abstract context of a request mapping to be matched by the {@link RequestMappingTable}, whose subclass adapts
+ * the "RequestMappingInfo" of Spring WebFlux or Spring Web MVC.
+ *
+ * @param <C> the type of {@link AbstractRequestMappingContext} itself
+ * @param <R> the type of {@link MatchingRequest}
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingTable
+ * @see MatchingRequest
+ * @since 1.0.0
+ */
+public abstract class AbstractRequestMappingContext<C extends AbstractRequestMappingContext<C, R>, R extends MatchingRequest> {
+
+    private final int id;
+
+    final String[] patterns;
+
+    /**
+     * The rank of specificity
+     */
+    int rank;
+
+    /**
+     * The exclusive end rank of the ties whose order depends on the request
+     */
+    int tieEnd;
+
+    /**
+     * @param id       the id of request mapping
+     * @param patterns the path patterns of request mapping
+     */
+    protected AbstractRequestMappingContext(int id, String[] patterns) {
+        this.id = id;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Get the id of request mapping
+     *
+     * @return the id of request mapping
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the rank of specificity in the {@link RequestMappingTable}
+     *
+     * @return the rank of specificity
+     */
+    public int getRank() {
+        return this.rank;
+    }
+
+    /**
+     * Get the exclusive end rank of the ties whose order depends on the request
+     *
+     * @return the rank after this one if no tie
+     */
+    public int getTieEnd() {
+        return this.tieEnd;
+    }
+
+    /**
+     * Get the declared {@link RequestMethod methods}
+     *
+     * @return empty means any
+     */
+    public abstract Set<RequestMethod> getMethods();
+
+    /**
+     * Get the names of the parameters used by the "params" condition
+     *
+     * @return non-null
+     */
+    public abstract Collection<String> getParamNames();
+
+    /**
+     * Get the names of the headers used by the "headers" condition
+     *
+     * @return non-null
+     */
+    public abstract Collection<String> getHeaderNames();
+
+    /**
+     * Whether the "consumes" condition is declared
+     *
+     * @return <code>true</code> if declared
+     */
+    public abstract boolean hasConsumes();
+
+    /**
+     * Whether the "produces" condition is declared, whose order depends on the request
+     *
+     * @return <code>true</code> if declared
+     */
+    public abstract boolean hasProduces();
+
+    /**
+     * Whether matches all conditions with the {@link MatchingRequest#getPath() path} and the request
+     *
+     * @param request the {@link MatchingRequest}
+     * @return <code>true</code> if matches
+     */
+    public abstract boolean matches(R request);
+
+    /**
+     * Compare with the other by all conditions for the request
+     *
+     * @param other   the other matched by the request
+     * @param request the {@link MatchingRequest}
+     * @return the comparison result
+     */
+    public abstract int compareTo(C other, R request);
+
+    /**
+     * Compare with the other by the conditions that do not depend on the request
+     *
+     * @param other the other
+     * @return the comparison result
+     */
+    public abstract int compareTo(C other);
+
+    /**
+     * Compare with the other by the conditions before the "produces" that do not depend on the request
+     *
+     * @param other the other
+     * @return the comparison result
+     */
+    public abstract int compareToRequestIndependently(C other);
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+
+import static io.microsphere.util.StringUtils.isNotBlank;
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+/**
+ * The template of the {@link MatchingResultCache} key that normalizes a request by its method, its rewrite path and
+ * only the parameters and the headers that the request mapping conditions actually use, thus the requests that differ
+ * in the other parts share the same key.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see MatchingResultCache
+ * @since 1.0.0
+ */
+public class MatchingKeyTemplate {
+
+    static final char SEPARATOR = '\u0000';
+
+    static final char VALUE_SEPARATOR = '\u0001';
+
+    private final String[] paramNames;
+
+    private final String[] headerNames;
+
+    private final boolean bodyAware;
+
+    /**
+     * @param paramNames  the names of the parameters used by the "params" conditions
+     * @param headerNames the names of the headers used by the "headers", "consumes" and "produces" conditions
+     * @param bodyAware   whether the "consumes" conditions are used, which match the request without body
+     */
+    public MatchingKeyTemplate(Collection<String> paramNames, Collection<String> headerNames, boolean bodyAware) {
+        this.paramNames = new TreeSet<>(paramNames).toArray(String[]::new);
+        TreeSet<String> sortedHeaderNames = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+        sortedHeaderNames.addAll(headerNames);
+        this.headerNames = sortedHeaderNames.toArray(String[]::new);
+        this.bodyAware = bodyAware;
+    }
+
+    /**
+     * Build the key of the {@link MatchingRequest}
+     *
+     * @param request the {@link MatchingRequest}
+     * @return non-null
+     */
+    @Nonnull
+    public String build(MatchingRequest request) {
+        return build(request.getMethod(), request.getPath().value(), this.bodyAware && request.hasBody(), request,
+                MatchingRequest::getParameterValues, MatchingRequest::getHeaderValues);
+    }
+
+    /**
+     * Build the key of the request
+     *
+     * @param method       the HTTP method
+     * @param path         the rewrite path
+     * @param hasBody      whether the request has the body
+     * @param request      the request
+     * @param paramValues  the function to get the values of the parameter by name
+     * @param headerValues the function to get the values of the header by name
+     * @param <R>          the type of request
+     * @return non-null
+     */
+    @Nonnull
+    public <R> String build(String method, String path, boolean hasBody, R request,
+                            BiFunction<R, String, List<String>> paramValues,
+                            BiFunction<R, String, List<String>> headerValues) {
+        StringBuilder key = new StringBuilder(method.length() + path.length() + 16);
+        key.append(method).append(SEPARATOR).append(path);
+        for (String paramName : this.paramNames) {
+            appendValues(key, paramValues.apply(request, paramName));
+        }
+        for (String headerName : this.headerNames) {
+            appendValues(key, headerValues.apply(request, headerName));
+        }
+        if (this.bodyAware) {
+            key.append(SEPARATOR).append(hasBody);
+        }
+        return key.toString();
+    }
+
+    public String[] getParamNames() {
+        return this.paramNames.clone();
+    }
+
+    public String[] getHeaderNames() {
+        return this.headerNames.clone();
+    }
+
+    public boolean isBodyAware() {
+        return this.bodyAware;
+    }
+
+    /**
+     * Whether the request has the body in the same way of the "consumes" conditions
+     *
+     * @param contentLength    the value of "Content-Length" header
+     * @param transferEncoding the value of "Transfer-Encoding" header
+     * @return <code>true</code> if the request has the body
+     */
+    public static boolean hasBody(String contentLength, String transferEncoding) {
+        return isNotBlank(transferEncoding) || (isNotBlank(contentLength) && !"0".equals(contentLength.trim()));
+    }
+
+    private static void appendValues(StringBuilder key, List<String> values) {
+        key.append(SEPARATOR);
+        if (values == null) {
+            // absent
+            return;
+        }
+        for (String value : values) {
+            key.append(VALUE_SEPARATOR).append(value);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.http.server.PathContainer;
+
+import java.util.List;
+
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+import static org.springframework.http.HttpHeaders.TRANSFER_ENCODING;
+
+/**
+ * The protocol-neutral request to be matched by the {@link RequestMappingTable}, which is adapted from the request of
+ * Spring WebFlux or Spring Web MVC without any copy.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingTable
+ * @see AbstractRequestMappingContext
+ * @since 1.0.0
+ */
+public interface MatchingRequest {
+
+    /**
+     * Get the HTTP method
+     *
+     * @return non-null
+     */
+    @Nonnull
+    String getMethod();
+
+    /**
+     * Get the {@link PathContainer path} to be matched by the path patterns, which may be a sub-path of the request
+     *
+     * @return non-null
+     */
+    @Nonnull
+    PathContainer getPath();
+
+    /**
+     * Get the values of the parameter
+     *
+     * @param name the name of parameter
+     * @return <code>null</code> if absent
+     */
+    @Nullable
+    List<String> getParameterValues(String name);
+
+    /**
+     * Get the values of the header
+     *
+     * @param name the name of header, case-insensitive
+     * @return <code>null</code> if absent
+     */
+    @Nullable
+    List<String> getHeaderValues(String name);
+
+    /**
+     * Get the first value of the header
+     *
+     * @param name the name of header, case-insensitive
+     * @return <code>null</code> if absent
+     */
+    @Nullable
+    default String getHeader(String name) {
+        List<String> values = getHeaderValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Whether the request has the body in the same way of the "consumes" conditions
+     *
+     * @return <code>true</code> if the request has the body
+     */
+    default boolean hasBody() {
+        return MatchingKeyTemplate.hasBody(getHeader(CONTENT_LENGTH), getHeader(TRANSFER_ENCODING));
+    }
+
+    /**
+     * Whether the request is a CORS pre-flight request, which is matched by the method of
+     * "Access-Control-Request-Method" header
+     *
+     * @return <code>true</code> if pre-flight
+     */
+    boolean isPreFlight();
+}
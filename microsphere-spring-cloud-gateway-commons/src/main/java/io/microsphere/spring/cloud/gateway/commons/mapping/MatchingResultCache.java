@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The size-bounded cache of the matching results with the Segmented-LRU eviction, the new entries are admitted into the
+ * probationary segment, and promoted into the protected segment when they are hit again, thus the one-hit entries
+ * (e.g. the scans of the distinct paths) can't flush the frequent ones.
+ * <p>
+ * The lookups are lock-free, the hits are recorded into a bounded read buffer, which is replayed into the segments
+ * under the lock by the next miss or the hit filling up the buffer, the hits are dropped if the buffer is full and
+ * the lock is held by the others, thus the recency is approximate under the contention.
+ * <p>
+ * The "no match" results are cached as well, and the cache is disabled if the max size is not positive.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of matching result
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see Statistics
+ * @since 1.0.0
+ */
+public class MatchingResultCache<K, V> {
+
+    /**
+     * The ratio of the protected segment in the max size
+     */
+    static final float PROTECTED_RATIO = 0.8f;
+
+    /**
+     * The max count of the buffered hits to replay
+     */
+    static final int READ_BUFFER_SIZE = 128;
+
+    private static final Object NO_MATCH = new Object();
+
+    private final int maxSize;
+
+    private final int protectedMaxSize;
+
+    private final Statistics statistics;
+
+    private final Map<K, Object> entries = new ConcurrentHashMap<>();
+
+    private final Queue<K> readBuffer = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger readBufferSize = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<K, Object> probationSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, Object> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MatchingResultCache(int maxSize) {
+        this(maxSize, new Statistics());
+    }
+
+    public MatchingResultCache(int maxSize, Statistics statistics) {
+        this.maxSize = maxSize;
+        this.protectedMaxSize = (int) (maxSize * PROTECTED_RATIO);
+        this.statistics = statistics;
+    }
+
+    /**
+     * Get the cached matching result of the key, or match and cache it if absent
+     *
+     * @param key     the key of request
+     * @param matcher the function to match if the result is absent
+     * @return <code>null</code> if no match
+     */
+    @Nullable
+    public V get(K key, Function<? super K, ? extends V> matcher) {
+        if (!isEnabled()) {
+            return matcher.apply(key);
+        }
+        Object result = this.entries.get(key);
+        if (result != null) {
+            this.statistics.hitCount.increment();
+            recordHit(key);
+            return result == NO_MATCH ? null : (V) result;
+        }
+        this.statistics.missCount.increment();
+        V value = matcher.apply(key);
+        ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            drainReadBuffer();
+            put(key, value == null ? NO_MATCH : value);
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    public boolean isEnabled() {
+        return this.maxSize > 0;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * The count of the cached entries
+     *
+     * @return the count of the cached entries
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    private void recordHit(K key) {
+        if (this.readBufferSize.incrementAndGet() <= READ_BUFFER_SIZE) {
+            this.readBuffer.offer(key);
+            return;
+        }
+        this.readBufferSize.decrementAndGet();
+        // the buffer is full, replay it if the lock is free, or drop the hit
+        ReentrantLock lock = this.lock;
+        if (lock.tryLock()) {
+            try {
+                drainReadBuffer();
+                promote(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        K key;
+        while ((key = this.readBuffer.poll()) != null) {
+            this.readBufferSize.decrementAndGet();
+            promote(key);
+        }
+    }
+
+    private void promote(K key) {
+        if (this.protectedSegment.get(key) != null) {
+            return;
+        }
+        Object result = this.probationSegment.remove(key);
+        if (result != null) {
+            // hit again, promote into the protected segment
+            this.protectedSegment.put(key, result);
+            if (this.protectedSegment.size() > this.protectedMaxSize) {
+                // demote the least recently used entry of the protected segment
+                Map.Entry<K, Object> eldest = removeEldest(this.protectedSegment);
+                this.probationSegment.put(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void put(K key, Object result) {
+        if (this.entries.putIfAbsent(key, result) != null) {
+            // matched by the concurrent requests
+            return;
+        }
+        this.probationSegment.put(key, result);
+        while (this.probationSegment.size() + this.protectedSegment.size() > this.maxSize) {
+            Map.Entry<K, Object> eldest = removeEldest(this.probationSegment.isEmpty() ? this.protectedSegment : this.probationSegment);
+            this.entries.remove(eldest.getKey());
+            this.statistics.evictionCount.increment();
+        }
+    }
+
+    private Map.Entry<K, Object> removeEldest(LinkedHashMap<K, Object> segment) {
+        Iterator<Map.Entry<K, Object>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, Object> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    /**
+     * The statistics of {@link MatchingResultCache}, which may be shared by the caches to accumulate the counts across
+     * the refreshes
+     */
+    public static class Statistics {
+
+        private final LongAdder hitCount = new LongAdder();
+
+        private final LongAdder missCount = new LongAdder();
+
+        private final LongAdder evictionCount = new LongAdder();
+
+        public long getHitCount() {
+            return this.hitCount.sum();
+        }
+
+        public long getMissCount() {
+            return this.missCount.sum();
+        }
+
+        public long getEvictionCount() {
+            return this.evictionCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "hitCount=" + getHitCount() +
+                    ", missCount=" + getMissCount() +
+                    ", evictionCount=" + getEvictionCount() +
+                    '}';
+        }
+    }
+}
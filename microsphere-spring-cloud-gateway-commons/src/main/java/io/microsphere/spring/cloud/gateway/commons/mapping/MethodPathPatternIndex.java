@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.HEAD;
+import static org.springframework.web.bind.annotation.RequestMethod.resolve;
+
+/**
+ * The {@link PathPatternIndex} bucketed by {@link RequestMethod}, each bucket contains the values that declare the
+ * method, plus the ones that accept any method, in the rank order, thus the request never looks at the values that
+ * can't accept its method. As the "methods" condition, the bucket of {@link RequestMethod#HEAD HEAD} contains the values
+ * of {@link RequestMethod#GET GET}.
+ * <p>
+ * The buckets are the views of one {@link PathPatternIndex} of all values, which are filtered by the bitmasks of
+ * the accepted methods in a <code>short[]</code> by the rank, thus the trie is never copied per method.
+ *
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see PathPatternIndex
+ * @see RequestMethod
+ * @since 1.0.0
+ */
+public class MethodPathPatternIndex<V> {
+
+    private static final RequestMethod[] REQUEST_METHODS = RequestMethod.values();
+
+    private final PathPatternIndex<V> index;
+
+    private final PathPatternIndex<V>[] methodIndexes;
+
+    /**
+     * The bitmasks of the accepted {@link RequestMethod methods} by the rank
+     */
+    private final short[] methodMasks;
+
+    /**
+     * @param values   the values in the rank order
+     * @param patterns the function to get the path patterns of value
+     * @param methods  the function to get the declared {@link RequestMethod methods} of value, empty means any
+     */
+    public MethodPathPatternIndex(List<V> values, Function<V, String[]> patterns, Function<V, Set<RequestMethod>> methods) {
+        int size = values.size();
+        PathPatternIndex<V> index = new PathPatternIndex<>();
+        short[] methodMasks = new short[size];
+        for (int rank = 0; rank < size; rank++) {
+            V value = values.get(rank);
+            index.add(patterns.apply(value), value);
+            methodMasks[rank] = mask(methods.apply(value));
+        }
+        index.trimToSize();
+        this.index = index;
+        this.methodMasks = methodMasks;
+
+        PathPatternIndex<V>[] methodIndexes = new PathPatternIndex[REQUEST_METHODS.length];
+        for (RequestMethod requestMethod : REQUEST_METHODS) {
+            methodIndexes[requestMethod.ordinal()] = buildIndex(requestMethod);
+        }
+        this.methodIndexes = methodIndexes;
+    }
+
+    /**
+     * Get the {@link PathPatternIndex} of all values
+     *
+     * @return non-null
+     */
+    @Nonnull
+    public PathPatternIndex<V> getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Get the {@link PathPatternIndex} of the values that may accept the HTTP method
+     *
+     * @param method the HTTP method
+     * @return the {@link PathPatternIndex} of all values if the method is non-standard
+     */
+    @Nonnull
+    public PathPatternIndex<V> getIndex(@Nullable String method) {
+        RequestMethod requestMethod = method == null ? null : resolve(method);
+        return requestMethod == null ? this.index : this.methodIndexes[requestMethod.ordinal()];
+    }
+
+    /**
+     * Get the value by the rank in all values
+     *
+     * @param rank the rank of value
+     * @return the value
+     * @throws IndexOutOfBoundsException if the rank is out of range
+     */
+    public V get(int rank) {
+        return this.index.get(rank);
+    }
+
+    /**
+     * The count of all values
+     *
+     * @return the count of all values
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    public boolean isEmpty() {
+        return this.index.isEmpty();
+    }
+
+    private PathPatternIndex<V> buildIndex(RequestMethod requestMethod) {
+        PathPatternIndex<V> index = new PathPatternIndex<>(this.index, this.methodMasks, bit(requestMethod));
+        // The bucket accepts all values, shares the index of all values
+        return index.size() == this.index.size() ? this.index : index;
+    }
+
+    /**
+     * Build the bitmask of the {@link RequestMethod methods} that the declared ones accept
+     *
+     * @param declaredMethods the declared {@link RequestMethod methods}, empty means any
+     * @return the bitmask
+     */
+    static short mask(Set<RequestMethod> declaredMethods) {
+        short mask = 0;
+        for (RequestMethod requestMethod : REQUEST_METHODS) {
+            if (accepts(declaredMethods, requestMethod)) {
+                mask |= bit(requestMethod);
+            }
+        }
+        return mask;
+    }
+
+    static short bit(RequestMethod requestMethod) {
+        return (short) (1 << requestMethod.ordinal());
+    }
+
+    static boolean accepts(Set<RequestMethod> declaredMethods, RequestMethod requestMethod) {
+        return declaredMethods.isEmpty()
+                || declaredMethods.contains(requestMethod)
+                || (requestMethod == HEAD && declaredMethods.contains(GET));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import io.microsphere.concurrent.ExecutorUtils;
+import io.microsphere.logging.Logger;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+import static io.microsphere.concurrent.CustomizedThreadFactory.newThreadFactory;
+import static io.microsphere.logging.LoggerFactory.getLogger;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_PARALLELISM;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_TIMEOUT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_PARALLELISM_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_TIMEOUT_PROPERTY_NAME;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.time.Duration.ofMillis;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The loader of the values per service in parallel on a bounded executor, e.g. the mappings of the services fetched
+ * from the discovery on the refresh. At most {@link #getParallelism() parallelism} services are loaded at the same
+ * time, and the service whose loading is timed out or failed falls back to its previous value, thus the caller is
+ * never blocked by a slow service.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CompletableFuture
+ * @since 1.0.0
+ */
+public class ParallelServiceLoader {
+
+    private static final Logger logger = getLogger(ParallelServiceLoader.class);
+
+    private final int parallelism;
+
+    private final Duration timeout;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param parallelism the max count of the services loaded at the same time
+     * @param timeout     the timeout to load a service, which is counted from the start of the loading
+     */
+    public ParallelServiceLoader(int parallelism, Duration timeout) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 60, SECONDS, new LinkedBlockingQueue<>(),
+                newThreadFactory("web-endpoint-mapping-refresh-", true));
+        // No idle thread is kept between the refreshes
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Load the values of the services in parallel
+     *
+     * @param serviceNames the names of services
+     * @param loader       the blocking function to load the value of the service
+     * @param fallback     the function to get the fallback value of the service, which may return <code>null</code>
+     * @param <V>          the type of value
+     * @return the {@link CompletableFuture} of the values keyed by the service name in the order of the names, the
+     * service without any value is absent
+     */
+    @Nonnull
+    public <V> CompletableFuture<Map<String, V>> load(Collection<String> serviceNames, Function<String, V> loader,
+                                                      Function<String, V> fallback) {
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(serviceNames));
+        List<CompletableFuture<V>> futures = new ArrayList<>(names.size());
+        for (String serviceName : names) {
+            futures.add(load(serviceName, loader, fallback));
+        }
+        return allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, V> values = new LinkedHashMap<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                V value = futures.get(i).join();
+                if (value != null) {
+                    values.put(names.get(i), value);
+                }
+            }
+            return values;
+        });
+    }
+
+    private <V> CompletableFuture<V> load(String serviceName, Function<String, V> loader, Function<String, V> fallback) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        try {
+            this.executor.execute(() -> {
+                future.orTimeout(this.timeout.toMillis(), MILLISECONDS);
+                try {
+                    future.complete(loader.apply(serviceName));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The executor was shutdown
+            future.completeExceptionally(e);
+        }
+        return future.exceptionally(e -> {
+            V value = fallback.apply(serviceName);
+            logger.warn("The service['{}'] was failed to load in {} ms, the fallback : {}", serviceName,
+                    this.timeout.toMillis(), value, e);
+            return value;
+        });
+    }
+
+    /**
+     * Get the {@link ExecutorService} loading the services
+     *
+     * @return non-null
+     */
+    @Nonnull
+    public ExecutorService getExecutor() {
+        return this.executor;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Whether the settings are same as the other one's
+     *
+     * @param other the other {@link ParallelServiceLoader}
+     * @return <code>true</code> if same
+     */
+    public boolean hasSameSettings(ParallelServiceLoader other) {
+        return this.parallelism == other.parallelism && this.timeout.equals(other.timeout);
+    }
+
+    /**
+     * Whether the settings are same as the properties of the {@link Environment}, which are compared without creating
+     * the executor
+     *
+     * @param environment {@link Environment}
+     * @return <code>true</code> if same
+     * @see #of(Environment)
+     */
+    public boolean hasSameSettings(@Nullable Environment environment) {
+        return this.parallelism == Math.max(getParallelism(environment), 1)
+                && this.timeout.equals(getTimeout(environment));
+    }
+
+    /**
+     * Shutdown the executor, the services being loaded are not interrupted
+     */
+    public void shutdown() {
+        ExecutorUtils.shutdown(this.executor);
+    }
+
+    /**
+     * Create the {@link ParallelServiceLoader} from the {@link Environment} by the properties
+     * {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#REFRESH_PARALLELISM_PROPERTY_NAME}
+     * and {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#REFRESH_TIMEOUT_PROPERTY_NAME}
+     *
+     * @param environment {@link Environment}
+     * @return non-null
+     */
+    @Nonnull
+    public static ParallelServiceLoader of(@Nullable Environment environment) {
+        return new ParallelServiceLoader(getParallelism(environment), getTimeout(environment));
+    }
+
+    private static int getParallelism(@Nullable Environment environment) {
+        String parallelism = environment == null ? DEFAULT_REFRESH_PARALLELISM :
+                environment.getProperty(REFRESH_PARALLELISM_PROPERTY_NAME, DEFAULT_REFRESH_PARALLELISM);
+        return parseInt(parallelism);
+    }
+
+    private static Duration getTimeout(@Nullable Environment environment) {
+        String timeout = environment == null ? DEFAULT_REFRESH_TIMEOUT :
+                environment.getProperty(REFRESH_TIMEOUT_PROPERTY_NAME, DEFAULT_REFRESH_TIMEOUT);
+        return ofMillis(parseLong(timeout));
+    }
+}
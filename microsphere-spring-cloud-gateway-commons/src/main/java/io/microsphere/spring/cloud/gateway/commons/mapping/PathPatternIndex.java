@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.PathContainer.Element;
+import org.springframework.http.server.PathContainer.PathSegment;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.constants.PathConstants.SLASH_CHAR;
+import static java.lang.Integer.MAX_VALUE;
+import static java.util.Arrays.copyOf;
+import static org.springframework.http.server.PathContainer.parsePath;
+
+/**
+ * The index of the {@link PathPattern path patterns} organized as a trie whose nodes are keyed on the literal path
+ * segments, plus one wildcard node per level for the single-segment captures(e.g. "*", "{id}", "*.json") and a
+ * catch-all bucket for the multiple-segments captures(e.g. "**", "{*path}").
+ * <p>
+ * The values are ranked by the order of {@link #add(String[], Object) addition}, thus the caller should add them from
+ * the most specific to the least one. The {@link #getCandidates(PathContainer) candidates} of a request path is a
+ * superset of the values whose patterns match the path, thus the caller should evaluate the full conditions on them,
+ * or {@link #getFirstMatch(PathContainer, Object, Matcher) find the first match} in the rank order.
+ * <p>
+ * The {@link #PathPatternIndex(PathPatternIndex, short[], int) view} shares the trie and the values of its source,
+ * but only sees the values whose flags contain its flag(e.g. the bit of HTTP method), thus the ranks of the view are
+ * the ones of the source.
+ *
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see PathPattern
+ * @see PathContainer
+ * @since 1.0.0
+ */
+public class PathPatternIndex<V> {
+
+    static final String CATCH_ALL_SEGMENT = "**";
+
+    static final String CAPTURE_ALL_SEGMENT_PREFIX = "{*";
+
+    static final int NOT_FOUND = MAX_VALUE;
+
+    private final Node root;
+
+    private final List<V> values;
+
+    /**
+     * The flags of the values by the rank, <code>null</code> if not a view
+     */
+    @Nullable
+    private final short[] flags;
+
+    private final int flag;
+
+    private final int size;
+
+    public PathPatternIndex() {
+        this.root = new Node();
+        this.values = new ArrayList<>();
+        this.flags = null;
+        this.flag = 0;
+        this.size = -1;
+    }
+
+    /**
+     * Create the read-only view of the source index
+     *
+     * @param source the source index
+     * @param flags  the flags of the values by the rank
+     * @param flag   the flag that the values of the view must contain
+     */
+    PathPatternIndex(PathPatternIndex<V> source, short[] flags, int flag) {
+        this.root = source.root;
+        this.values = source.values;
+        this.flags = flags;
+        this.flag = flag;
+        int size = 0;
+        for (int rank = 0; rank < this.values.size(); rank++) {
+            if ((flags[rank] & flag) != 0) {
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    /**
+     * Add the value with the pattern
+     *
+     * @param pattern the path pattern of the value
+     * @param value   the value
+     */
+    public void add(String pattern, V value) {
+        add(new String[]{pattern}, value);
+    }
+
+    /**
+     * Add the value with its patterns, the rank of the value is the count of the values added before
+     *
+     * @param patterns the path patterns of the value
+     * @param value    the value
+     */
+    public void add(String[] patterns, V value) {
+        if (this.flags != null) {
+            throw new UnsupportedOperationException("The view of PathPatternIndex is read-only");
+        }
+        int rank = this.values.size();
+        this.values.add(value);
+        if (patterns == null || patterns.length == 0) {
+            // No pattern, always be the candidate
+            this.root.addCatchAllValue(rank);
+            return;
+        }
+        for (String pattern : patterns) {
+            add(pattern, rank);
+        }
+    }
+
+    private void add(String pattern, int rank) {
+        List<String> segments = splitPattern(pattern);
+        if (segments == null) {
+            // The pattern can't be split by segments, always be the candidate
+            this.root.addCatchAllValue(rank);
+            return;
+        }
+
+        Node node = this.root;
+        for (String segment : segments) {
+            if (isCatchAllSegment(segment)) {
+                node.addCatchAllValue(rank);
+                return;
+            }
+            node = isLiteralSegment(segment) ? node.getOrCreateLiteralChild(segment) : node.getOrCreateWildcardChild();
+        }
+        node.addValue(rank);
+    }
+
+    /**
+     * Get the candidates of the specified path
+     *
+     * @param path the request path
+     * @return non-null
+     */
+    @Nonnull
+    public List<V> getCandidates(String path) {
+        return getCandidates(parsePath(path));
+    }
+
+    /**
+     * Get the candidates of the specified {@link PathContainer path} in the rank order
+     *
+     * @param path the {@link PathContainer path}
+     * @return non-null
+     */
+    @Nonnull
+    public List<V> getCandidates(PathContainer path) {
+        BitSet ranks = new BitSet(this.values.size());
+        collect(this.root, path.elements(), 0, ranks);
+        List<V> candidates = new ArrayList<>(ranks.cardinality());
+        for (int rank = ranks.nextSetBit(0); rank >= 0; rank = ranks.nextSetBit(rank + 1)) {
+            candidates.add(this.values.get(rank));
+        }
+        return candidates;
+    }
+
+    /**
+     * Find the candidate of the specified {@link PathContainer path} with the lowest rank that matches the request
+     *
+     * @param path    the {@link PathContainer path}
+     * @param request the request to be tested
+     * @param matcher the {@link Matcher} to test the candidate, the path and the request
+     * @param <R>     the type of request
+     * @return <code>null</code> if not found
+     */
+    @Nullable
+    public <R> V getFirstMatch(PathContainer path, R request, Matcher<? super V, R> matcher) {
+        int rank = findFirst(this.root, path, 0, NOT_FOUND, request, matcher);
+        return rank == NOT_FOUND ? null : this.values.get(rank);
+    }
+
+    /**
+     * Get the value by the rank
+     *
+     * @param rank the rank of value
+     * @return the value
+     * @throws IndexOutOfBoundsException if the rank is out of range
+     */
+    public V get(int rank) {
+        return this.values.get(rank);
+    }
+
+    /**
+     * The count of the indexed values
+     *
+     * @return the count of the indexed values
+     */
+    public int size() {
+        return this.flags == null ? this.values.size() : this.size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Trim the capacities of the ranks to their sizes after all values are added
+     */
+    public void trimToSize() {
+        if (this.values instanceof ArrayList<V> arrayList) {
+            arrayList.trimToSize();
+        }
+        this.root.trimToSize();
+    }
+
+    private boolean accepts(int rank) {
+        short[] flags = this.flags;
+        return flags == null || (flags[rank] & this.flag) != 0;
+    }
+
+    private void collect(Node node, List<Element> elements, int index, BitSet ranks) {
+        collect(node.catchAllValues, ranks);
+
+        int segmentIndex = nextSegmentIndex(elements, index);
+        if (segmentIndex < 0) {
+            collect(node.values, ranks);
+            return;
+        }
+
+        Node literalChild = node.getLiteralChild(elements.get(segmentIndex));
+        if (literalChild != null) {
+            collect(literalChild, elements, segmentIndex + 1, ranks);
+        }
+
+        if (node.wildcardChild != null) {
+            collect(node.wildcardChild, elements, segmentIndex + 1, ranks);
+        }
+    }
+
+    private void collect(Ranks ranks, BitSet bitSet) {
+        int[] elements = ranks.elements;
+        int size = ranks.size;
+        for (int i = 0; i < size; i++) {
+            int rank = elements[i];
+            if (accepts(rank)) {
+                bitSet.set(rank);
+            }
+        }
+    }
+
+    private <R> int findFirst(Node node, PathContainer path, int index, int bestRank, R request,
+                              Matcher<? super V, R> matcher) {
+        bestRank = findFirst(node.catchAllValues, bestRank, path, request, matcher);
+
+        List<Element> elements = path.elements();
+        int segmentIndex = nextSegmentIndex(elements, index);
+        if (segmentIndex < 0) {
+            return findFirst(node.values, bestRank, path, request, matcher);
+        }
+
+        Node literalChild = node.getLiteralChild(elements.get(segmentIndex));
+        if (literalChild != null) {
+            bestRank = findFirst(literalChild, path, segmentIndex + 1, bestRank, request, matcher);
+        }
+
+        if (node.wildcardChild != null) {
+            bestRank = findFirst(node.wildcardChild, path, segmentIndex + 1, bestRank, request, matcher);
+        }
+        return bestRank;
+    }
+
+    private <R> int findFirst(Ranks ranks, int bestRank, PathContainer path, R request, Matcher<? super V, R> matcher) {
+        int[] elements = ranks.elements;
+        int size = ranks.size;
+        for (int i = 0; i < size; i++) {
+            int rank = elements[i];
+            if (rank >= bestRank) {
+                // The ranks are in the ascending order
+                break;
+            }
+            if (accepts(rank) && matcher.matches(this.values.get(rank), path, request)) {
+                return rank;
+            }
+        }
+        return bestRank;
+    }
+
+    /**
+     * Find the index of next non-empty {@link PathSegment}
+     *
+     * @param elements the elements of {@link PathContainer}
+     * @param index    the start index
+     * @return <code>-1</code> if not found
+     */
+    static int nextSegmentIndex(List<Element> elements, int index) {
+        int size = elements.size();
+        for (int i = index; i < size; i++) {
+            Element element = elements.get(i);
+            if (element instanceof PathSegment segment && !segment.valueToMatch().isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Split the pattern by the non-empty segments
+     *
+     * @param pattern the path pattern
+     * @return <code>null</code> if the pattern contains the separator in the capture, e.g. "{path:.+/.+}"
+     */
+    static List<String> splitPattern(String pattern) {
+        List<String> segments = new ArrayList<>();
+        int length = pattern.length();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == SLASH_CHAR) {
+                if (depth > 0) {
+                    return null;
+                }
+                addSegment(pattern, start, i, segments);
+                start = i + 1;
+            }
+        }
+        addSegment(pattern, start, length, segments);
+        return segments;
+    }
+
+    private static void addSegment(String pattern, int start, int end, List<String> segments) {
+        if (end > start) {
+            segments.add(pattern.substring(start, end));
+        }
+    }
+
+    static boolean isCatchAllSegment(String segment) {
+        return CATCH_ALL_SEGMENT.equals(segment) || segment.startsWith(CAPTURE_ALL_SEGMENT_PREFIX);
+    }
+
+    static boolean isLiteralSegment(String segment) {
+        int length = segment.length();
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The matcher of the candidate with the request path and the request
+     *
+     * @param <V> the type of value
+     * @param <R> the type of request
+     */
+    @FunctionalInterface
+    public interface Matcher<V, R> {
+
+        /**
+         * Test whether the value matches the request
+         *
+         * @param value   the candidate value
+         * @param path    the {@link PathContainer path} to be matched, which may be a sub-path of the request
+         * @param request the request
+         * @return <code>true</code> if matches
+         */
+        boolean matches(V value, PathContainer path, R request);
+    }
+
+    static class Node {
+
+        private Map<String, Node> literalChildren;
+
+        private Node wildcardChild;
+
+        private final Ranks values = new Ranks();
+
+        private final Ranks catchAllValues = new Ranks();
+
+        Node getLiteralChild(Element element) {
+            if (this.literalChildren == null) {
+                return null;
+            }
+            String segment = ((PathSegment) element).valueToMatch();
+            return this.literalChildren.get(segment);
+        }
+
+        Node getOrCreateLiteralChild(String segment) {
+            if (this.literalChildren == null) {
+                this.literalChildren = new HashMap<>();
+            }
+            return this.literalChildren.computeIfAbsent(segment, s -> new Node());
+        }
+
+        Node getOrCreateWildcardChild() {
+            if (this.wildcardChild == null) {
+                this.wildcardChild = new Node();
+            }
+            return this.wildcardChild;
+        }
+
+        void addValue(int rank) {
+            this.values.add(rank);
+        }
+
+        void addCatchAllValue(int rank) {
+            this.catchAllValues.add(rank);
+        }
+
+        void trimToSize() {
+            this.values.trimToSize();
+            this.catchAllValues.trimToSize();
+            if (this.literalChildren != null) {
+                for (Node literalChild : this.literalChildren.values()) {
+                    literalChild.trimToSize();
+                }
+            }
+            if (this.wildcardChild != null) {
+                this.wildcardChild.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * The ascending ranks of values
+     */
+    static class Ranks {
+
+        private static final int[] EMPTY_RANKS = new int[0];
+
+        private int[] elements = EMPTY_RANKS;
+
+        private int size;
+
+        void add(int rank) {
+            if (this.size > 0 && this.elements[this.size - 1] == rank) {
+                // The same value with the patterns in the same node
+                return;
+            }
+            if (this.size == this.elements.length) {
+                this.elements = copyOf(this.elements, this.size == 0 ? 1 : this.size << 1);
+            }
+            this.elements[this.size++] = rank;
+        }
+
+        void trimToSize() {
+            if (this.size < this.elements.length) {
+                this.elements = copyOf(this.elements, this.size);
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import io.microsphere.concurrent.ExecutorUtils;
+import io.microsphere.logging.Logger;
+import org.springframework.core.env.Environment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.microsphere.concurrent.CustomizedThreadFactory.newThreadFactory;
+import static io.microsphere.logging.LoggerFactory.getLogger;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_MAX_DELAY;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_QUIET_PERIOD;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_MAX_DELAY_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_QUIET_PERIOD_PROPERTY_NAME;
+import static java.lang.Long.parseLong;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The scheduler of the refreshes triggered by the events, the pending refreshes of the same key (e.g. the service
+ * name or the route id) are coalesced into the last one, which runs when no event of the key arrives in the
+ * {@link #getQuietPeriod() quiet period}, but no later than the {@link #getMaxDelay() max delay} since the first
+ * pending event. The refreshes run immediately on the caller thread if the quiet period is not positive.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ScheduledThreadPoolExecutor
+ * @since 1.0.0
+ */
+public class RefreshScheduler {
+
+    private static final Logger logger = getLogger(RefreshScheduler.class);
+
+    private final long quietPeriod;
+
+    private final long maxDelay;
+
+    private final Statistics statistics;
+
+    /**
+     * The pending refreshes keyed by the key
+     */
+    private final Map<String, PendingRefresh> pendingRefreshes = new HashMap<>();
+
+    @Nullable
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @param quietPeriod the quiet period in milliseconds
+     * @param maxDelay    the max delay in milliseconds since the first pending event
+     * @param statistics  the {@link Statistics}
+     */
+    public RefreshScheduler(long quietPeriod, long maxDelay, Statistics statistics) {
+        this.quietPeriod = Math.max(quietPeriod, 0);
+        this.maxDelay = Math.max(maxDelay, this.quietPeriod);
+        this.statistics = statistics;
+        if (this.quietPeriod > 0) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                    newThreadFactory("web-endpoint-mapping-refresh-scheduler-", true));
+            executor.setRemoveOnCancelPolicy(true);
+            this.executor = executor;
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Schedule the refresh of the key, the pending one of the same key is replaced
+     *
+     * @param key     the key of the refresh, e.g. the service name or the route id
+     * @param refresh the refresh
+     */
+    public void schedule(String key, Runnable refresh) {
+        this.statistics.eventCount.increment();
+        ScheduledThreadPoolExecutor executor = this.executor;
+        if (executor == null) {
+            run(refresh);
+            return;
+        }
+        synchronized (this.pendingRefreshes) {
+            long now = nanoTime();
+            PendingRefresh pendingRefresh = this.pendingRefreshes.get(key);
+            long firstTime = now;
+            if (pendingRefresh != null) {
+                pendingRefresh.future.cancel(false);
+                firstTime = pendingRefresh.firstTime;
+                this.statistics.coalescedCount.increment();
+            }
+            long deadline = firstTime + MILLISECONDS.toNanos(this.maxDelay);
+            long delay = Math.max(Math.min(MILLISECONDS.toNanos(this.quietPeriod), deadline - now), 0);
+            PendingRefresh newPendingRefresh = new PendingRefresh(firstTime);
+            this.pendingRefreshes.put(key, newPendingRefresh);
+            try {
+                newPendingRefresh.future = executor.schedule(() -> fire(key, newPendingRefresh, refresh), delay, NANOSECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                // The executor was shutdown
+                this.pendingRefreshes.remove(key);
+            }
+        }
+        run(refresh);
+    }
+
+    private void fire(String key, PendingRefresh pendingRefresh, Runnable refresh) {
+        synchronized (this.pendingRefreshes) {
+            if (this.pendingRefreshes.get(key) != pendingRefresh) {
+                // Replaced by the newer one
+                return;
+            }
+            this.pendingRefreshes.remove(key);
+        }
+        run(refresh);
+    }
+
+    private void run(Runnable refresh) {
+        this.statistics.refreshCount.increment();
+        try {
+            refresh.run();
+        } catch (Throwable e) {
+            logger.error("The refresh was failed", e);
+        }
+    }
+
+    /**
+     * Get the count of the pending refreshes
+     *
+     * @return the count
+     */
+    public int getPendingCount() {
+        synchronized (this.pendingRefreshes) {
+            return this.pendingRefreshes.size();
+        }
+    }
+
+    public long getQuietPeriod() {
+        return this.quietPeriod;
+    }
+
+    public long getMaxDelay() {
+        return this.maxDelay;
+    }
+
+    public boolean isEnabled() {
+        return this.executor != null;
+    }
+
+    /**
+     * Whether the settings are same as the other one's
+     *
+     * @param other the other {@link RefreshScheduler}
+     * @return <code>true</code> if same
+     */
+    public boolean hasSameSettings(RefreshScheduler other) {
+        return this.quietPeriod == other.quietPeriod && this.maxDelay == other.maxDelay;
+    }
+
+    /**
+     * Whether the settings are same as the properties of the {@link Environment}, which are compared without creating
+     * the executor
+     *
+     * @param environment {@link Environment}
+     * @return <code>true</code> if same
+     * @see #of(Environment, Statistics)
+     */
+    public boolean hasSameSettings(@Nullable Environment environment) {
+        long quietPeriod = Math.max(getQuietPeriod(environment), 0);
+        long maxDelay = Math.max(getMaxDelay(environment), quietPeriod);
+        return this.quietPeriod == quietPeriod && this.maxDelay == maxDelay;
+    }
+
+    /**
+     * Shutdown the scheduler, the pending refreshes still run on their time, and the refreshes scheduled later run
+     * immediately
+     */
+    public void shutdown() {
+        if (this.executor != null) {
+            ExecutorUtils.shutdown(this.executor);
+        }
+    }
+
+    /**
+     * Create the {@link RefreshScheduler} from the {@link Environment} by the properties
+     * {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#REFRESH_QUIET_PERIOD_PROPERTY_NAME}
+     * and {@link io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants#REFRESH_MAX_DELAY_PROPERTY_NAME}
+     *
+     * @param environment {@link Environment}
+     * @param statistics  the {@link Statistics} shared across the refreshes of the settings
+     * @return non-null
+     */
+    @Nonnull
+    public static RefreshScheduler of(@Nullable Environment environment, Statistics statistics) {
+        return new RefreshScheduler(getQuietPeriod(environment), getMaxDelay(environment), statistics);
+    }
+
+    private static long getQuietPeriod(@Nullable Environment environment) {
+        String quietPeriod = environment == null ? DEFAULT_REFRESH_QUIET_PERIOD :
+                environment.getProperty(REFRESH_QUIET_PERIOD_PROPERTY_NAME, DEFAULT_REFRESH_QUIET_PERIOD);
+        return parseLong(quietPeriod);
+    }
+
+    private static long getMaxDelay(@Nullable Environment environment) {
+        String maxDelay = environment == null ? DEFAULT_REFRESH_MAX_DELAY :
+                environment.getProperty(REFRESH_MAX_DELAY_PROPERTY_NAME, DEFAULT_REFRESH_MAX_DELAY);
+        return parseLong(maxDelay);
+    }
+
+    private static class PendingRefresh {
+
+        private final long firstTime;
+
+        private ScheduledFuture<?> future;
+
+        private PendingRefresh(long firstTime) {
+            this.firstTime = firstTime;
+        }
+    }
+
+    /**
+     * The statistics of the refresh-triggering events
+     */
+    public static class Statistics {
+
+        private final LongAdder eventCount = new LongAdder();
+
+        private final LongAdder coalescedCount = new LongAdder();
+
+        private final LongAdder refreshCount = new LongAdder();
+
+        /**
+         * @return the count of the refresh-triggering events
+         */
+        public long getEventCount() {
+            return this.eventCount.sum();
+        }
+
+        /**
+         * @return the count of the events coalesced into the later ones
+         */
+        public long getCoalescedCount() {
+            return this.coalescedCount.sum();
+        }
+
+        /**
+         * @return the count of the executed refreshes
+         */
+        public long getRefreshCount() {
+            return this.refreshCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "eventCount=" + getEventCount() +
+                    ", coalescedCount=" + getCoalescedCount() +
+                    ", refreshCount=" + getRefreshCount() +
+                    '}';
+        }
+    }
+}
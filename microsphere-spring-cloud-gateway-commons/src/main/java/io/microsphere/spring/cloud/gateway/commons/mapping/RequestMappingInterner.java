@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.Mapping;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static java.util.Arrays.deepEquals;
+import static java.util.Arrays.deepHashCode;
+import static java.util.Arrays.sort;
+import static java.util.stream.Stream.of;
+
+/**
+ * The store of the canonical request mapping conditions(e.g. "RequestMappingInfo"), which are interned by
+ * the patterns, the methods, the params, the headers, the consumes and the produces, thus the identical mappings
+ * across the services and the routes(e.g. the endpoints of actuator, error and swagger) share one parsed immutable
+ * instance.
+ * <p>
+ * The interned values are softly referenced, thus the ones no longer used by any table are reclaimed under the memory
+ * pressure.
+ *
+ * @param <V> the type of the interned value, which must be immutable
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMapping
+ * @see Mapping
+ * @see ConcurrentReferenceHashMap
+ * @since 1.0.0
+ */
+public class RequestMappingInterner<V> {
+
+    private static final String[] EMPTY_STRINGS = new String[0];
+
+    private final ConcurrentMap<Key, V> values = new ConcurrentReferenceHashMap<>();
+
+    /**
+     * Get the canonical value of the {@link WebEndpointMapping}
+     *
+     * @param webEndpointMapping {@link WebEndpointMapping}
+     * @param factory            the factory to create the value if absent
+     * @return the canonical value
+     */
+    public V intern(WebEndpointMapping<?> webEndpointMapping, Function<? super WebEndpointMapping<?>, ? extends V> factory) {
+        Key key = new Key(webEndpointMapping.getPatterns(), webEndpointMapping.getMethods(), webEndpointMapping.getParams(),
+                webEndpointMapping.getHeaders(), webEndpointMapping.getConsumes(), webEndpointMapping.getProduces());
+        return this.values.computeIfAbsent(key, k -> factory.apply(webEndpointMapping));
+    }
+
+    /**
+     * Get the canonical value of the {@link Mapping}
+     *
+     * @param mapping {@link Mapping}
+     * @param factory the factory to create the value if absent
+     * @return the canonical value
+     */
+    public V intern(Mapping mapping, Function<? super Mapping, ? extends V> factory) {
+        RequestMethod[] methods = mapping.getMethods();
+        String[] methodNames = methods == null ? null : of(methods).map(RequestMethod::name).toArray(String[]::new);
+        Key key = new Key(mapping.getPatterns(), methodNames, mapping.getParams(), mapping.getHeaders(),
+                mapping.getConsumes(), mapping.getProduces());
+        return this.values.computeIfAbsent(key, k -> factory.apply(mapping));
+    }
+
+    /**
+     * The count of the interned values
+     *
+     * @return the count of the interned values
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    public void clear() {
+        this.values.clear();
+    }
+
+    /**
+     * The key of the conditions that ignores the orders of the expressions
+     */
+    static final class Key {
+
+        private final String[][] conditions;
+
+        private final int hashCode;
+
+        Key(String[]... conditions) {
+            String[][] sortedConditions = new String[conditions.length][];
+            for (int i = 0; i < conditions.length; i++) {
+                String[] condition = conditions[i] == null ? EMPTY_STRINGS : conditions[i].clone();
+                sort(condition);
+                sortedConditions[i] = condition;
+            }
+            this.conditions = sortedConditions;
+            this.hashCode = deepHashCode(sortedConditions);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o instanceof Key key && this.hashCode == key.hashCode && deepEquals(this.conditions, key.conditions);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.deepToString(this.conditions);
+        }
+    }
+}
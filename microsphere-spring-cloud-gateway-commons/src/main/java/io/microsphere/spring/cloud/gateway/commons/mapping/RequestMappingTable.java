@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * The protocol-neutral table of the {@link AbstractRequestMappingContext request mapping contexts}, which are
+ * {@link #rank(List) ranked} by the specificity and indexed by the {@link MethodPathPatternIndex}, in front of
+ * the {@link MatchingResultCache} that is discarded with the table itself on refresh.
+ * <p>
+ * The best match of a request is the candidate with the lowest rank that matches it, except the rare ties whose order
+ * depends on the request(e.g. "produces") and the requests that are required to sort all matches(e.g. HTTP HEAD for
+ * Spring Web MVC).
+ *
+ * @param <C> the type of {@link AbstractRequestMappingContext}
+ * @param <R> the type of {@link MatchingRequest}
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see AbstractRequestMappingContext
+ * @see MatchingRequest
+ * @see MethodPathPatternIndex
+ * @see MatchingResultCache
+ * @since 1.0.0
+ */
+public class RequestMappingTable<C extends AbstractRequestMappingContext<C, R>, R extends MatchingRequest> {
+
+    private final MethodPathPatternIndex<C> index;
+
+    private final MatchingKeyTemplate keyTemplate;
+
+    private final MatchingResultCache<String, C> cache;
+
+    private final Predicate<? super R> sortingRequired;
+
+    /**
+     * @param requestMappingContexts the {@link AbstractRequestMappingContext request mapping contexts} to be ranked
+     * @param cache                  the {@link MatchingResultCache}
+     */
+    public RequestMappingTable(List<C> requestMappingContexts, MatchingResultCache<String, C> cache) {
+        this(requestMappingContexts, cache, request -> false);
+    }
+
+    /**
+     * @param requestMappingContexts the {@link AbstractRequestMappingContext request mapping contexts} to be ranked
+     * @param cache                  the {@link MatchingResultCache}
+     * @param sortingRequired        the {@link Predicate} of the requests whose best match is found by sorting all matches
+     */
+    public RequestMappingTable(List<C> requestMappingContexts, MatchingResultCache<String, C> cache,
+                               Predicate<? super R> sortingRequired) {
+        List<C> rankedRequestMappingContexts = new ArrayList<>(requestMappingContexts);
+        rank(rankedRequestMappingContexts);
+        this.index = new MethodPathPatternIndex<>(rankedRequestMappingContexts, c -> c.patterns, AbstractRequestMappingContext::getMethods);
+        this.keyTemplate = buildMatchingKeyTemplate(rankedRequestMappingContexts);
+        this.cache = cache;
+        this.sortingRequired = sortingRequired;
+    }
+
+    /**
+     * Get the best matching {@link AbstractRequestMappingContext}, the result is cached by the key of the request if
+     * the {@link MatchingResultCache} is enabled
+     *
+     * @param request the {@link MatchingRequest}
+     * @return <code>null</code> if not found
+     */
+    @Nullable
+    public C getMatchingRequestMappingContext(R request) {
+        MatchingResultCache<String, C> cache = this.cache;
+        if (!cache.isEnabled() || request.isPreFlight()) {
+            return match(request);
+        }
+        String key = this.keyTemplate.build(request);
+        return cache.get(key, k -> match(request));
+    }
+
+    /**
+     * Get the best matching {@link AbstractRequestMappingContext} without the {@link MatchingResultCache}, only
+     * the candidates that accept the request method and whose literal path segments match the request path will be
+     * evaluated.
+     *
+     * @param request the {@link MatchingRequest}
+     * @return <code>null</code> if not found
+     */
+    @Nullable
+    public C match(R request) {
+        PathPatternIndex<C> index = getIndex(request);
+        PathContainer path = request.getPath();
+        if (this.sortingRequired.test(request)) {
+            return getMatchingRequestMappingContextBySorting(index.getCandidates(path), request);
+        }
+
+        C bestMatch = index.getFirstMatch(path, request, (context, p, r) -> context.matches(r));
+        if (bestMatch == null) {
+            return null;
+        }
+        // The rare ties whose order depends on the request, e.g. "produces"
+        for (int rank = bestMatch.rank + 1; rank < bestMatch.tieEnd; rank++) {
+            C tie = this.index.get(rank);
+            if (tie.matches(request) && tie.compareTo(bestMatch, request) < 0) {
+                bestMatch = tie;
+            }
+        }
+        return bestMatch;
+    }
+
+    /**
+     * Whether any {@link AbstractRequestMappingContext} matches the request, e.g. the exclusions of route
+     *
+     * @param request the {@link MatchingRequest}
+     * @return <code>true</code> if matches
+     */
+    public boolean anyMatch(R request) {
+        if (isEmpty()) {
+            return false;
+        }
+        return getIndex(request).getFirstMatch(request.getPath(), request, (context, p, r) -> context.matches(r)) != null;
+    }
+
+    private PathPatternIndex<C> getIndex(R request) {
+        // The pre-flight request is matched by the method of "Access-Control-Request-Method" header
+        return request.isPreFlight() ? this.index.getIndex() : this.index.getIndex(request.getMethod());
+    }
+
+    /**
+     * Get the {@link AbstractRequestMappingContext} by the rank
+     *
+     * @param rank the rank of specificity
+     * @return the {@link AbstractRequestMappingContext}
+     * @throws IndexOutOfBoundsException if the rank is out of range
+     */
+    public C get(int rank) {
+        return this.index.get(rank);
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    public boolean isEmpty() {
+        return this.index.isEmpty();
+    }
+
+    @Nonnull
+    public MatchingKeyTemplate getKeyTemplate() {
+        return this.keyTemplate;
+    }
+
+    @Nonnull
+    public MatchingResultCache<String, C> getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Get the best matching {@link AbstractRequestMappingContext} by sorting all matches of the request
+     *
+     * @param requestMappingContexts the candidates
+     * @param request                the {@link MatchingRequest}
+     * @param <C>                    the type of {@link AbstractRequestMappingContext}
+     * @param <R>                    the type of {@link MatchingRequest}
+     * @return <code>null</code> if not found
+     */
+    @Nullable
+    public static <C extends AbstractRequestMappingContext<C, R>, R extends MatchingRequest> C getMatchingRequestMappingContextBySorting(
+            Collection<C> requestMappingContexts, R request) {
+        List<C> matches = new ArrayList<>(requestMappingContexts.size());
+        for (C requestMappingContext : requestMappingContexts) {
+            if (requestMappingContext.matches(request)) {
+                matches.add(requestMappingContext);
+            }
+        }
+        matches.sort((v1, v2) -> v1.compareTo(v2, request));
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Sort the {@link AbstractRequestMappingContext request mapping contexts} by the specificity, and mark the ranges
+     * of the ties whose order depends on the request
+     *
+     * @param requestMappingContexts the {@link AbstractRequestMappingContext request mapping contexts}
+     * @param <C>                    the type of {@link AbstractRequestMappingContext}
+     */
+    static <C extends AbstractRequestMappingContext<C, ?>> void rank(List<C> requestMappingContexts) {
+        requestMappingContexts.sort(AbstractRequestMappingContext::compareTo);
+        int size = requestMappingContexts.size();
+        int start = 0;
+        for (int end = 1; end <= size; end++) {
+            if (end == size || requestMappingContexts.get(start).compareToRequestIndependently(requestMappingContexts.get(end)) != 0) {
+                boolean requestDependent = false;
+                for (int i = start; i < end; i++) {
+                    requestDependent |= requestMappingContexts.get(i).hasProduces();
+                }
+                for (int i = start; i < end; i++) {
+                    C requestMappingContext = requestMappingContexts.get(i);
+                    requestMappingContext.rank = i;
+                    requestMappingContext.tieEnd = requestDependent ? end : i + 1;
+                }
+                start = end;
+            }
+        }
+    }
+
+    static MatchingKeyTemplate buildMatchingKeyTemplate(List<? extends AbstractRequestMappingContext<?, ?>> requestMappingContexts) {
+        Set<String> paramNames = new HashSet<>();
+        Set<String> headerNames = new HashSet<>();
+        boolean bodyAware = false;
+        for (AbstractRequestMappingContext<?, ?> requestMappingContext : requestMappingContexts) {
+            paramNames.addAll(requestMappingContext.getParamNames());
+            headerNames.addAll(requestMappingContext.getHeaderNames());
+            if (requestMappingContext.hasConsumes()) {
+                headerNames.add(CONTENT_TYPE);
+                bodyAware = true;
+            }
+            if (requestMappingContext.hasProduces()) {
+                headerNames.add(ACCEPT);
+            }
+        }
+        return new MatchingKeyTemplate(paramNames, headerNames, bodyAware);
+    }
+}
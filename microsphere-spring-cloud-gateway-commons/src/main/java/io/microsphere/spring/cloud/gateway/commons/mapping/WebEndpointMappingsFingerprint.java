@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.spring.cloud.client.service.util.ServiceInstanceUtils;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_MAPPINGS_METADATA_NAME;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * The fingerprint of the {@link WebEndpointMapping WebEndpointMappings} of a service, which is the set of the distinct
+ * raw {@link io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants#WEB_MAPPINGS_METADATA_NAME
+ * metadata payloads} of its instances. The service whose fingerprint is equal to the previous one has the same
+ * mappings, thus the compiled {@link RequestMappingTable} could be reused as is, e.g. the plain scale-ups.
+ * <p>
+ * The parsed {@link WebEndpointMapping WebEndpointMappings} are cached by the payload, thus each payload is only parsed
+ * once no matter how many instances publish it.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMapping
+ * @see RequestMappingTable
+ * @since 1.0.0
+ */
+public class WebEndpointMappingsFingerprint {
+
+    private final Set<String> payloads;
+
+    private final int hash;
+
+    /**
+     * The parsed {@link WebEndpointMapping WebEndpointMappings} keyed by the payload
+     */
+    private final Map<String, Collection<WebEndpointMapping>> webEndpointMappings;
+
+    private WebEndpointMappingsFingerprint(Set<String> payloads) {
+        this.payloads = unmodifiableSet(payloads);
+        this.hash = payloads.hashCode();
+        this.webEndpointMappings = new ConcurrentHashMap<>(payloads.size());
+    }
+
+    /**
+     * Get the {@link WebEndpointMapping WebEndpointMappings} of the instance, which are parsed only once per payload
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return non-null
+     */
+    @Nonnull
+    public Collection<WebEndpointMapping> getWebEndpointMappings(ServiceInstance serviceInstance) {
+        return this.webEndpointMappings.computeIfAbsent(getPayload(serviceInstance), payload ->
+                ServiceInstanceUtils.getWebEndpointMappings(serviceInstance));
+    }
+
+    /**
+     * Whether the fingerprint has no instance
+     *
+     * @return <code>true</code> if empty
+     */
+    public boolean isEmpty() {
+        return this.payloads.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WebEndpointMappingsFingerprint that)) {
+            return false;
+        }
+        return this.hash == that.hash && this.payloads.equals(that.payloads);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "WebEndpointMappingsFingerprint{" +
+                "hash=" + this.hash +
+                ", payloads=" + this.payloads.size() +
+                '}';
+    }
+
+    /**
+     * Compute the {@link WebEndpointMappingsFingerprint} of the instances
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances} of a service
+     * @return non-null
+     */
+    @Nonnull
+    public static WebEndpointMappingsFingerprint of(Collection<ServiceInstance> serviceInstances) {
+        Set<String> payloads = new HashSet<>();
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            payloads.add(getPayload(serviceInstance));
+        }
+        return new WebEndpointMappingsFingerprint(payloads);
+    }
+
+    static String getPayload(ServiceInstance serviceInstance) {
+        Map<String, String> metadata = serviceInstance.getMetadata();
+        String payload = metadata == null ? null : metadata.get(WEB_MAPPINGS_METADATA_NAME);
+        return payload == null ? "" : payload;
+    }
+}
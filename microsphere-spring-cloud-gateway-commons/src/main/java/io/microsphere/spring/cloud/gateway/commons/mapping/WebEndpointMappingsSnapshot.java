@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.annotation.Nonnull;
+import io.microsphere.annotation.Nullable;
+import io.microsphere.logging.Logger;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.logging.LoggerFactory.getLogger;
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_MAPPINGS_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_SNAPSHOT_FILE;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SNAPSHOT_FILE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsFingerprint.getPayload;
+import static io.microsphere.util.StringUtils.isBlank;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Paths.get;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.emptyMap;
+
+/**
+ * The on-disk snapshot of the {@link ServiceInstance service instances} with their
+ * {@link WebEndpointMappingsFingerprint mapping payloads}, which is written after each successful refresh and
+ * loaded at startup, thus the {@link RequestMappingTable RequestMappingTables} are compiled to serve the requests
+ * immediately while the discovery is reconciled in the background.
+ * <p>
+ * The snapshot is a compact binary file that the distinct payloads of a service are written only once and referred by
+ * the instances, and it's memory-mapped on loading. The file is replaced atomically, and the corrupted or incompatible
+ * one is ignored.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingsFingerprint
+ * @see RequestMappingTable
+ * @since 1.0.0
+ */
+public class WebEndpointMappingsSnapshot {
+
+    private static final Logger logger = getLogger(WebEndpointMappingsSnapshot.class);
+
+    /**
+     * The magic number of the snapshot file : "WEMS"
+     */
+    static final int MAGIC = 0x57454D53;
+
+    static final short VERSION = 1;
+
+    /**
+     * The disabled {@link WebEndpointMappingsSnapshot}
+     */
+    public static final WebEndpointMappingsSnapshot NONE = new WebEndpointMappingsSnapshot(null);
+
+    @Nullable
+    private final Path file;
+
+    /**
+     * @param file the snapshot file, <code>null</code> if disabled
+     */
+    public WebEndpointMappingsSnapshot(@Nullable Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load the {@link ServiceInstance service instances} keyed by the service name from the snapshot file
+     *
+     * @return empty if the snapshot is disabled, absent or corrupted
+     */
+    @Nonnull
+    public Map<String, List<ServiceInstance>> load() {
+        Path file = this.file;
+        if (file == null) {
+            return emptyMap();
+        }
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            Map<String, List<ServiceInstance>> servicesInstances = read(channel.map(READ_ONLY, 0, channel.size()));
+            logger.trace("The snapshot of {} services was loaded from the file['{}']", servicesInstances.size(), file);
+            return servicesInstances;
+        } catch (NoSuchFileException e) {
+            logger.trace("The snapshot file['{}'] does not exist", file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("The snapshot file['{}'] can't be loaded", file, e);
+        }
+        return emptyMap();
+    }
+
+    /**
+     * Save the {@link ServiceInstance service instances} keyed by the service name into the snapshot file, which is
+     * replaced atomically
+     *
+     * @param servicesInstances the {@link ServiceInstance service instances} keyed by the service name
+     */
+    public void save(Map<String, List<ServiceInstance>> servicesInstances) {
+        Path file = this.file;
+        if (file == null) {
+            return;
+        }
+        Path tempFile = null;
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                write(servicesInstances, outputStream);
+            }
+            Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            logger.trace("The snapshot of {} services was saved into the file['{}']", servicesInstances.size(), file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("The snapshot file['{}'] can't be saved", file, e);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    logger.trace("The temporary snapshot file['{}'] can't be deleted", tempFile, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the snapshot is enabled
+     *
+     * @return <code>true</code> if the snapshot file is configured
+     */
+    public boolean isEnabled() {
+        return this.file != null;
+    }
+
+    /**
+     * Get the snapshot file
+     *
+     * @return <code>null</code> if disabled
+     */
+    @Nullable
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Create the {@link WebEndpointMappingsSnapshot} from the {@link Environment}
+     *
+     * @param environment {@link Environment}
+     * @return {@link #NONE} if the snapshot file is not configured
+     */
+    @Nonnull
+    public static WebEndpointMappingsSnapshot of(@Nullable Environment environment) {
+        String file = environment == null ? DEFAULT_SNAPSHOT_FILE :
+                environment.getProperty(SNAPSHOT_FILE_PROPERTY_NAME, DEFAULT_SNAPSHOT_FILE);
+        return isBlank(file) ? NONE : new WebEndpointMappingsSnapshot(get(file.trim()));
+    }
+
+    static void write(Map<String, List<ServiceInstance>> servicesInstances, DataOutputStream outputStream) throws IOException {
+        outputStream.writeInt(MAGIC);
+        outputStream.writeShort(VERSION);
+        outputStream.writeInt(servicesInstances.size());
+        for (Map.Entry<String, List<ServiceInstance>> entry : servicesInstances.entrySet()) {
+            List<ServiceInstance> serviceInstances = entry.getValue();
+            // The distinct payloads are referred by the index
+            Map<String, Integer> payloadIndexes = new LinkedHashMap<>();
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                payloadIndexes.putIfAbsent(getPayload(serviceInstance), payloadIndexes.size());
+            }
+            writeString(entry.getKey(), outputStream);
+            outputStream.writeInt(payloadIndexes.size());
+            for (String payload : payloadIndexes.keySet()) {
+                writeString(payload, outputStream);
+            }
+            outputStream.writeInt(serviceInstances.size());
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                writeString(serviceInstance.getInstanceId(), outputStream);
+                writeString(serviceInstance.getHost(), outputStream);
+                outputStream.writeInt(serviceInstance.getPort());
+                outputStream.writeBoolean(serviceInstance.isSecure());
+                outputStream.writeInt(payloadIndexes.get(getPayload(serviceInstance)));
+                Map<String, String> metadata = serviceInstance.getMetadata();
+                int metadataSize = 0;
+                if (metadata != null) {
+                    metadataSize = metadata.containsKey(WEB_MAPPINGS_METADATA_NAME) ? metadata.size() - 1 : metadata.size();
+                }
+                outputStream.writeInt(metadataSize);
+                if (metadataSize > 0) {
+                    for (Map.Entry<String, String> metadataEntry : metadata.entrySet()) {
+                        if (!WEB_MAPPINGS_METADATA_NAME.equals(metadataEntry.getKey())) {
+                            writeString(metadataEntry.getKey(), outputStream);
+                            writeString(metadataEntry.getValue(), outputStream);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static Map<String, List<ServiceInstance>> read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("The snapshot file is malformed");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalStateException("The version of snapshot file is unsupported : " + version);
+        }
+        int serviceCount = buffer.getInt();
+        Map<String, List<ServiceInstance>> servicesInstances = new LinkedHashMap<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceName = readString(buffer);
+            String[] payloads = new String[buffer.getInt()];
+            for (int j = 0; j < payloads.length; j++) {
+                payloads[j] = readString(buffer);
+            }
+            int instanceCount = buffer.getInt();
+            List<ServiceInstance> serviceInstances = new ArrayList<>(instanceCount);
+            for (int j = 0; j < instanceCount; j++) {
+                String instanceId = readString(buffer);
+                String host = readString(buffer);
+                int port = buffer.getInt();
+                boolean secure = buffer.get() != 0;
+                String payload = payloads[buffer.getInt()];
+                int metadataSize = buffer.getInt();
+                Map<String, String> metadata = new HashMap<>(metadataSize + 1);
+                for (int k = 0; k < metadataSize; k++) {
+                    metadata.put(readString(buffer), readString(buffer));
+                }
+                if (!payload.isEmpty()) {
+                    metadata.put(WEB_MAPPINGS_METADATA_NAME, payload);
+                }
+                serviceInstances.add(new DefaultServiceInstance(instanceId, serviceName, host, port, secure, metadata));
+            }
+            servicesInstances.put(serviceName, serviceInstances);
+        }
+        return servicesInstances;
+    }
+
+    /**
+     * Write the nullable {@link String} as the length of the UTF-8 bytes (-1 if <code>null</code>) and the bytes,
+     * which is not limited to 64K as {@link DataOutputStream#writeUTF(String)}
+     */
+    static void writeString(@Nullable String value, DataOutputStream outputStream) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    @Nullable
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
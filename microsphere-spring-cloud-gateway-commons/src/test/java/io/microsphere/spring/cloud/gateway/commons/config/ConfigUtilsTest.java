@@ -18,6 +18,7 @@
 package io.microsphere.spring.cloud.gateway.commons.config;
 
 
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.HashPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.env.YamlPropertySourceLoader;
@@ -93,6 +94,7 @@ class ConfigUtilsTest {
         metadata.put(WEB_ENDPOINT_KEY, getWebEndpointConfig(this.environment, "spring.cloud.gateway.routes[0].metadata.web-endpoint"));
         config = getWebEndpointConfig(metadata);
         assertNotNull(config);
+        assertNull(config.getHashPolicy());
     }
 
     @Test
@@ -129,5 +131,19 @@ class ConfigUtilsTest {
         assertSame(EMPTY_STRING_ARRAY, exclude.getHeaders());
         assertArrayEquals(ofArray("application/json"), exclude.getConsumes());
         assertArrayEquals(ofArray("plain/text"), exclude.getProduces());
+
+        HashPolicy hashPolicy = config.getHashPolicy();
+        assertNotNull(hashPolicy);
+        assertEquals("X-User-Id", hashPolicy.getHeader());
+        assertNull(hashPolicy.getCookie());
+        assertEquals("id", hashPolicy.getPathVariable());
+        assertEquals(1.5, hashPolicy.getLoadFactor());
+
+        Map<String, String> request = new HashMap<>();
+        assertNull(hashPolicy.getHashKey(request, Map::get, Map::get, Map::get));
+        request.put("id", "1");
+        assertEquals("1", hashPolicy.getHashKey(request, Map::get, Map::get, Map::get));
+        request.put("X-User-Id", "mercy");
+        assertEquals("mercy", hashPolicy.getHashKey(request, Map::get, Map::get, Map::get));
     }
 }
\ No newline at end of file
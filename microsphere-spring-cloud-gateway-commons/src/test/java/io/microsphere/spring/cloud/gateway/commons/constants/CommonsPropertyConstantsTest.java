@@ -20,11 +20,47 @@ package io.microsphere.spring.cloud.gateway.commons.constants;
 
 import org.junit.jupiter.api.Test;
 
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.CHOOSE_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_CHOOSE_TIMEOUT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LATENCY_DECAY_TIME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LEAST_LOADED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LOAD_BALANCER_DELEGATED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_MATCHING_CACHE_MAX_SIZE;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_MICROSPHERE_GATEWAY_ENABLED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_BASE_EJECTION_TIME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_CONSECUTIVE_FAILURES;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_DETECTION_ENABLED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_LATENCY_THRESHOLD;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_OUTLIER_MAX_EJECTION_PERCENT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_MAX_DELAY;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_PARALLELISM;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_QUIET_PERIOD;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_REFRESH_TIMEOUT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_SLOW_START_WINDOW;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_SNAPSHOT_FILE;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_ZONE_MIN_INSTANCES;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LATENCY_DECAY_TIME_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LEAST_LOADED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_ZONE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_DELEGATED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MICROSPHERE_GATEWAY_ENABLED_PROPERTY_NAME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MICROSPHERE_GATEWAY_SPRING_CLOUD_PROPERTY_NAME_PREFIX;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MICROSPHERE_WEB_ENDPOINT_MAPPING_ENABLED_PROPERTY_NAME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_BASE_EJECTION_TIME_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_DETECTION_ENABLED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_MAX_EJECTION_PERCENT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_MAX_DELAY_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_PARALLELISM_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_QUIET_PERIOD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SLOW_START_WINDOW_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SNAPSHOT_FILE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_MIN_INSTANCES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_PROPERTY_NAME;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -43,5 +79,41 @@ class CommonsPropertyConstantsTest {
         assertEquals("microsphere.spring.cloud.gateway.enabled", MICROSPHERE_GATEWAY_ENABLED_PROPERTY_NAME);
         assertEquals("microsphere.spring.cloud.web-endpoint-mapping.", MICROSPHERE_WEB_ENDPOINT_MAPPING_PROPERTY_NAME_PREFIX);
         assertEquals("microsphere.spring.cloud.web-endpoint-mapping.enabled", MICROSPHERE_WEB_ENDPOINT_MAPPING_ENABLED_PROPERTY_NAME);
+        assertEquals("0", DEFAULT_MATCHING_CACHE_MAX_SIZE);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.matching-cache.max-size", MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME);
+        assertEquals("3000", DEFAULT_CHOOSE_TIMEOUT);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.choose-timeout", CHOOSE_TIMEOUT_PROPERTY_NAME);
+        assertEquals("false", DEFAULT_LOAD_BALANCER_DELEGATED);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.delegated", LOAD_BALANCER_DELEGATED_PROPERTY_NAME);
+        assertEquals("spring.cloud.loadbalancer.zone", LOAD_BALANCER_ZONE_PROPERTY_NAME);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.zone", ZONE_PROPERTY_NAME);
+        assertEquals("1", DEFAULT_ZONE_MIN_INSTANCES);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.zone-min-instances", ZONE_MIN_INSTANCES_PROPERTY_NAME);
+        assertEquals("false", DEFAULT_LEAST_LOADED);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.least-loaded", LEAST_LOADED_PROPERTY_NAME);
+        assertEquals("10000", DEFAULT_LATENCY_DECAY_TIME);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.latency-decay-time", LATENCY_DECAY_TIME_PROPERTY_NAME);
+        assertEquals("0", DEFAULT_SLOW_START_WINDOW);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.slow-start-window", SLOW_START_WINDOW_PROPERTY_NAME);
+        assertEquals("false", DEFAULT_OUTLIER_DETECTION_ENABLED);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.enabled", OUTLIER_DETECTION_ENABLED_PROPERTY_NAME);
+        assertEquals("5", DEFAULT_OUTLIER_CONSECUTIVE_FAILURES);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.consecutive-failures", OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME);
+        assertEquals("30000", DEFAULT_OUTLIER_BASE_EJECTION_TIME);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.base-ejection-time", OUTLIER_BASE_EJECTION_TIME_PROPERTY_NAME);
+        assertEquals("50", DEFAULT_OUTLIER_MAX_EJECTION_PERCENT);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.max-ejection-percent", OUTLIER_MAX_EJECTION_PERCENT_PROPERTY_NAME);
+        assertEquals("0", DEFAULT_OUTLIER_LATENCY_THRESHOLD);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.load-balancer.outlier-detection.latency-threshold", OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME);
+        assertEquals("8", DEFAULT_REFRESH_PARALLELISM);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.refresh.parallelism", REFRESH_PARALLELISM_PROPERTY_NAME);
+        assertEquals("10000", DEFAULT_REFRESH_TIMEOUT);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.refresh.timeout", REFRESH_TIMEOUT_PROPERTY_NAME);
+        assertEquals("0", DEFAULT_REFRESH_QUIET_PERIOD);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.refresh.quiet-period", REFRESH_QUIET_PERIOD_PROPERTY_NAME);
+        assertEquals("5000", DEFAULT_REFRESH_MAX_DELAY);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.refresh.max-delay", REFRESH_MAX_DELAY_PROPERTY_NAME);
+        assertEquals("", DEFAULT_SNAPSHOT_FILE);
+        assertEquals("microsphere.spring.cloud.web-endpoint-mapping.snapshot.file", SNAPSHOT_FILE_PROPERTY_NAME);
     }
 }
\ No newline at end of file
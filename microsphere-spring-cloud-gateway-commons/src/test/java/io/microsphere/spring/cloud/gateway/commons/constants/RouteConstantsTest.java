@@ -22,6 +22,7 @@ import org.junit.jupiter.api.Test;
 
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ALL_SERVICES;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ID_KEY;
+import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.LOAD_BALANCER_SCHEME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.METADATA_KEY;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.SCHEME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.WEB_ENDPOINT_KEY;
@@ -40,6 +41,7 @@ class RouteConstantsTest {
     @Test
     void testConstants() {
         assertEquals("we", SCHEME);
+        assertEquals("lb", LOAD_BALANCER_SCHEME);
         assertEquals("all", ALL_SERVICES);
         assertEquals("id", ID_KEY);
         assertEquals("metadata", METADATA_KEY);
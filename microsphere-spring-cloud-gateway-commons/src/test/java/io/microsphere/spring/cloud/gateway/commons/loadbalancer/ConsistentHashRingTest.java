@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashRing.EMPTY;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashRing.VIRTUAL_NODES;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashRing.hash;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashRing.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ConsistentHashRing} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ConsistentHashRing
+ * @since 1.0.0
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10000;
+
+    @Test
+    void testChoose() {
+        assertNull(EMPTY.choose(hash("key"), key -> true));
+
+        ConsistentHashRing ring = of(ofList("a", "b", "c"));
+        assertEquals(3, ring.size());
+        assertEquals(3 * VIRTUAL_NODES, ring.getPointCount());
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            long hash = hash("key-" + i);
+            String key = ring.choose(hash, k -> true);
+            // The same key is always chosen
+            assertEquals(key, ring.choose(hash, k -> true));
+            counts.merge(key, 1, Integer::sum);
+        }
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 5, () -> "The distribution is skewed : " + counts);
+        }
+
+        // The rejected key is skipped to the next one
+        long hash = hash("key-0");
+        String key = ring.choose(hash, k -> true);
+        assertNotEquals(key, ring.choose(hash, k -> !k.equals(key)));
+        assertNull(ring.choose(hash, k -> false));
+    }
+
+    @Test
+    void testUpdate() {
+        ConsistentHashRing ring = of(ofList("a", "b", "c"));
+        assertSame(ring, ring.update(ofList("a", "b", "c")));
+
+        // Only the keys of the removed instance are moved
+        ConsistentHashRing removed = ring.update(ofList("a", "c"));
+        assertEquals(2 * VIRTUAL_NODES, removed.getPointCount());
+        assertOnlyMoved(ring, removed, "b");
+        assertEquals(of(ofList("a", "c")).toString(), removed.toString());
+
+        // Only the keys moved to the added instance are moved
+        ConsistentHashRing added = ring.update(ofList("c", "a", "b", "d"));
+        assertEquals(4 * VIRTUAL_NODES, added.getPointCount());
+        assertOnlyMoved(added, ring, "d");
+
+        // The incremental ring is the same as the one built from scratch
+        ConsistentHashRing expected = of(ofList("b", "c", "d"));
+        ConsistentHashRing actual = ring.update(ofList("b", "c", "d"));
+        for (int i = 0; i < KEYS; i++) {
+            long hash = hash("key-" + i);
+            assertEquals(expected.choose(hash, k -> true), actual.choose(hash, k -> true));
+        }
+
+        assertEquals(0, ring.update(ofList()).size());
+    }
+
+    @Test
+    void testHash() {
+        assertEquals(hash("key"), hash("key"));
+        assertNotEquals(hash("key-1"), hash("key-2"));
+    }
+
+    /**
+     * Assert the keys only owned by the moved instance in the source ring are moved in the target ring
+     */
+    static void assertOnlyMoved(ConsistentHashRing source, ConsistentHashRing target, String moved) {
+        List<String> movedKeys = ofList(moved);
+        for (int i = 0; i < KEYS; i++) {
+            long hash = hash("key-" + i);
+            String sourceKey = source.choose(hash, k -> true);
+            if (!movedKeys.contains(sourceKey)) {
+                assertEquals(sourceKey, target.choose(hash, k -> true));
+            }
+        }
+    }
+}
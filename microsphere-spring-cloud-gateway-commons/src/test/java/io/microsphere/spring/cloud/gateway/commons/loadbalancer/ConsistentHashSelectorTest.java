@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetectorTest.createServiceInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ConsistentHashSelector} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ConsistentHashSelector
+ * @since 1.0.0
+ */
+class ConsistentHashSelectorTest {
+
+    private final ServiceInstance a = createServiceInstance("127.0.0.1");
+
+    private final ServiceInstance b = createServiceInstance("127.0.0.2");
+
+    private final ServiceInstance c = createServiceInstance("127.0.0.3");
+
+    private final List<ServiceInstance> serviceInstances = ofList(this.a, this.b, this.c);
+
+    @Test
+    void testChoose() {
+        ConsistentHashSelector selector = new ConsistentHashSelector();
+        assertNull(selector.choose(this.serviceInstances, ofList(), "key", 0));
+        assertFalse(selector.contains("test-app"));
+
+        ServiceInstance chosen = selector.choose(this.serviceInstances, this.serviceInstances, "key", 0);
+        assertTrue(selector.contains("test-app"));
+        for (int i = 0; i < 10; i++) {
+            assertSame(chosen, selector.choose(this.serviceInstances, this.serviceInstances, "key", 0));
+        }
+
+        // The unavailable instance is skipped, and the others are not moved
+        List<ServiceInstance> availableServiceInstances = this.serviceInstances.stream().filter(s -> s != chosen).toList();
+        ServiceInstance next = selector.choose(this.serviceInstances, availableServiceInstances, "key", 0);
+        assertNotSame(chosen, next);
+        for (int i = 0; i < 100; i++) {
+            String key = "key-" + i;
+            ServiceInstance serviceInstance = selector.choose(this.serviceInstances, this.serviceInstances, key, 0);
+            if (serviceInstance != chosen) {
+                assertSame(serviceInstance, selector.choose(this.serviceInstances, availableServiceInstances, key, 0));
+            }
+        }
+    }
+
+    @Test
+    void testChooseWithBoundedLoad() {
+        ConsistentHashSelector selector = new ConsistentHashSelector();
+        ServiceInstance chosen = selector.choose(this.serviceInstances, this.serviceInstances, "key", 1.25);
+        selector.begin(chosen);
+        assertEquals(1, selector.getInFlightRequests(chosen));
+        // The capacity is ceil(1.25 * 2 / 3) = 1, the loaded instance is skipped
+        assertNotSame(chosen, selector.choose(this.serviceInstances, this.serviceInstances, "key", 1.25));
+        // No bound
+        assertSame(chosen, selector.choose(this.serviceInstances, this.serviceInstances, "key", 0));
+
+        selector.end(chosen);
+        assertEquals(0, selector.getInFlightRequests(chosen));
+        selector.end(chosen);
+        assertEquals(0, selector.getInFlightRequests(chosen));
+        assertSame(chosen, selector.choose(this.serviceInstances, this.serviceInstances, "key", 1.25));
+
+        // All instances reach the capacity ceil(0.1 * 4 / 3) = 1, the first available one on the ring is chosen
+        for (ServiceInstance serviceInstance : this.serviceInstances) {
+            selector.begin(serviceInstance);
+        }
+        assertSame(chosen, selector.choose(this.serviceInstances, this.serviceInstances, "key", 0.1));
+    }
+
+    @Test
+    void testRetain() {
+        ConsistentHashSelector selector = new ConsistentHashSelector();
+        ServiceInstance chosen = selector.choose(this.serviceInstances, this.serviceInstances, "key", 0);
+        selector.begin(chosen);
+
+        List<ServiceInstance> serviceInstances = this.serviceInstances.stream().filter(s -> s != chosen).toList();
+        selector.retain("test-app", serviceInstances);
+        assertEquals(0, selector.getInFlightRequests(chosen));
+        ServiceInstance next = selector.choose(serviceInstances, serviceInstances, "key", 0);
+        assertNotSame(chosen, next);
+
+        // The instance absent in the ring is chosen if no other is available
+        assertSame(chosen, selector.choose(serviceInstances, ofList(chosen), "key", 0));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_DETECTION_ENABLED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector.MAX_EJECTION_TIME_MULTIPLIER;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector.NONE;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector.getAddress;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link OutlierDetector} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see OutlierDetector
+ * @since 1.0.0
+ */
+class OutlierDetectorTest {
+
+    private final ServiceInstance a = createServiceInstance("127.0.0.1");
+
+    private final ServiceInstance b = createServiceInstance("127.0.0.2");
+
+    private final ServiceInstance c = createServiceInstance("127.0.0.3");
+
+    private final List<ServiceInstance> serviceInstances = ofList(this.a, this.b, this.c);
+
+    @Test
+    void testEjection() {
+        Statistics statistics = new Statistics();
+        OutlierDetector detector = new OutlierDetector(true, 3, 1000, 50, 0, statistics);
+        String address = getAddress(this.a);
+
+        detector.record("test-app", address, true, 0);
+        detector.record("test-app", address, true, 0);
+        // The success resets the consecutive failures
+        detector.record("test-app", address, false, 0);
+        detector.record("test-app", address, true, 0);
+        detector.record("test-app", address, true, 0);
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 0));
+
+        detector.record("test-app", address, true, 0);
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 0));
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 999));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 1000));
+        assertEquals(5, statistics.getFailureCount());
+        assertEquals(1, statistics.getEjectionCount());
+
+        // The failures during the ejection are ignored
+        detector.record("test-app", address, true, 500);
+        assertEquals(1, statistics.getEjectionCount());
+
+        // The ejection time is doubled in succession
+        for (int i = 0; i < 3; i++) {
+            detector.record("test-app", address, true, 1000);
+        }
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 2999));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 3000));
+        for (int i = 0; i < 3; i++) {
+            detector.record("test-app", address, true, 3000);
+        }
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 6999));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 7000));
+
+        // Reset after being healthy for longer than the last ejection
+        for (int i = 0; i < 3; i++) {
+            detector.record("test-app", address, true, 20000);
+        }
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 20999));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 21000));
+    }
+
+    @Test
+    void testMaxEjectionTime() {
+        OutlierDetector detector = new OutlierDetector(true, 1, 1000, 50, 0, new Statistics());
+        long now = 0;
+        for (int i = 0; i < 10; i++) {
+            detector.record("test-app", getAddress(this.a), true, now);
+            now += Math.min(1000L << i, 1000L * MAX_EJECTION_TIME_MULTIPLIER);
+        }
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, now - 1));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, now));
+    }
+
+    @Test
+    void testMaxEjectionPercent() {
+        OutlierDetector detector = new OutlierDetector(true, 1, 1000, 50, 0, new Statistics());
+        detector.record("test-app", getAddress(this.a), true, 0);
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances, 10));
+        detector.record("test-app", getAddress(this.b), true, 10);
+        // 2 of 3 exceed 50%, only the most recently ejected one is kept out
+        assertEquals(ofList(this.a, this.c), detector.filter(this.serviceInstances, 10));
+        assertEquals(ofList(this.c), new OutlierDetector(true, 1, 1000, 100, 0, new Statistics()).filter(ofList(this.c), 0));
+
+        detector.retain("test-app", ofList(this.b, this.c));
+        assertEquals(ofList(this.c), detector.filter(ofList(this.b, this.c), 10));
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 1010));
+        detector.retain("other-app", ofList());
+
+        // At least one instance is kept even if the max percent is 100
+        detector = new OutlierDetector(true, 1, 1000, 100, 0, new Statistics());
+        detector.record("test-app", getAddress(this.a), true, 0);
+        detector.record("test-app", getAddress(this.b), true, 1);
+        detector.record("test-app", getAddress(this.c), true, 2);
+        assertEquals(ofList(this.a), detector.filter(this.serviceInstances, 2));
+        // No instance could be ejected
+        detector = new OutlierDetector(true, 1, 1000, 0, 0, new Statistics());
+        detector.record("test-app", getAddress(this.a), true, 0);
+        assertSame(this.serviceInstances, detector.filter(this.serviceInstances, 0));
+    }
+
+    @Test
+    void testIsFailure() {
+        OutlierDetector detector = new OutlierDetector(true, 5, 30000, 50, 100, new Statistics());
+        assertTrue(detector.isFailure(0, 1));
+        assertTrue(detector.isFailure(503, 1));
+        assertTrue(detector.isFailure(200, 101));
+        assertFalse(detector.isFailure(404, 100));
+        assertFalse(new OutlierDetector(true, 5, 30000, 50, 0, new Statistics()).isFailure(200, 10000));
+    }
+
+    @Test
+    void testRecord() {
+        OutlierDetector detector = new OutlierDetector(true, 1, 60000, 50, 0, new Statistics());
+        assertFalse(detector.isEjecting("test-app"));
+        detector.record(this.a, 200, 1);
+        detector.record(this.a, 500, 1);
+        assertTrue(detector.isEjecting("test-app"));
+        assertTrue(detector.isEjected(this.a));
+        assertFalse(detector.isEjected(this.b));
+        assertEquals(1, detector.getEjectedInstanceCount());
+        assertEquals(ofList(this.b, this.c), detector.filter(this.serviceInstances));
+
+        NONE.record(this.a, 500, 1);
+        assertFalse(NONE.isEjecting("test-app"));
+        assertSame(this.serviceInstances, NONE.filter(this.serviceInstances));
+    }
+
+    @Test
+    void testOf() {
+        Statistics statistics = new Statistics();
+        assertSame(NONE, of(null, statistics));
+        MockEnvironment environment = new MockEnvironment();
+        assertSame(NONE, of(environment, statistics));
+        assertFalse(NONE.isEnabled());
+
+        environment.setProperty(OUTLIER_DETECTION_ENABLED_PROPERTY_NAME, "true");
+        environment.setProperty(OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME, "3");
+        environment.setProperty(OUTLIER_LATENCY_THRESHOLD_PROPERTY_NAME, "500");
+        OutlierDetector detector = of(environment, statistics);
+        assertTrue(detector.isEnabled());
+        assertEquals(3, detector.getConsecutiveFailures());
+        assertEquals(30000, detector.getBaseEjectionTime());
+        assertEquals(50, detector.getMaxEjectionPercent());
+        assertEquals(500, detector.getLatencyThreshold());
+        assertSame(statistics, detector.getStatistics());
+        assertTrue(detector.hasSameSettings(of(environment, new Statistics())));
+        assertFalse(detector.hasSameSettings(NONE));
+    }
+
+    @Test
+    void testGetAddress() {
+        assertEquals("127.0.0.1:8080", getAddress(this.a));
+        assertEquals("::1:8080", getAddress("[::1]", 8080));
+        assertEquals("::1:8080", getAddress("::1", 8080));
+    }
+
+    static ServiceInstance createServiceInstance(String host) {
+        return new DefaultServiceInstance(host, "test-app", host, 8080, false);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+
+import java.net.URI;
+
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_CONTEXT_PATH_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ServiceInstanceBaseURI.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ServiceInstanceBaseURI} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstanceBaseURI
+ * @since 1.0.0
+ */
+class ServiceInstanceBaseURITest {
+
+    @Test
+    void testResolve() {
+        ServiceInstanceBaseURI baseURI = of(createServiceInstance("127.0.0.1", 8080, false, null));
+        assertEquals("test-app", baseURI.getServiceId());
+        assertEquals("http://127.0.0.1:8080", baseURI.getPrefix());
+        assertEquals("http://127.0.0.1:8080", baseURI.toString());
+        assertEquals(URI.create("http://127.0.0.1:8080/users/1"), baseURI.resolve("/users/1"));
+        assertEquals("/a%20b", baseURI.resolve("/a%20b").getRawPath());
+
+        // The context path is never prepended as same as the load balancer
+        baseURI = of(createServiceInstance("127.0.0.1", 8080, false, "/ctx/"));
+        assertEquals(URI.create("http://127.0.0.1:8080/users/1"), baseURI.resolve("/users/1"));
+
+        baseURI = of(createServiceInstance("::1", 8443, true, null));
+        assertEquals("https://[::1]:8443", baseURI.getPrefix());
+        assertEquals("::1", baseURI.resolve("/").getHost().replaceAll("[\\[\\]]", ""));
+    }
+
+    @Test
+    void testMatches() {
+        ServiceInstanceBaseURI baseURI = of(createServiceInstance("127.0.0.1", 8080, false, null));
+        assertTrue(baseURI.matches(createServiceInstance("127.0.0.1", 8080, true, "/ctx")));
+        assertFalse(baseURI.matches(createServiceInstance("127.0.0.1", 9090, false, null)));
+        assertFalse(baseURI.matches(createServiceInstance("127.0.0.2", 8080, false, null)));
+    }
+
+    static DefaultServiceInstance createServiceInstance(String host, int port, boolean secure, String contextPath) {
+        DefaultServiceInstance serviceInstance = new DefaultServiceInstance(host + ":" + port, "test-app", host, port, secure);
+        if (contextPath != null) {
+            serviceInstance.getMetadata().put(WEB_CONTEXT_PATH_METADATA_NAME, contextPath);
+        }
+        return serviceInstance;
+    }
+}
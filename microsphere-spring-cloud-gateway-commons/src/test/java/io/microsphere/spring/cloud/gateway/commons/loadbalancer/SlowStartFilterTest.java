@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Random;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SLOW_START_WINDOW_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.SlowStartFilter.MIN_WEIGHT;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.SlowStartFilter.NONE;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.SlowStartFilter.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link SlowStartFilter} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see SlowStartFilter
+ * @since 1.0.0
+ */
+class SlowStartFilterTest {
+
+    private final ServiceInstance a = createServiceInstance("a");
+
+    private final ServiceInstance b = createServiceInstance("b");
+
+    private final ServiceInstance c = createServiceInstance("c");
+
+    @Test
+    void testGetWeight() {
+        SlowStartFilter filter = new SlowStartFilter(1000);
+        assertTrue(filter.isEnabled());
+        assertEquals(1.0, filter.getWeight(this.c, 0));
+
+        // The instances at the first time are warm
+        filter.onServiceInstancesChanged("test-app", ofList(this.a, this.b), 100);
+        assertEquals(1.0, filter.getWeight(this.a, 100));
+
+        filter.onServiceInstancesChanged("test-app", ofList(this.a, this.b, this.c), 2000);
+        assertEquals(1.0, filter.getWeight(this.a, 2000));
+        assertEquals(MIN_WEIGHT, filter.getWeight(this.c, 2000));
+        assertEquals(MIN_WEIGHT + (1.0 - MIN_WEIGHT) / 2, filter.getWeight(this.c, 2500), 1e-9);
+        assertEquals(1.0, filter.getWeight(this.c, 3000));
+
+        // The first-seen time is kept, and the gone instance is removed
+        filter.onServiceInstancesChanged("test-app", ofList(this.b, this.c), 2500);
+        assertEquals(MIN_WEIGHT + (1.0 - MIN_WEIGHT) / 2, filter.getWeight(this.c, 2500), 1e-9);
+        filter.onServiceInstancesChanged("test-app", ofList(this.a, this.b, this.c), 2600);
+        assertEquals(MIN_WEIGHT, filter.getWeight(this.a, 2600));
+
+        // initialize is ignored once recorded
+        filter.initialize("test-app", ofList(this.b));
+        assertEquals(MIN_WEIGHT, filter.getWeight(this.a, 2600));
+    }
+
+    @Test
+    void testFilter() {
+        SlowStartFilter filter = new SlowStartFilter(1000);
+        List<ServiceInstance> serviceInstances = ofList(this.a, this.b, this.c);
+        Random random = new Random(20260101L);
+        assertSame(serviceInstances, filter.filter(serviceInstances, 0, random));
+
+        filter.onServiceInstancesChanged("test-app", ofList(this.a, this.b), 0);
+        filter.onServiceInstancesChanged("test-app", serviceInstances, 1000);
+
+        int count = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<ServiceInstance> filtered = filter.filter(serviceInstances, 1000, random);
+            assertTrue(filtered.containsAll(ofList(this.a, this.b)));
+            if (filtered.contains(this.c)) {
+                count++;
+            }
+        }
+        int keptCount = count;
+        assertTrue(keptCount > 50 && keptCount < 150, () -> "The count : " + keptCount);
+
+        // all warm
+        assertSame(serviceInstances, filter.filter(serviceInstances, 2000, random));
+        // none is kept
+        filter.onServiceInstancesChanged("test-app", ofList(this.a, this.b, this.c, createServiceInstance("d")), 3000);
+        List<ServiceInstance> coldServiceInstances = ofList(createServiceInstance("d"));
+        assertSame(coldServiceInstances, filter.filter(coldServiceInstances, 3000, random));
+    }
+
+    @Test
+    void testOf() {
+        assertSame(NONE, of(null));
+        MockEnvironment environment = new MockEnvironment();
+        assertSame(NONE, of(environment));
+        assertFalse(NONE.isEnabled());
+        assertEquals(0, new SlowStartFilter(-1).getWindow());
+
+        environment.setProperty(SLOW_START_WINDOW_PROPERTY_NAME, "60000");
+        SlowStartFilter filter = of(environment);
+        assertTrue(filter.isEnabled());
+        assertEquals(60000, filter.getWindow());
+
+        List<ServiceInstance> serviceInstances = ofList(this.a, this.b);
+        NONE.onServiceInstancesChanged("test-app", serviceInstances);
+        assertSame(serviceInstances, NONE.filter(serviceInstances));
+        assertEquals(1.0, NONE.getWeight(this.a));
+    }
+
+    static ServiceInstance createServiceInstance(String id) {
+        return new DefaultServiceInstance(id, "test-app", id, 8080, false);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.collection.Sets.ofSet;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.EMPTY;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.fingerprint;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.getInstanceKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link WebEndpointMappingInstanceIndex} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingInstanceIndex
+ * @since 1.0.0
+ */
+class WebEndpointMappingInstanceIndexTest {
+
+    private final WebEndpointMapping users = createWebEndpointMapping("users", "/users");
+
+    private final WebEndpointMapping orders = createWebEndpointMapping("orders", "/orders");
+
+    private final WebEndpointMapping payments = createWebEndpointMapping("payments", "/payments");
+
+    private final ServiceInstance old1 = new DefaultServiceInstance("old-1", "test-app", "127.0.0.1", 8080, false);
+
+    private final ServiceInstance old2 = new DefaultServiceInstance("old-2", "test-app", "127.0.0.2", 8080, false);
+
+    private final ServiceInstance new1 = new DefaultServiceInstance(null, "test-app", "127.0.0.3", 8080, false);
+
+    @Test
+    void testRollingDeployment() {
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>();
+        instanceWebEndpointMappings.put(this.old1, ofList(this.users, this.orders));
+        instanceWebEndpointMappings.put(this.old2, ofList(this.orders, this.users));
+        // The new version adds "payments" and removes "orders"
+        instanceWebEndpointMappings.put(this.new1, ofList(this.users, this.payments));
+        WebEndpointMappingInstanceIndex index = new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings);
+
+        assertEquals(3, index.size());
+        assertFalse(index.isUniform());
+        assertEquals(index.getFingerprint(this.old1), index.getFingerprint(this.old2));
+        assertNotEquals(index.getFingerprint(this.old1), index.getFingerprint(this.new1));
+        assertNull(index.getFingerprint(new DefaultServiceInstance("unknown", "test-app", "127.0.0.4", 8080, false)));
+
+        List<ServiceInstance> serviceInstances = ofList(this.old1, this.old2, this.new1);
+        assertTrue(index.isServedByAll(this.users.getId()));
+        assertSame(serviceInstances, index.filter(serviceInstances, this.users.getId()));
+        assertTrue(index.getServingInstances(this.users.getId()).isEmpty());
+
+        assertFalse(index.isServedByAll(this.orders.getId()));
+        assertEquals(ofList(this.old1, this.old2), index.filter(serviceInstances, this.orders.getId()));
+        assertEquals(ofSet("old-1", "old-2"), index.getServingInstances(this.orders.getId()));
+
+        assertEquals(ofList(this.new1), index.filter(serviceInstances, this.payments.getId()));
+        assertEquals(ofSet("127.0.0.3:8080"), index.getServingInstances(this.payments.getId()));
+
+        // none of the candidates serves the mapping
+        List<ServiceInstance> oldServiceInstances = ofList(this.old1, this.old2);
+        assertSame(oldServiceInstances, index.filter(oldServiceInstances, this.payments.getId()));
+        // unknown mapping
+        assertTrue(index.isServedByAll(0));
+    }
+
+    @Test
+    void testUniform() {
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>();
+        instanceWebEndpointMappings.put(this.old1, ofList(this.users, this.orders));
+        instanceWebEndpointMappings.put(this.old2, ofList(this.orders, this.users, this.orders));
+        WebEndpointMappingInstanceIndex index = new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings);
+        assertTrue(index.isUniform());
+        assertTrue(index.isServedByAll(this.orders.getId()));
+
+        assertTrue(EMPTY.isUniform());
+        assertEquals(0, EMPTY.size());
+    }
+
+    @Test
+    void testFingerprint() {
+        assertEquals(fingerprint(ofList(this.users, this.orders)), fingerprint(ofList(this.orders, this.users)));
+        assertEquals(fingerprint(ofList(this.users)), fingerprint(ofList(this.users, this.users)));
+        assertNotEquals(fingerprint(ofList(this.users)), fingerprint(ofList(this.users, this.orders)));
+    }
+
+    @Test
+    void testGetInstanceKey() {
+        assertEquals("old-1", getInstanceKey(this.old1));
+        assertEquals("127.0.0.3:8080", getInstanceKey(this.new1));
+    }
+
+    static WebEndpointMapping createWebEndpointMapping(String endpoint, String pattern) {
+        return WebEndpointMapping.webflux().endpoint(endpoint).patterns(pattern).build();
+    }
+}
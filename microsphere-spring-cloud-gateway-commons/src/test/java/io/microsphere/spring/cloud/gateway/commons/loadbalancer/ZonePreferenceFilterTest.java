@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_ZONE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_MIN_INSTANCES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter.NONE;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter.ZONE_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter.getZone;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ZonePreferenceFilter} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ZonePreferenceFilter
+ * @since 1.0.0
+ */
+class ZonePreferenceFilterTest {
+
+    private final ServiceInstance a1 = createServiceInstance("a1", "zone-a");
+
+    private final ServiceInstance a2 = createServiceInstance("a2", "ZONE-A");
+
+    private final ServiceInstance b1 = createServiceInstance("b1", "zone-b");
+
+    private final ServiceInstance none = createServiceInstance("none", null);
+
+    @Test
+    void testFilter() {
+        List<ServiceInstance> serviceInstances = ofList(this.a1, this.b1, this.a2, this.none);
+        ZonePreferenceFilter filter = new ZonePreferenceFilter("zone-a", 1);
+        assertTrue(filter.isEnabled());
+        assertEquals(ofList(this.a1, this.a2), filter.filter(serviceInstances));
+        assertEquals(ofList(this.b1), new ZonePreferenceFilter("zone-c", 1).filter(ofList(this.b1)));
+
+        // fall back to the other zones
+        assertSame(serviceInstances, new ZonePreferenceFilter("zone-b", 2).filter(serviceInstances));
+        assertSame(serviceInstances, new ZonePreferenceFilter("zone-c", 1).filter(serviceInstances));
+        assertEquals(ofList(this.a1, this.a2), new ZonePreferenceFilter("zone-a", 2).filter(serviceInstances));
+        assertSame(serviceInstances, new ZonePreferenceFilter("zone-a", 3).filter(serviceInstances));
+
+        // no preference
+        assertFalse(NONE.isEnabled());
+        assertSame(serviceInstances, NONE.filter(serviceInstances));
+        assertSame(serviceInstances, new ZonePreferenceFilter(" ", 1).filter(serviceInstances));
+    }
+
+    @Test
+    void testGetZone() {
+        assertEquals("zone-a", getZone(this.a1));
+        assertNull(getZone(this.none));
+    }
+
+    @Test
+    void testOf() {
+        assertSame(NONE, of(null));
+
+        MockEnvironment environment = new MockEnvironment();
+        assertFalse(of(environment).isEnabled());
+
+        environment.setProperty(LOAD_BALANCER_ZONE_PROPERTY_NAME, "zone-a");
+        assertEquals("zone-a", of(environment).getZone());
+        assertEquals(1, of(environment).getMinInstances());
+
+        environment.setProperty(ZONE_PROPERTY_NAME, "zone-b");
+        environment.setProperty(ZONE_MIN_INSTANCES_PROPERTY_NAME, "2");
+        ZonePreferenceFilter filter = of(environment);
+        assertEquals("zone-b", filter.getZone());
+        assertEquals(2, filter.getMinInstances());
+    }
+
+    static ServiceInstance createServiceInstance(String id, String zone) {
+        DefaultServiceInstance serviceInstance = new DefaultServiceInstance(id, "test-app", id, 8080, false);
+        if (zone != null) {
+            serviceInstance.getMetadata().put(ZONE_METADATA_NAME, zone);
+        }
+        return serviceInstance;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.MatchingKeyTemplate.hasBody;
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MatchingKeyTemplate} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see MatchingKeyTemplate
+ * @since 1.0.0
+ */
+class MatchingKeyTemplateTest {
+
+    @Test
+    void testBuild() {
+        MatchingKeyTemplate template = new MatchingKeyTemplate(ofList("b", "a", "a"), ofList("Accept", "X-A", "accept"), false);
+        assertArrayEquals(ofArray("a", "b"), template.getParamNames());
+        assertArrayEquals(ofArray("Accept", "X-A"), template.getHeaderNames());
+        assertFalse(template.isBodyAware());
+
+        String key = build(template, "GET", "/users", Map.of("a", ofList("1"), "c", ofList("2")), Map.of("X-A", ofList("1"), "X-B", ofList("2")));
+        assertEquals(key, build(template, "GET", "/users", Map.of("a", ofList("1")), Map.of("X-A", ofList("1"))));
+        assertNotEquals(key, build(template, "POST", "/users", Map.of("a", ofList("1")), Map.of("X-A", ofList("1"))));
+        assertNotEquals(key, build(template, "GET", "/users/1", Map.of("a", ofList("1")), Map.of("X-A", ofList("1"))));
+        assertNotEquals(key, build(template, "GET", "/users", Map.of("a", ofList("2")), Map.of("X-A", ofList("1"))));
+        assertNotEquals(key, build(template, "GET", "/users", Map.of("a", ofList("1")), Map.of("X-A", ofList("1", "2"))));
+        assertNotEquals(key, build(template, "GET", "/users", Map.of("a", ofList("1")), Map.of()));
+        // The absent parameter and the empty one are different
+        assertNotEquals(build(template, "GET", "/users", Map.of(), Map.of()),
+                build(template, "GET", "/users", Map.of("a", ofList("")), Map.of()));
+    }
+
+    @Test
+    void testBuildBodyAware() {
+        MatchingKeyTemplate template = new MatchingKeyTemplate(emptyList(), ofList("Content-Type"), true);
+        assertTrue(template.isBodyAware());
+        assertNotEquals(template.build("POST", "/", true, null, (r, n) -> null, (r, n) -> null),
+                template.build("POST", "/", false, null, (r, n) -> null, (r, n) -> null));
+    }
+
+    @Test
+    void testHasBody() {
+        assertFalse(hasBody(null, null));
+        assertFalse(hasBody(" 0 ", null));
+        assertFalse(hasBody("", " "));
+        assertTrue(hasBody("1", null));
+        assertTrue(hasBody(null, "chunked"));
+    }
+
+    private String build(MatchingKeyTemplate template, String method, String path,
+                         Map<String, List<String>> params, Map<String, List<String>> headers) {
+        return template.build(method, path, false, null, (r, name) -> params.get(name), (r, name) -> headers.get(name));
+    }
+}
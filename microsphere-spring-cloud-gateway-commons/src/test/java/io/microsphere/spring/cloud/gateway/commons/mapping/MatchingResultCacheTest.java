@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MatchingResultCache} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see MatchingResultCache
+ * @since 1.0.0
+ */
+class MatchingResultCacheTest {
+
+    private final AtomicInteger matchCount = new AtomicInteger();
+
+    private final Function<String, String> matcher = key -> {
+        matchCount.incrementAndGet();
+        return key.startsWith("none") ? null : key.toUpperCase();
+    };
+
+    @Test
+    void testGet() {
+        MatchingResultCache<String, String> cache = new MatchingResultCache<>(10);
+        assertTrue(cache.isEnabled());
+        assertEquals(10, cache.getMaxSize());
+        assertEquals("A", cache.get("a", matcher));
+        assertEquals("A", cache.get("a", matcher));
+        assertNull(cache.get("none", matcher));
+        assertNull(cache.get("none", matcher));
+        assertEquals(2, matchCount.get());
+        assertEquals(2, cache.size());
+
+        Statistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+        assertEquals(0, statistics.getEvictionCount());
+    }
+
+    @Test
+    void testEviction() {
+        MatchingResultCache<String, String> cache = new MatchingResultCache<>(5);
+        // "hot" is promoted into the protected segment
+        cache.get("hot", matcher);
+        cache.get("hot", matcher);
+        for (int i = 0; i < 100; i++) {
+            cache.get("scan-" + i, matcher);
+        }
+        assertEquals(5, cache.size());
+        assertEquals(96, cache.getStatistics().getEvictionCount());
+
+        int count = matchCount.get();
+        assertEquals("HOT", cache.get("hot", matcher));
+        assertEquals(count, matchCount.get());
+
+        cache.get("scan-0", matcher);
+        assertEquals(count + 1, matchCount.get());
+    }
+
+    @Test
+    void testConcurrentGet() throws Exception {
+        int threads = 8;
+        int iterations = 10000;
+        MatchingResultCache<String, String> cache = new MatchingResultCache<>(32);
+        ExecutorService executor = newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    latch.await();
+                    for (int i = 0; i < iterations; i++) {
+                        // the hot keys are interleaved with the distinct scans
+                        String key = i % 2 == 0 ? "hot-" + (i % 8) : "scan-" + thread + "-" + i;
+                        assertEquals(key.toUpperCase(), cache.get(key, matcher));
+                        assertNull(cache.get("none-" + (i % 4), matcher));
+                    }
+                    return null;
+                }));
+            }
+            latch.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Statistics statistics = cache.getStatistics();
+        assertTrue(cache.size() <= cache.getMaxSize());
+        assertEquals(2L * threads * iterations, statistics.getHitCount() + statistics.getMissCount());
+        assertEquals(matchCount.get(), statistics.getMissCount());
+        assertTrue(statistics.getMissCount() - statistics.getEvictionCount() >= cache.size());
+
+        // the hot keys survive the scans
+        int count = matchCount.get();
+        for (int i = 0; i < 8; i += 2) {
+            assertEquals("HOT-" + i, cache.get("hot-" + i, matcher));
+        }
+        assertEquals(count, matchCount.get());
+    }
+
+    @Test
+    void testDisabled() {
+        MatchingResultCache<String, String> cache = new MatchingResultCache<>(0);
+        assertFalse(cache.isEnabled());
+        assertEquals("A", cache.get("a", matcher));
+        assertEquals("A", cache.get("a", matcher));
+        assertEquals(2, matchCount.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    void testSharedStatistics() {
+        Statistics statistics = new Statistics();
+        MatchingResultCache<String, String> cache = new MatchingResultCache<>(1, statistics);
+        cache.get("a", matcher);
+        cache.get("b", matcher);
+        cache = new MatchingResultCache<>(1, statistics);
+        cache.get("a", matcher);
+        assertSame(statistics, cache.getStatistics());
+        assertEquals(3, statistics.getMissCount());
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals("Statistics{hitCount=0, missCount=3, evictionCount=1}", statistics.toString());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.MethodPathPatternIndex.accepts;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.MethodPathPatternIndex.bit;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.MethodPathPatternIndex.mask;
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static java.util.Collections.emptySet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.HEAD;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+/**
+ * {@link MethodPathPatternIndex} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see MethodPathPatternIndex
+ * @since 1.0.0
+ */
+class MethodPathPatternIndexTest {
+
+    static final Map<String, Set<RequestMethod>> METHODS = Map.of(
+            "get", Set.of(GET),
+            "post", Set.of(POST),
+            "any", emptySet(),
+            "get-post", Set.of(GET, POST)
+    );
+
+    @Test
+    void testGetIndex() {
+        List<String> values = ofList("get", "post", "any", "get-post");
+        MethodPathPatternIndex<String> index = new MethodPathPatternIndex<>(values, v -> ofArray("/users"), METHODS::get);
+        assertEquals(4, index.size());
+        assertFalse(index.isEmpty());
+        assertEquals("post", index.get(1));
+
+        assertEquals(values, index.getIndex().getCandidates("/users"));
+        assertEquals(ofList("get", "any", "get-post"), index.getIndex("GET").getCandidates("/users"));
+        assertEquals(ofList("get", "any", "get-post"), index.getIndex("HEAD").getCandidates("/users"));
+        assertEquals(ofList("post", "any", "get-post"), index.getIndex("POST").getCandidates("/users"));
+        assertEquals(ofList("any"), index.getIndex("DELETE").getCandidates("/users"));
+        assertSame(index.getIndex(), index.getIndex("PROPFIND"));
+        assertSame(index.getIndex(), index.getIndex(null));
+    }
+
+    @Test
+    void testGetIndexWithoutMethods() {
+        MethodPathPatternIndex<String> index = new MethodPathPatternIndex<>(ofList("a", "b"), v -> ofArray("/" + v), v -> emptySet());
+        for (RequestMethod requestMethod : RequestMethod.values()) {
+            assertSame(index.getIndex(), index.getIndex(requestMethod.name()));
+        }
+    }
+
+    @Test
+    void testAccepts() {
+        assertTrue(accepts(emptySet(), DELETE));
+        assertTrue(accepts(Set.of(GET), GET));
+        assertTrue(accepts(Set.of(GET), HEAD));
+        assertFalse(accepts(Set.of(HEAD), GET));
+        assertFalse(accepts(Set.of(POST), GET));
+    }
+
+    @Test
+    void testMask() {
+        short anyMask = mask(emptySet());
+        for (RequestMethod requestMethod : RequestMethod.values()) {
+            assertTrue((anyMask & bit(requestMethod)) != 0);
+        }
+        assertEquals(bit(GET) | bit(HEAD), mask(Set.of(GET)));
+        assertEquals(bit(HEAD), mask(Set.of(HEAD)));
+        assertEquals(bit(POST) | bit(DELETE), mask(Set.of(POST, DELETE)));
+    }
+}
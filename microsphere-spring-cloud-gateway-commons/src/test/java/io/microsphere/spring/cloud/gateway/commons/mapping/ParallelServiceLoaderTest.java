@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_PARALLELISM_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.ParallelServiceLoader.of;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ParallelServiceLoader} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ParallelServiceLoader
+ * @since 1.0.0
+ */
+class ParallelServiceLoaderTest {
+
+    private ParallelServiceLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        this.loader = new ParallelServiceLoader(2, ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.loader.shutdown();
+    }
+
+    @Test
+    void testLoad() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Map<String, String> values = this.loader.load(ofList("a", "b", "c", "d", "a"), service -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return service.toUpperCase();
+        }, service -> null).join();
+        assertEquals(ofList("a", "b", "c", "d"), new ArrayList<>(values.keySet()));
+        assertEquals("A", values.get("a"));
+        assertEquals("D", values.get("d"));
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void testLoadOnTimeoutAndFailure() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        Map<String, String> values = this.loader.load(ofList("slow", "failed", "normal", "absent"), service -> {
+            switch (service) {
+                case "slow":
+                    await(latch);
+                    return "new";
+                case "normal":
+                    return "new";
+                default:
+                    throw new IllegalStateException("For testing");
+            }
+        }, service -> "absent".equals(service) ? null : "previous").join();
+        latch.countDown();
+        assertEquals("previous", values.get("slow"));
+        assertEquals("previous", values.get("failed"));
+        assertEquals("new", values.get("normal"));
+        assertFalse(values.containsKey("absent"));
+
+        // The loader was shutdown
+        this.loader.shutdown();
+        values = this.loader.load(ofList("normal"), service -> "new", service -> "previous").join();
+        assertEquals("previous", values.get("normal"));
+    }
+
+    @Test
+    void testOf() {
+        ParallelServiceLoader loader = of(null);
+        assertEquals(8, loader.getParallelism());
+        assertEquals(ofSeconds(10), loader.getTimeout());
+
+        MockEnvironment environment = new MockEnvironment();
+        assertTrue(loader.hasSameSettings(of(environment)));
+        assertTrue(loader.hasSameSettings(environment));
+
+        environment.setProperty(REFRESH_PARALLELISM_PROPERTY_NAME, "0");
+        environment.setProperty(REFRESH_TIMEOUT_PROPERTY_NAME, "100");
+        assertFalse(loader.hasSameSettings(environment));
+        ParallelServiceLoader other = of(environment);
+        assertTrue(other.hasSameSettings(environment));
+        assertEquals(1, other.getParallelism());
+        assertEquals(ofMillis(100), other.getTimeout());
+        assertFalse(loader.hasSameSettings(other));
+        loader.shutdown();
+        other.shutdown();
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
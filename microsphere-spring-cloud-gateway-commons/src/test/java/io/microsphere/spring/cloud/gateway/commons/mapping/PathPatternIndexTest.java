@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.Collection;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.PathPatternIndex.isCatchAllSegment;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.PathPatternIndex.isLiteralSegment;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.PathPatternIndex.splitPattern;
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.server.PathContainer.parsePath;
+import static org.springframework.web.util.pattern.PathPatternParser.defaultInstance;
+
+/**
+ * {@link PathPatternIndex} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see PathPatternIndex
+ * @since 1.0.0
+ */
+class PathPatternIndexTest {
+
+    static final String[] PATTERNS = ofArray(
+            "/test/helloworld",
+            "/test/user/{id}",
+            "/test/user/{id}/orders",
+            "/test/*.json",
+            "/test/**",
+            "/static/{*path}",
+            "/api/{version:v\\d+}/users",
+            "/",
+            "/a/b?c"
+    );
+
+    static final String[] PATHS = ofArray(
+            "/test/helloworld",
+            "/test/helloworld/",
+            "/test/user/1",
+            "/test/user/1/orders",
+            "/test/user/1/orders/2",
+            "/test/a.json",
+            "/test",
+            "/static",
+            "/static/js/app.js",
+            "/api/v1/users",
+            "/api/v1/users/1",
+            "/",
+            "",
+            "/a/bxc",
+            "/a%20b/c",
+            "/test;a=b/helloworld",
+            "/not-found"
+    );
+
+    private PathPatternIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        this.index = new PathPatternIndex<>();
+        for (String pattern : PATTERNS) {
+            this.index.add(pattern, pattern);
+        }
+    }
+
+    @Test
+    void testGetCandidatesIsSupersetOfMatches() {
+        for (String path : PATHS) {
+            PathContainer pathContainer = parsePath(path);
+            Collection<String> candidates = this.index.getCandidates(pathContainer);
+            for (String pattern : PATTERNS) {
+                PathPattern pathPattern = defaultInstance.parse(pattern);
+                if (pathPattern.matches(pathContainer)) {
+                    assertTrue(candidates.contains(pattern), () -> "The pattern '" + pattern + "' must be the candidate of '" + path + "'");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGetCandidates() {
+        Collection<String> candidates = this.index.getCandidates("/test/user/1");
+        assertTrue(candidates.contains("/test/user/{id}"));
+        assertTrue(candidates.contains("/test/**"));
+        assertFalse(candidates.contains("/test/*.json"));
+        assertFalse(candidates.contains("/test/helloworld"));
+        assertFalse(candidates.contains("/test/user/{id}/orders"));
+        assertFalse(candidates.contains("/static/{*path}"));
+
+        assertTrue(this.index.getCandidates("/not-found").isEmpty());
+
+        this.index.add("/api/{path:.+/.+}", "fallback");
+        assertEquals(ofList("fallback"), this.index.getCandidates("/not-found"));
+    }
+
+    @Test
+    void testAddWithoutPatterns() {
+        PathPatternIndex<String> index = new PathPatternIndex<>();
+        assertTrue(index.isEmpty());
+        index.add((String[]) null, "null");
+        index.add(new String[0], "empty");
+        index.add(ofArray("/a", "/b"), "a-b");
+        assertEquals(3, index.size());
+        assertFalse(index.isEmpty());
+        assertEquals(ofList("null", "empty", "a-b"), index.getCandidates("/b"));
+        assertEquals("a-b", index.get(2));
+    }
+
+    @Test
+    void testGetFirstMatch() {
+        PathContainer path = parsePath("/test/user/1");
+        assertEquals(ofList("/test/user/{id}", "/test/**"), this.index.getCandidates(path));
+        assertEquals("/test/user/{id}", this.index.getFirstMatch(path, null, (pattern, p, r) -> defaultInstance.parse(pattern).matches(p)));
+        assertEquals("/test/**", this.index.getFirstMatch(path, "**", (pattern, p, r) -> pattern.endsWith(r)));
+        assertNull(this.index.getFirstMatch(path, null, (pattern, p, r) -> false));
+        assertNull(this.index.getFirstMatch(parsePath("/not-found"), null, (pattern, p, r) -> true));
+
+        // The lower rank wins even if it's in the other node
+        PathPatternIndex<String> index = new PathPatternIndex<>();
+        index.add("/a/**", "catch-all");
+        index.add("/a/b", "literal");
+        assertEquals("catch-all", index.getFirstMatch(parsePath("/a/b"), null, (v, p, r) -> true));
+        assertEquals("literal", index.getFirstMatch(parsePath("/a/b"), null, (v, p, r) -> v.equals("literal")));
+    }
+
+    @Test
+    void testView() {
+        PathPatternIndex<String> index = new PathPatternIndex<>();
+        index.add("/a/**", "a");
+        index.add("/a/b", "b");
+        index.add("/a/{c}", "c");
+        index.trimToSize();
+        short[] flags = {1, 2, 3};
+
+        PathPatternIndex<String> view = new PathPatternIndex<>(index, flags, 2);
+        assertEquals(2, view.size());
+        assertFalse(view.isEmpty());
+        assertEquals(ofList("b", "c"), view.getCandidates("/a/b"));
+        assertEquals("b", view.getFirstMatch(parsePath("/a/b"), null, (v, p, r) -> true));
+        assertEquals("c", view.get(2));
+        assertNull(view.getFirstMatch(parsePath("/a/b/c"), null, (v, p, r) -> true));
+        assertThrows(UnsupportedOperationException.class, () -> view.add("/d", "d"));
+
+        assertTrue(new PathPatternIndex<>(index, flags, 4).isEmpty());
+        assertEquals(ofList("a", "b", "c"), index.getCandidates("/a/b"));
+    }
+
+    @Test
+    void testSplitPattern() {
+        assertEquals(ofList("a", "{b}", "c"), splitPattern("/a/{b}//c/"));
+        assertEquals(ofList("{id:\\d{3}}"), splitPattern("{id:\\d{3}}"));
+        assertNull(splitPattern("/a/{path:.+/.+}"));
+    }
+
+    @Test
+    void testSegmentTypes() {
+        assertTrue(isCatchAllSegment("**"));
+        assertTrue(isCatchAllSegment("{*path}"));
+        assertFalse(isCatchAllSegment("*"));
+        assertTrue(isLiteralSegment("abc"));
+        assertFalse(isLiteralSegment("a?c"));
+        assertFalse(isLiteralSegment("*.json"));
+        assertFalse(isLiteralSegment("{id}"));
+    }
+}
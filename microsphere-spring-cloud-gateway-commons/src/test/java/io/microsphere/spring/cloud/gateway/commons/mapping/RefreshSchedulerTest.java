@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.spring.cloud.gateway.commons.mapping.RefreshScheduler.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_MAX_DELAY_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_QUIET_PERIOD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.RefreshScheduler.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link RefreshScheduler} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RefreshScheduler
+ * @since 1.0.0
+ */
+class RefreshSchedulerTest {
+
+    @Test
+    void testScheduleImmediately() {
+        Statistics statistics = new Statistics();
+        RefreshScheduler scheduler = of(null, statistics);
+        assertFalse(scheduler.isEnabled());
+        List<String> refreshes = new CopyOnWriteArrayList<>();
+        scheduler.schedule("a", () -> refreshes.add("a-1"));
+        scheduler.schedule("a", () -> {
+            throw new IllegalStateException("For testing");
+        });
+        scheduler.schedule("a", () -> refreshes.add("a-2"));
+        assertEquals(ofList("a-1", "a-2"), refreshes);
+        assertEquals(3, statistics.getEventCount());
+        assertEquals(0, statistics.getCoalescedCount());
+        assertEquals(3, statistics.getRefreshCount());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testScheduleWithCoalescing() throws InterruptedException {
+        Statistics statistics = new Statistics();
+        RefreshScheduler scheduler = new RefreshScheduler(100, 5000, statistics);
+        assertTrue(scheduler.isEnabled());
+        List<String> refreshes = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        for (int i = 1; i <= 5; i++) {
+            String refresh = "a-" + i;
+            scheduler.schedule("a", () -> {
+                refreshes.add(refresh);
+                latch.countDown();
+            });
+        }
+        scheduler.schedule("b", () -> {
+            refreshes.add("b-1");
+            latch.countDown();
+        });
+        assertEquals(2, scheduler.getPendingCount());
+        assertTrue(latch.await(5, SECONDS));
+        // Only the last pending refresh of the key runs
+        assertEquals(2, refreshes.size());
+        assertTrue(refreshes.contains("a-5"));
+        assertTrue(refreshes.contains("b-1"));
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(6, statistics.getEventCount());
+        assertEquals(4, statistics.getCoalescedCount());
+        assertEquals(2, statistics.getRefreshCount());
+
+        // The refreshes run immediately after shutdown
+        scheduler.shutdown();
+        scheduler.schedule("a", () -> refreshes.add("a-6"));
+        assertEquals("a-6", refreshes.get(2));
+    }
+
+    @Test
+    void testScheduleWithMaxDelay() throws InterruptedException {
+        Statistics statistics = new Statistics();
+        RefreshScheduler scheduler = new RefreshScheduler(200, 300, statistics);
+        CountDownLatch latch = new CountDownLatch(1);
+        long startTime = System.currentTimeMillis();
+        // The events keep arriving within the quiet period
+        while (latch.getCount() > 0 && System.currentTimeMillis() - startTime < 5000) {
+            scheduler.schedule("a", latch::countDown);
+            Thread.sleep(50);
+        }
+        assertEquals(0, latch.getCount());
+        assertTrue(statistics.getCoalescedCount() > 0);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testOf() {
+        Statistics statistics = new Statistics();
+        RefreshScheduler scheduler = of(null, statistics);
+        assertEquals(0, scheduler.getQuietPeriod());
+        assertEquals(5000, scheduler.getMaxDelay());
+
+        MockEnvironment environment = new MockEnvironment();
+        assertTrue(scheduler.hasSameSettings(of(environment, statistics)));
+        assertTrue(scheduler.hasSameSettings(environment));
+
+        environment.setProperty(REFRESH_QUIET_PERIOD_PROPERTY_NAME, "1000");
+        environment.setProperty(REFRESH_MAX_DELAY_PROPERTY_NAME, "500");
+        assertFalse(scheduler.hasSameSettings(environment));
+        RefreshScheduler other = of(environment, statistics);
+        assertTrue(other.hasSameSettings(environment));
+        assertEquals(1000, other.getQuietPeriod());
+        // The max delay is never less than the quiet period
+        assertEquals(1000, other.getMaxDelay());
+        assertFalse(scheduler.hasSameSettings(other));
+        assertTrue(statistics.toString().contains("coalescedCount=0"));
+        other.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.Mapping;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+/**
+ * {@link RequestMappingInterner} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingInterner
+ * @since 1.0.0
+ */
+class RequestMappingInternerTest {
+
+    private RequestMappingInterner<String> interner;
+
+    private AtomicInteger counter;
+
+    @BeforeEach
+    void setUp() {
+        this.interner = new RequestMappingInterner<>();
+        this.counter = new AtomicInteger();
+    }
+
+    @Test
+    void testInternWebEndpointMapping() {
+        WebEndpointMapping actuator = WebEndpointMapping.webflux().endpoint("a").patterns("/actuator/health", "/actuator")
+                .methods("GET", "POST").headers("X-A").build();
+        // The different endpoint and the different orders of the expressions
+        WebEndpointMapping sameActuator = WebEndpointMapping.webflux().endpoint("b").patterns("/actuator", "/actuator/health")
+                .methods("POST", "GET").headers("X-A").build();
+        WebEndpointMapping error = WebEndpointMapping.webflux().endpoint("c").patterns("/error").build();
+
+        String value = this.interner.intern(actuator, this::newValue);
+        assertSame(value, this.interner.intern(sameActuator, this::newValue));
+        assertNotSame(value, this.interner.intern(error, this::newValue));
+        assertEquals(2, this.counter.get());
+        assertEquals(2, this.interner.size());
+
+        this.interner.clear();
+        assertEquals(0, this.interner.size());
+        assertNotSame(value, this.interner.intern(actuator, this::newValue));
+    }
+
+    @Test
+    void testInternMapping() {
+        Mapping mapping = new Mapping();
+        mapping.setPatterns(ofArray("/swagger-ui/**", "/v3/api-docs"));
+        mapping.setMethods(ofArray(GET, POST));
+
+        Mapping sameMapping = new Mapping();
+        sameMapping.setPatterns(ofArray("/v3/api-docs", "/swagger-ui/**"));
+        sameMapping.setMethods(ofArray(POST, GET));
+        sameMapping.setParams(new String[0]);
+
+        String value = this.interner.intern(mapping, this::newValue);
+        assertSame(value, this.interner.intern(sameMapping, this::newValue));
+
+        // The WebEndpointMapping with the same conditions shares the value
+        WebEndpointMapping webEndpointMapping = WebEndpointMapping.webflux().endpoint("swagger")
+                .patterns("/swagger-ui/**", "/v3/api-docs").methods("GET", "POST").build();
+        assertSame(value, this.interner.intern(webEndpointMapping, this::newValue));
+        assertEquals(1, this.counter.get());
+    }
+
+    private String newValue(Object source) {
+        return "value-" + this.counter.incrementAndGet();
+    }
+}
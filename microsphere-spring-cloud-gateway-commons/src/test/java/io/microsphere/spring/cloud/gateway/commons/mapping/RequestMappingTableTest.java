@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.server.PathContainer.parsePath;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+import static org.springframework.web.util.pattern.PathPatternParser.defaultInstance;
+
+/**
+ * {@link RequestMappingTable} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingTable
+ * @since 1.0.0
+ */
+class RequestMappingTableTest {
+
+    private final TestRequestMappingContext any = new TestRequestMappingContext(1, "/**", emptySet(), null, null);
+
+    private final TestRequestMappingContext user = new TestRequestMappingContext(2, "/users/{id}", emptySet(), null, null);
+
+    private final TestRequestMappingContext me = new TestRequestMappingContext(3, "/users/me", emptySet(), null, null);
+
+    private final TestRequestMappingContext createUser = new TestRequestMappingContext(4, "/users", Set.of(POST), null, null);
+
+    private final TestRequestMappingContext debugUser = new TestRequestMappingContext(5, "/users/{id}", emptySet(), "debug", null);
+
+    @Test
+    void testMatch() {
+        RequestMappingTable<TestRequestMappingContext, TestMatchingRequest> table =
+                new RequestMappingTable<>(ofList(any, user, me, createUser, debugUser), new MatchingResultCache<>(0));
+        assertEquals(5, table.size());
+        assertFalse(table.isEmpty());
+        assertSame(me, table.get(0));
+        assertSame(any, table.get(table.size() - 1));
+
+        assertSame(me, table.match(request("GET", "/users/me")));
+        assertSame(user, table.match(request("GET", "/users/1")));
+        assertSame(debugUser, table.match(request("GET", "/users/1", Map.of("debug", ofList("true")), emptyMap())));
+        assertSame(createUser, table.match(request("POST", "/users")));
+        assertSame(any, table.match(request("GET", "/users")));
+        assertTrue(table.anyMatch(request("GET", "/orders")));
+
+        table = new RequestMappingTable<>(ofList(user, createUser), new MatchingResultCache<>(0));
+        assertNull(table.match(request("GET", "/users")));
+        assertFalse(table.anyMatch(request("GET", "/users")));
+        assertFalse(new RequestMappingTable<TestRequestMappingContext, TestMatchingRequest>(emptyList(), new MatchingResultCache<>(0)).anyMatch(null));
+    }
+
+    @Test
+    void testRequestDependentTies() {
+        TestRequestMappingContext json = new TestRequestMappingContext(6, "/users", emptySet(), null, "json");
+        TestRequestMappingContext text = new TestRequestMappingContext(7, "/users", emptySet(), null, "text");
+        RequestMappingTable<TestRequestMappingContext, TestMatchingRequest> table =
+                new RequestMappingTable<>(ofList(json, text, any), new MatchingResultCache<>(0));
+        assertEquals(0, table.get(0).getRank());
+        assertEquals(2, table.get(0).getTieEnd());
+        assertEquals(3, table.get(2).getTieEnd());
+
+        assertSame(text, table.match(request("GET", "/users", emptyMap(), Map.of(ACCEPT, ofList("text", "json")))));
+        assertSame(json, table.match(request("GET", "/users", emptyMap(), Map.of(ACCEPT, ofList("json", "text")))));
+        assertSame(any, table.match(request("GET", "/users", emptyMap(), Map.of(ACCEPT, ofList("xml")))));
+
+        // sorting all matches
+        table = new RequestMappingTable<>(ofList(json, text, any), new MatchingResultCache<>(0), request -> true);
+        assertSame(text, table.match(request("GET", "/users", emptyMap(), Map.of(ACCEPT, ofList("text", "json")))));
+    }
+
+    @Test
+    void testGetMatchingRequestMappingContext() {
+        Statistics statistics = new Statistics();
+        RequestMappingTable<TestRequestMappingContext, TestMatchingRequest> table =
+                new RequestMappingTable<>(ofList(any, user, me, debugUser), new MatchingResultCache<>(16, statistics));
+        assertArrayEquals(ofArray("debug"), table.getKeyTemplate().getParamNames());
+        assertArrayEquals(new String[0], table.getKeyTemplate().getHeaderNames());
+
+        assertSame(user, table.getMatchingRequestMappingContext(request("GET", "/users/1", Map.of("other", ofList("1")), emptyMap())));
+        assertSame(user, table.getMatchingRequestMappingContext(request("GET", "/users/1", Map.of("other", ofList("2")), emptyMap())));
+        assertSame(debugUser, table.getMatchingRequestMappingContext(request("GET", "/users/1", Map.of("debug", ofList("")), emptyMap())));
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+        assertEquals(2, table.getCache().size());
+    }
+
+    static TestMatchingRequest request(String method, String path) {
+        return request(method, path, emptyMap(), emptyMap());
+    }
+
+    static TestMatchingRequest request(String method, String path, Map<String, List<String>> params, Map<String, List<String>> headers) {
+        return new TestMatchingRequest(method, parsePath(path), params, headers);
+    }
+
+    record TestMatchingRequest(String method, PathContainer path, Map<String, List<String>> params,
+                               Map<String, List<String>> headers) implements MatchingRequest {
+
+        @Override
+        public String getMethod() {
+            return this.method;
+        }
+
+        @Override
+        public PathContainer getPath() {
+            return this.path;
+        }
+
+        @Override
+        public List<String> getParameterValues(String name) {
+            return this.params.get(name);
+        }
+
+        @Override
+        public List<String> getHeaderValues(String name) {
+            return this.headers.get(name);
+        }
+
+        @Override
+        public boolean isPreFlight() {
+            return false;
+        }
+    }
+
+    /**
+     * The {@link AbstractRequestMappingContext} with a pattern, the methods, a required parameter and a produced value
+     */
+    static class TestRequestMappingContext extends AbstractRequestMappingContext<TestRequestMappingContext, TestMatchingRequest> {
+
+        private final PathPattern pattern;
+
+        private final Set<RequestMethod> methods;
+
+        private final String param;
+
+        private final String produces;
+
+        TestRequestMappingContext(int id, String pattern, Set<RequestMethod> methods, String param, String produces) {
+            super(id, ofArray(pattern));
+            this.pattern = defaultInstance.parse(pattern);
+            this.methods = methods;
+            this.param = param;
+            this.produces = produces;
+        }
+
+        @Override
+        public Set<RequestMethod> getMethods() {
+            return this.methods;
+        }
+
+        @Override
+        public Collection<String> getParamNames() {
+            return this.param == null ? emptyList() : ofList(this.param);
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return emptyList();
+        }
+
+        @Override
+        public boolean hasConsumes() {
+            return false;
+        }
+
+        @Override
+        public boolean hasProduces() {
+            return this.produces != null;
+        }
+
+        @Override
+        public boolean matches(TestMatchingRequest request) {
+            return (this.methods.isEmpty() || this.methods.contains(RequestMethod.valueOf(request.getMethod())))
+                    && this.pattern.matches(request.getPath())
+                    && (this.param == null || request.getParameterValues(this.param) != null)
+                    && (this.produces == null || acceptIndex(request) >= 0);
+        }
+
+        private int acceptIndex(TestMatchingRequest request) {
+            List<String> accept = request.getHeaderValues(ACCEPT);
+            return accept == null ? -1 : accept.indexOf(this.produces);
+        }
+
+        @Override
+        public int compareTo(TestRequestMappingContext other, TestMatchingRequest request) {
+            int result = compareToRequestIndependently(other);
+            if (result != 0) {
+                return result;
+            }
+            if (hasProduces() && other.hasProduces()) {
+                result = Integer.compare(acceptIndex(request), other.acceptIndex(request));
+            }
+            return result == 0 ? Boolean.compare(this.methods.isEmpty(), other.methods.isEmpty()) : result;
+        }
+
+        @Override
+        public int compareTo(TestRequestMappingContext other) {
+            int result = compareToRequestIndependently(other);
+            return result == 0 ? Boolean.compare(this.methods.isEmpty(), other.methods.isEmpty()) : result;
+        }
+
+        @Override
+        public int compareToRequestIndependently(TestRequestMappingContext other) {
+            int result = PathPattern.SPECIFICITY_COMPARATOR.compare(this.pattern, other.pattern);
+            return result == 0 ? Boolean.compare(this.param == null, other.param == null) : result;
+        }
+    }
+}
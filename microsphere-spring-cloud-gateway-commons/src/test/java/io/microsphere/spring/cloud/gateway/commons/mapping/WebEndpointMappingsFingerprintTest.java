@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_MAPPINGS_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsFingerprint.getPayload;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsFingerprint.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link WebEndpointMappingsFingerprint} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingsFingerprint
+ * @since 1.0.0
+ */
+class WebEndpointMappingsFingerprintTest {
+
+    @Test
+    void testEquals() {
+        WebEndpointMappingsFingerprint fingerprint = of(ofList(createServiceInstance("a", "[1]"), createServiceInstance("b", "[2]")));
+        assertFalse(fingerprint.isEmpty());
+        assertEquals(fingerprint, fingerprint);
+        // The scale-up with the same payloads
+        WebEndpointMappingsFingerprint scaled = of(ofList(createServiceInstance("c", "[2]"), createServiceInstance("d", "[1]"),
+                createServiceInstance("e", "[1]")));
+        assertEquals(fingerprint, scaled);
+        assertEquals(fingerprint.hashCode(), scaled.hashCode());
+
+        assertNotEquals(fingerprint, of(ofList(createServiceInstance("a", "[1]"))));
+        assertNotEquals(fingerprint, of(ofList(createServiceInstance("a", "[1]"), createServiceInstance("b", "[3]"))));
+        assertNotEquals(fingerprint, null);
+        assertTrue(of(ofList()).isEmpty());
+        assertTrue(fingerprint.toString().contains("payloads=2"));
+    }
+
+    @Test
+    void testGetWebEndpointMappings() {
+        ServiceInstance a = createServiceInstance("a", "[]");
+        ServiceInstance b = createServiceInstance("b", "[]");
+        WebEndpointMappingsFingerprint fingerprint = of(ofList(a, b));
+        // parsed only once per payload
+        assertSame(fingerprint.getWebEndpointMappings(a), fingerprint.getWebEndpointMappings(b));
+    }
+
+    @Test
+    void testGetPayload() {
+        assertEquals("[1]", getPayload(createServiceInstance("a", "[1]")));
+        assertEquals("", getPayload(createServiceInstance("a", null)));
+    }
+
+    static ServiceInstance createServiceInstance(String host, String payload) {
+        DefaultServiceInstance serviceInstance = new DefaultServiceInstance(host, "test-app", host, 8080, false);
+        if (payload != null) {
+            serviceInstance.getMetadata().put(WEB_MAPPINGS_METADATA_NAME, payload);
+        }
+        return serviceInstance;
+    }
+}
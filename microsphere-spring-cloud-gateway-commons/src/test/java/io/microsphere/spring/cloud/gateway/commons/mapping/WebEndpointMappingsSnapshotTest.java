@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.commons.mapping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_MAPPINGS_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SNAPSHOT_FILE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsSnapshot.NONE;
+import static io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsSnapshot.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link WebEndpointMappingsSnapshot} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingsSnapshot
+ * @since 1.0.0
+ */
+class WebEndpointMappingsSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSaveAndLoad() {
+        WebEndpointMappingsSnapshot snapshot = new WebEndpointMappingsSnapshot(this.directory.resolve("snapshot/mappings.bin"));
+        assertTrue(snapshot.isEnabled());
+        assertTrue(snapshot.load().isEmpty());
+
+        DefaultServiceInstance a = createServiceInstance("a", "[1]");
+        a.getMetadata().put("zone", "zone-a");
+        DefaultServiceInstance b = createServiceInstance("b", "[1]");
+        b.setInstanceId(null);
+        DefaultServiceInstance c = createServiceInstance("c", null);
+        Map<String, List<ServiceInstance>> servicesInstances = new LinkedHashMap<>();
+        servicesInstances.put("test-app", ofList(a, b, c));
+        servicesInstances.put("other-app", ofList());
+        snapshot.save(servicesInstances);
+
+        Map<String, List<ServiceInstance>> loaded = snapshot.load();
+        assertEquals(ofList("test-app", "other-app"), ofList(loaded.keySet().toArray(new String[0])));
+        List<ServiceInstance> serviceInstances = loaded.get("test-app");
+        assertEquals(3, serviceInstances.size());
+        ServiceInstance serviceInstance = serviceInstances.get(0);
+        assertEquals("a", serviceInstance.getInstanceId());
+        assertEquals("test-app", serviceInstance.getServiceId());
+        assertEquals("a", serviceInstance.getHost());
+        assertEquals(8080, serviceInstance.getPort());
+        assertFalse(serviceInstance.isSecure());
+        assertEquals(a.getMetadata(), serviceInstance.getMetadata());
+        assertNull(serviceInstances.get(1).getInstanceId());
+        assertEquals("[1]", serviceInstances.get(1).getMetadata().get(WEB_MAPPINGS_METADATA_NAME));
+        assertTrue(serviceInstances.get(2).getMetadata().isEmpty());
+        assertTrue(loaded.get("other-app").isEmpty());
+        assertEquals(WebEndpointMappingsFingerprint.of(ofList(a, b, c)), WebEndpointMappingsFingerprint.of(serviceInstances));
+    }
+
+    @Test
+    void testLoadCorrupted() throws IOException {
+        Path file = this.directory.resolve("mappings.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertTrue(new WebEndpointMappingsSnapshot(file).load().isEmpty());
+    }
+
+    @Test
+    void testDisabled() {
+        assertFalse(NONE.isEnabled());
+        assertNull(NONE.getFile());
+        assertTrue(NONE.load().isEmpty());
+        NONE.save(new LinkedHashMap<>());
+    }
+
+    @Test
+    void testOf() {
+        assertSame(NONE, of(null));
+        MockEnvironment environment = new MockEnvironment();
+        assertSame(NONE, of(environment));
+        environment.setProperty(SNAPSHOT_FILE_PROPERTY_NAME, " ");
+        assertSame(NONE, of(environment));
+        environment.setProperty(SNAPSHOT_FILE_PROPERTY_NAME, "mappings.bin");
+        assertEquals(Path.of("mappings.bin"), of(environment).getFile());
+    }
+
+    static DefaultServiceInstance createServiceInstance(String host, String payload) {
+        DefaultServiceInstance serviceInstance = new DefaultServiceInstance(host, "test-app", host, 8080, false);
+        if (payload != null) {
+            serviceInstance.getMetadata().put(WEB_MAPPINGS_METADATA_NAME, payload);
+        }
+        return serviceInstance;
+    }
+}
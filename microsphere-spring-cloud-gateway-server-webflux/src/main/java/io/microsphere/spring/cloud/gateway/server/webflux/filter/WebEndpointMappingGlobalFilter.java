@@ -16,15 +16,37 @@
  */
 package io.microsphere.spring.cloud.gateway.server.webflux.filter;
 
+import io.microsphere.annotation.Nullable;
 import io.microsphere.logging.Logger;
 import io.microsphere.spring.cloud.client.event.ServiceInstancesChangedEvent;
 import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig;
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.HashPolicy;
 import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.Mapping;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashSelector;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.ServiceInstanceBaseURI;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.SlowStartFilter;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter;
+import io.microsphere.spring.cloud.gateway.commons.mapping.AbstractRequestMappingContext;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingRequest;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import io.microsphere.spring.cloud.gateway.commons.mapping.ParallelServiceLoader;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RefreshScheduler;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingInterner;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsFingerprint;
+import io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsSnapshot;
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.LeastLoadedServiceInstanceLoadBalancer;
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.ServiceInstanceLoadStatistics;
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.ServiceInstanceLoadStatistics.Load;
 import io.microsphere.spring.web.metadata.WebEndpointMapping;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
 import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.gateway.config.GatewayProperties;
@@ -36,6 +58,7 @@ import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -45,57 +68,90 @@ import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.PathContainer.Element;
+import org.springframework.http.server.PathContainer.PathSegment;
 import org.springframework.http.server.RequestPath;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.reactive.result.condition.NameValueExpression;
 import org.springframework.web.reactive.result.method.RequestMappingInfo;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPattern.PathMatchInfo;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static io.microsphere.collection.ListUtils.first;
-import static io.microsphere.collection.ListUtils.newArrayList;
+import static io.microsphere.constants.PathConstants.SLASH;
 import static io.microsphere.constants.PathConstants.SLASH_CHAR;
 import static io.microsphere.lang.function.Streams.filterFirst;
 import static io.microsphere.logging.LoggerFactory.getLogger;
 import static io.microsphere.net.URLUtils.buildURI;
 import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_CONTEXT_PATH_METADATA_NAME;
-import static io.microsphere.spring.cloud.client.service.util.ServiceInstanceUtils.getUriString;
 import static io.microsphere.spring.cloud.client.service.util.ServiceInstanceUtils.getWebEndpointMappings;
 import static io.microsphere.spring.cloud.gateway.commons.config.ConfigUtils.getWebEndpointConfig;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonConstants.APPLICATION_NAME_URI_TEMPLATE_VARIABLE_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.CHOOSE_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_CHOOSE_TIMEOUT;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LATENCY_DECAY_TIME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LEAST_LOADED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_LOAD_BALANCER_DELEGATED;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_MATCHING_CACHE_MAX_SIZE;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LATENCY_DECAY_TIME_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LEAST_LOADED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_DELEGATED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ALL_SERVICES;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ID_KEY;
+import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.LOAD_BALANCER_SCHEME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.SCHEME;
-import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.WEB_ENDPOINT_REWRITE_PATH_ATTRIBUTE_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.EMPTY;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.getInstanceKey;
 import static io.microsphere.spring.cloud.gateway.server.webflux.constants.GatewayPropertyConstants.GATEWAY_ROUTES_PROPERTY_NAME_PREFIX;
-import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.RequestMappingContext.buildRequestMappingInfo;
 import static io.microsphere.spring.cloud.gateway.server.webflux.util.GatewayUtils.isSuccessRouteLocatorEvent;
 import static io.microsphere.spring.web.metadata.WebEndpointMapping.ID_HEADER_NAME;
 import static io.microsphere.spring.web.util.MonoUtils.getValue;
 import static io.microsphere.util.StringUtils.isBlank;
-import static io.microsphere.util.StringUtils.substringAfter;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.nanoTime;
 import static java.lang.String.valueOf;
 import static java.net.URI.create;
+import static java.time.Duration.ofMillis;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.emptySet;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Stream.of;
 import static org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.getUriTemplateVariables;
 import static org.springframework.util.CollectionUtils.isEmpty;
 import static org.springframework.util.StringUtils.commaDelimitedListToSet;
+import static org.springframework.web.cors.reactive.CorsUtils.isPreFlightRequest;
 import static org.springframework.web.reactive.result.method.RequestMappingInfo.paths;
+import static reactor.core.scheduler.Schedulers.boundedElastic;
+import static reactor.core.scheduler.Schedulers.isInNonBlockingThread;
 
 /**
  * {@link WebEndpointMapping}  {@link GlobalFilter}
@@ -109,6 +165,11 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
 
     private static final Logger logger = getLogger(WebEndpointMappingGlobalFilter.class);
 
+    /**
+     * The key of the full refresh in the {@link RefreshScheduler}
+     */
+    static final String FULL_REFRESH_KEY = "*";
+
     private final DiscoveryClient discoveryClient;
 
     private final LoadBalancerClientFactory clientFactory;
@@ -119,9 +180,150 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
 
     private Environment environment;
 
-    volatile Map<String, Collection<RequestMappingContext>> routedRequestMappingContextsCache = null;
+    /**
+     * The cache of {@link RequestMappingTable RequestMappingTables} keyed by the route id and then the application name
+     */
+    volatile Map<String, Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>>> routedRequestMappingContextsCache = null;
+
+    /**
+     * The {@link Statistics} of the {@link MatchingResultCache matching result caches} across the refreshes
+     */
+    private final Statistics matchingCacheStatistics = new Statistics();
+
+    /**
+     * The cache of the {@link RequestMappingTable RequestMappingTables} of the excluded mappings keyed by the route id
+     */
+    volatile Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> routedExcludedRequestMappingContextsCache = null;
+
+    /**
+     * The cache of {@link WebEndpointMappingInstanceIndex WebEndpointMappingInstanceIndexes} keyed by the application
+     * name
+     */
+    volatile Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexesCache = null;
+
+    /**
+     * The last built {@link ServiceRequestMappings} keyed by the application name, whose
+     * {@link RequestMappingTable RequestMappingTables} are reused if the {@link WebEndpointMappingsFingerprint
+     * fingerprints} of the mappings are unchanged
+     */
+    final Map<String, ServiceRequestMappings> serviceRequestMappingsCache = new ConcurrentHashMap<>();
+
+    /**
+     * The generation of the refreshes, which is increased by every incremental refresh
+     */
+    private final AtomicLong refreshGeneration = new AtomicLong();
+
+    /**
+     * The generations of the {@link ServiceRequestMappings} swapped into {@link #serviceRequestMappingsCache} keyed by
+     * the application name, guarded by <code>this</code>, thus the full refresh never overwrites the services
+     * refreshed incrementally after it started
+     */
+    private final Map<String, Long> serviceRefreshGenerations = new HashMap<>();
+
+    /**
+     * The cache of the {@link HashPolicy HashPolicies} keyed by the route id
+     */
+    volatile Map<String, HashPolicy> routedHashPoliciesCache = null;
+
+    /**
+     * The {@link RequestMappingInterner} of the {@link RequestMappingInfo RequestMappingInfos} shared by the services
+     * and the routes
+     */
+    private final RequestMappingInterner<RequestMappingInfo> requestMappingInfoInterner = new RequestMappingInterner<>();
+
+    /**
+     * The last chosen {@link ServiceInstance ServiceInstances} keyed by the application name, which are the fallbacks
+     * when the load balancer is timed out or failed
+     */
+    private final Map<String, ServiceInstance> fallbackServiceInstances = new ConcurrentHashMap<>();
+
+    private volatile Duration chooseTimeout = ofMillis(parseLong(DEFAULT_CHOOSE_TIMEOUT));
 
-    volatile Map<String, Collection<RequestMappingInfo>> routedExcludedRequestMappingInfoCache = null;
+    /**
+     * Whether the instance is chosen by the {@link ReactiveLoadBalancerClientFilter} that runs after this filter
+     */
+    private volatile boolean loadBalancerDelegated = parseBoolean(DEFAULT_LOAD_BALANCER_DELEGATED);
+
+    private volatile ZonePreferenceFilter zonePreferenceFilter = ZonePreferenceFilter.NONE;
+
+    /**
+     * The {@link SlowStartFilter} keeping the first-seen times of the instances
+     */
+    private volatile SlowStartFilter slowStartFilter = SlowStartFilter.NONE;
+
+    /**
+     * The {@link OutlierDetector.Statistics} shared by the {@link OutlierDetector OutlierDetectors} across the refreshes
+     */
+    private final OutlierDetector.Statistics outlierStatistics = new OutlierDetector.Statistics();
+
+    /**
+     * The {@link OutlierDetector} tracking the responses routed by this filter
+     */
+    private volatile OutlierDetector outlierDetector = OutlierDetector.NONE;
+
+    /**
+     * The {@link ConsistentHashSelector} of the routes with the {@link HashPolicy}
+     */
+    private final ConsistentHashSelector consistentHashSelector = new ConsistentHashSelector();
+
+    /**
+     * The positions of the round-robin over the filtered instances keyed by the application name
+     */
+    private final Map<String, AtomicInteger> roundRobinPositions = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link ServiceInstanceBaseURI ServiceInstanceBaseURIs} keyed by the instance, which are precomputed when the
+     * instances are changed
+     */
+    private final Map<String, ServiceInstanceBaseURI> serviceInstanceBaseURIs = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the instance is chosen by the {@link LeastLoadedServiceInstanceLoadBalancer}
+     */
+    private volatile boolean leastLoaded = parseBoolean(DEFAULT_LEAST_LOADED);
+
+    /**
+     * The {@link ServiceInstanceLoadStatistics} updated by the requests routed by this filter
+     */
+    private volatile ServiceInstanceLoadStatistics loadStatistics = new ServiceInstanceLoadStatistics(parseLong(DEFAULT_LATENCY_DECAY_TIME));
+
+    /**
+     * The {@link LeastLoadedServiceInstanceLoadBalancer LeastLoadedServiceInstanceLoadBalancers} keyed by the
+     * application name
+     */
+    private final Map<String, ReactorLoadBalancer<ServiceInstance>> leastLoadedLoadBalancers = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link ParallelServiceLoader} building the {@link RequestMappingTable RequestMappingTables} of the services
+     * in parallel on the full refresh
+     */
+    private volatile ParallelServiceLoader parallelServiceLoader = ParallelServiceLoader.of(null);
+
+    /**
+     * The in-flight full refresh, which is disposed by the next one
+     */
+    private final Disposable.Swap refreshing = Disposables.swap();
+
+    /**
+     * The {@link WebEndpointMappingsSnapshot} serving the requests at startup until the first refresh is finished
+     */
+    private volatile WebEndpointMappingsSnapshot snapshot = WebEndpointMappingsSnapshot.NONE;
+
+    /**
+     * The {@link RefreshScheduler.Statistics} of the refresh-triggering events across the refreshes
+     */
+    private final RefreshScheduler.Statistics refreshStatistics = new RefreshScheduler.Statistics();
+
+    /**
+     * The {@link RefreshScheduler} coalescing the refresh-triggering events
+     */
+    private volatile RefreshScheduler refreshScheduler = RefreshScheduler.of(null, this.refreshStatistics);
+
+    /**
+     * Whether the {@link #refreshScheduler} and the {@link #parallelServiceLoader} were created from the
+     * {@link Environment}
+     */
+    private volatile boolean executorsInitialized;
 
     public WebEndpointMappingGlobalFilter(DiscoveryClient discoveryClient,
                                           LoadBalancerClientFactory clientFactory, GatewayProperties gatewayProperties) {
@@ -146,25 +348,148 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
             return chain.filter(exchange);
         }
 
-        RequestMappingContext requestMappingContext = getMatchingRequestMappingContext(applicationName, exchange);
-
-        if (requestMappingContext != null) {
-            // The RequestMappingContext found
-            ServiceInstance serviceInstance = choose(applicationName);
-            if (serviceInstance != null) {
-                String uri = getUriString(serviceInstance);
-                Map<String, Object> attributes = exchange.getAttributes();
-                String rewritePath = (String) attributes.remove(WEB_ENDPOINT_REWRITE_PATH_ATTRIBUTE_NAME);
-                URI targetURI = create(uri + rewritePath);
-                int id = requestMappingContext.id;
-                ServerHttpRequest request = exchange.getRequest()
-                        .mutate()
-                        .header(ID_HEADER_NAME, valueOf(id)).build();
-                attributes.put(GATEWAY_REQUEST_URL_ATTR, targetURI);
-                return chain.filter(exchange.mutate().request(request).build());
+        PathContainer rewritePath = getRewritePath(exchange.getRequest().getPath(), applicationName);
+        RequestMappingContext requestMappingContext = getMatchingRequestMappingContext(applicationName, exchange, rewritePath);
+
+        if (requestMappingContext == null) {
+            return chain.filter(exchange);
+        }
+
+        WebEndpointMappingInstanceIndex instanceIndex = getInstanceIndex(applicationName);
+
+        HashPolicy hashPolicy = getHashPolicy(exchange);
+        String hashKey = hashPolicy == null ? null : hashPolicy.getHashKey(exchange,
+                (e, name) -> e.getRequest().getHeaders().getFirst(name),
+                WebEndpointMappingGlobalFilter::getCookieValue,
+                (e, name) -> requestMappingContext.getPathVariable(rewritePath, name));
+        if (hashKey != null) {
+            // The instance is chosen by the consistent hashing of the request key
+            return choose(applicationName, instanceIndex, requestMappingContext.getId(), hashKey, hashPolicy.getLoadFactor())
+                    .map(serviceInstance -> mutate(exchange, serviceInstance, rewritePath, requestMappingContext))
+                    .defaultIfEmpty(exchange)
+                    .flatMap(mutatedExchange -> filterWithLoad(mutatedExchange, chain));
+        }
+
+        if (this.loadBalancerDelegated && instanceIndex.isServedByAll(requestMappingContext.getId())
+                && !this.outlierDetector.isEjecting(applicationName)) {
+            // The ReactiveLoadBalancerClientFilter chooses the service instance with the LoadBalancerLifecycle callbacks,
+            // and reconstructs the target URI from the URI of request, whose path is rewritten then
+            String rawPath = rewritePath.value();
+            URI targetURI = create(LOAD_BALANCER_SCHEME + "://" + applicationName + rawPath);
+            return filterWithLoad(mutate(exchange, targetURI, rawPath.isEmpty() ? SLASH : rawPath, requestMappingContext), chain);
+        }
+
+        // The RequestMappingContext found, the service instance is chosen in the reactive pipeline without blocking
+        return choose(applicationName, instanceIndex, requestMappingContext.getId())
+                .map(serviceInstance -> mutate(exchange, serviceInstance, rewritePath, requestMappingContext))
+                .defaultIfEmpty(exchange)
+                .flatMap(mutatedExchange -> filterWithLoad(mutatedExchange, chain));
+    }
+
+    private ServerWebExchange mutate(ServerWebExchange exchange, ServiceInstance serviceInstance, PathContainer rewritePath,
+                                     RequestMappingContext requestMappingContext) {
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(serviceInstance));
+        return mutate(exchange, getBaseURI(serviceInstance).resolve(rewritePath.value()), null, requestMappingContext);
+    }
+
+    /**
+     * Get the precomputed {@link ServiceInstanceBaseURI} of {@link ServiceInstance}, created if absent or the address
+     * of instance was changed
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return non-null
+     */
+    ServiceInstanceBaseURI getBaseURI(ServiceInstance serviceInstance) {
+        String instanceKey = getInstanceKey(serviceInstance);
+        ServiceInstanceBaseURI baseURI = this.serviceInstanceBaseURIs.get(instanceKey);
+        if (baseURI == null || !baseURI.matches(serviceInstance)) {
+            baseURI = ServiceInstanceBaseURI.of(serviceInstance);
+            this.serviceInstanceBaseURIs.put(instanceKey, baseURI);
+        }
+        return baseURI;
+    }
+
+    private void precomputeBaseURIs(String serviceName, List<ServiceInstance> serviceInstances) {
+        this.serviceInstanceBaseURIs.values().removeIf(baseURI -> serviceName.equals(baseURI.getServiceId()));
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            this.serviceInstanceBaseURIs.put(getInstanceKey(serviceInstance), ServiceInstanceBaseURI.of(serviceInstance));
+        }
+    }
+
+    /**
+     * Filter the exchange, the in-flight requests and the latency of the chosen instance are recorded into the
+     * {@link ServiceInstanceLoadStatistics} if the least-loaded load balancer is enabled, the in-flight requests are
+     * recorded into the {@link ConsistentHashSelector} if the instances of service are chosen by the consistent
+     * hashing, and the response of the instance is recorded into the {@link OutlierDetector} if enabled
+     *
+     * @param exchange {@link ServerWebExchange}
+     * @param chain    {@link GatewayFilterChain}
+     * @return {@link Mono}
+     */
+    private Mono<Void> filterWithLoad(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosenResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        ServiceInstance chosenServiceInstance = chosenResponse == null ? null : chosenResponse.getServer();
+        ConsistentHashSelector consistentHashSelector = this.consistentHashSelector;
+        ServiceInstance hashedServiceInstance = chosenServiceInstance != null
+                && consistentHashSelector.contains(chosenServiceInstance.getServiceId()) ? chosenServiceInstance : null;
+        Response<ServiceInstance> response = this.leastLoaded ? chosenResponse : null;
+        OutlierDetector outlierDetector = this.outlierDetector;
+        if (response == null && hashedServiceInstance == null && !outlierDetector.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Load load = response == null ? null : this.loadStatistics.getLoad(response.getServer());
+        long startTime = load == null ? nanoTime() : load.begin();
+        if (hashedServiceInstance != null) {
+            consistentHashSelector.begin(hashedServiceInstance);
+        }
+        Runnable end = () -> {
+            if (load != null) {
+                load.end(startTime);
+            }
+            if (hashedServiceInstance != null) {
+                consistentHashSelector.end(hashedServiceInstance);
+            }
+        };
+        // The response is recorded before the termination is propagated to the downstream
+        return chain.filter(exchange).doOnEach(signal -> {
+            if (signal.isOnComplete() || signal.isOnError()) {
+                end.run();
+                if (outlierDetector.isEnabled()) {
+                    recordResponse(outlierDetector, exchange, signal.isOnError(), startTime);
+                }
             }
+        }).doOnCancel(end);
+    }
+
+    /**
+     * Record the response of the chosen instance, which may be chosen by the {@link ReactiveLoadBalancerClientFilter}
+     * after this filter
+     */
+    private void recordResponse(OutlierDetector outlierDetector, ServerWebExchange exchange, boolean failed, long startTime) {
+        Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        ServiceInstance serviceInstance = response == null ? null : response.getServer();
+        if (serviceInstance == null) {
+            return;
         }
-        return chain.filter(exchange);
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = failed ? 0 : statusCode == null ? 200 : statusCode.value();
+        outlierDetector.record(serviceInstance, status, NANOSECONDS.toMillis(nanoTime() - startTime));
+    }
+
+    private ServerWebExchange mutate(ServerWebExchange exchange, URI targetURI, @Nullable String rawPath,
+                                     RequestMappingContext requestMappingContext) {
+        Map<String, Object> attributes = exchange.getAttributes();
+        int id = requestMappingContext.getId();
+        ServerHttpRequest.Builder builder = exchange.getRequest()
+                .mutate()
+                .header(ID_HEADER_NAME, valueOf(id));
+        if (rawPath != null) {
+            // The raw query of request is kept
+            builder.path(rawPath);
+        }
+        ServerHttpRequest request = builder.build();
+        attributes.put(GATEWAY_REQUEST_URL_ATTR, targetURI);
+        return exchange.mutate().request(request).build();
     }
 
     public boolean supportsAsyncExecution() {
@@ -189,7 +514,7 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
         } else if (event instanceof EnvironmentChangeEvent environmentChangeEvent) {
             onEnvironmentChangeEvent(environmentChangeEvent);
         } else {
-            onServiceInstancesChangedEvent();
+            onServiceInstancesChangedEvent((ServiceInstancesChangedEvent) event);
         }
     }
 
@@ -205,8 +530,18 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
 
     @Override
     public void destroy() {
+        this.refreshScheduler.shutdown();
+        this.refreshing.dispose();
+        this.parallelServiceLoader.shutdown();
         clear(this.routedRequestMappingContextsCache);
-        clear(this.routedExcludedRequestMappingInfoCache);
+        clear(this.routedExcludedRequestMappingContextsCache);
+        clear(this.serviceInstanceIndexesCache);
+        clear(this.routedHashPoliciesCache);
+        synchronized (this) {
+            this.serviceRequestMappingsCache.clear();
+            this.serviceRefreshGenerations.clear();
+        }
+        this.serviceInstanceBaseURIs.clear();
     }
 
     @Override
@@ -222,39 +557,303 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
 
     private void onRefreshRoutesResultEvent(RefreshRoutesResultEvent event) {
         if (matchesEvent(event)) {
-            refresh();
+            this.refreshScheduler.schedule(FULL_REFRESH_KEY, this::refresh);
         }
     }
 
     private void onEnvironmentChangeEvent(EnvironmentChangeEvent event) {
+        refreshExecutors();
         if (matchesEvent(event)) {
+            this.refreshScheduler.schedule(FULL_REFRESH_KEY, this::refresh);
+        }
+    }
+
+    private void onServiceInstancesChangedEvent(ServiceInstancesChangedEvent event) {
+        // The fallback instance of the service may be gone
+        this.fallbackServiceInstances.remove(event.getServiceName());
+        this.loadStatistics.retain(event.getServiceName(), event.getServiceInstances());
+        precomputeBaseURIs(event.getServiceName(), event.getServiceInstances());
+        this.slowStartFilter.onServiceInstancesChanged(event.getServiceName(), event.getServiceInstances());
+        this.outlierDetector.retain(event.getServiceName(), event.getServiceInstances());
+        this.consistentHashSelector.retain(event.getServiceName(), event.getServiceInstances());
+        // The pending refresh of the service is replaced by the one with the latest instances
+        this.refreshScheduler.schedule(event.getServiceName(), () -> refresh(event.getServiceName(), event.getServiceInstances()));
+    }
+
+    /**
+     * Refresh the {@link RequestMappingTable} and the {@link WebEndpointMappingInstanceIndex} of the changed service
+     * only, the new snapshot shares the tables of the other services with the previous one
+     *
+     * @param serviceName      the name of the changed service
+     * @param serviceInstances all {@link ServiceInstance service instances} of the service
+     */
+    void refresh(String serviceName, List<ServiceInstance> serviceInstances) {
+        if (this.routedRequestMappingContextsCache == null) {
+            // Not initialized
             refresh();
+            return;
+        }
+        refreshSettings();
+        List<String> routeIds = new ArrayList<>();
+        for (RouteDefinition webEndpointRoute : getWebEndpointRoutes()) {
+            if (isSubscribedService(webEndpointRoute.getUri(), serviceName)) {
+                routeIds.add(webEndpointRoute.getId());
+            }
+        }
+        if (routeIds.isEmpty()) {
+            logger.trace("No route subscribes the service['{}']", serviceName);
+            return;
+        }
+        long generation = this.refreshGeneration.incrementAndGet();
+        // The table is built outside the lock, which only guards the copy-on-write swap
+        ServiceRequestMappings serviceRequestMappings = buildServiceRequestMappings(serviceName, serviceInstances, getMatchingCacheMaxSize());
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> requestMappingTable = serviceRequestMappings.requestMappingTable;
+        synchronized (this) {
+            if (this.serviceRefreshGenerations.getOrDefault(serviceName, 0L) >= generation) {
+                logger.trace("The service['{}'] was refreshed by a newer refresh", serviceName);
+                return;
+            }
+            this.serviceRefreshGenerations.put(serviceName, generation);
+            this.serviceRequestMappingsCache.put(serviceName, serviceRequestMappings);
+            Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = new ConcurrentHashMap<>(this.serviceInstanceIndexesCache);
+            serviceInstanceIndexes.put(serviceName, serviceRequestMappings.instanceIndex);
+            Map<String, Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>>> routedRequestMappingContextsMap =
+                    new ConcurrentHashMap<>(this.routedRequestMappingContextsCache);
+            for (String routeId : routeIds) {
+                Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> requestMappingContexts = new HashMap<>(
+                        routedRequestMappingContextsMap.getOrDefault(routeId, emptyMap()));
+                requestMappingContexts.put(serviceName, requestMappingTable);
+                routedRequestMappingContextsMap.put(routeId, requestMappingContexts);
+            }
+            this.routedRequestMappingContextsCache = routedRequestMappingContextsMap;
+            this.serviceInstanceIndexesCache = serviceInstanceIndexes;
+        }
+        saveSnapshot();
+    }
+
+    private void refreshSettings() {
+        this.chooseTimeout = getChooseTimeout();
+        this.loadBalancerDelegated = isLoadBalancerDelegated();
+        this.zonePreferenceFilter = ZonePreferenceFilter.of(this.environment);
+        SlowStartFilter slowStartFilter = SlowStartFilter.of(this.environment);
+        if (slowStartFilter.getWindow() != this.slowStartFilter.getWindow()) {
+            this.slowStartFilter = slowStartFilter;
+        }
+        OutlierDetector outlierDetector = OutlierDetector.of(this.environment, this.outlierStatistics);
+        if (!outlierDetector.hasSameSettings(this.outlierDetector)) {
+            this.outlierDetector = outlierDetector;
+        }
+        this.leastLoaded = isLeastLoaded();
+        long latencyDecayTime = getLatencyDecayTime();
+        if (latencyDecayTime != this.loadStatistics.getDecayTime()) {
+            this.loadStatistics = new ServiceInstanceLoadStatistics(latencyDecayTime);
+            this.leastLoadedLoadBalancers.clear();
         }
+        this.snapshot = WebEndpointMappingsSnapshot.of(this.environment);
     }
 
-    private void onServiceInstancesChangedEvent() {
-        refresh();
+    /**
+     * Swap in the {@link RefreshScheduler} and the {@link ParallelServiceLoader} if their properties were changed.
+     * It's invoked by the initial refresh, whose {@link RefreshScheduler} runs on the caller thread, and then on the
+     * {@link EnvironmentChangeEvent} only, thus the scheduler never shuts down itself while running a refresh.
+     */
+    private synchronized void refreshExecutors() {
+        Environment environment = this.environment;
+        RefreshScheduler refreshScheduler = this.refreshScheduler;
+        if (!refreshScheduler.hasSameSettings(environment)) {
+            this.refreshScheduler = RefreshScheduler.of(environment, this.refreshStatistics);
+            // The pending refreshes still run on their time
+            refreshScheduler.shutdown();
+        }
+        ParallelServiceLoader parallelServiceLoader = this.parallelServiceLoader;
+        if (!parallelServiceLoader.hasSameSettings(environment)) {
+            this.parallelServiceLoader = ParallelServiceLoader.of(environment);
+            parallelServiceLoader.shutdown();
+        }
+        this.executorsInitialized = true;
     }
 
+    /**
+     * The initial refresh blocks until the routes are ready unless they are restored from the
+     * {@link WebEndpointMappingsSnapshot}, the subsequent ones are executed asynchronously without blocking the event
+     * publisher, and the previous snapshot serves the requests until the new one is swapped in.
+     */
     private void refresh() {
-        Map<String, Collection<RequestMappingContext>> routedRequestMappingContextsMap = new ConcurrentHashMap<>();
-        Map<String, Collection<RequestMappingInfo>> routedExcludedRequestMappingInfoMap = new ConcurrentHashMap<>();
+        if (!this.executorsInitialized) {
+            refreshExecutors();
+        }
+        refreshSettings();
+        Mono<Void> refreshing = refreshRequestMappings();
+        if (this.routedRequestMappingContextsCache == null && !restore() && !isInNonBlockingThread()) {
+            refreshing.block();
+        } else {
+            this.refreshing.update(refreshing.subscribe(null, e -> logger.error("The full refresh was failed", e)));
+        }
+    }
+
+    /**
+     * Build the {@link RequestMappingTable RequestMappingTables} of the subscribed services in parallel, and then swap
+     * in the new snapshot of the routes
+     *
+     * @return the {@link Mono} of the refresh
+     */
+    Mono<Void> refreshRequestMappings() {
+        return Mono.fromCallable(this::getRoutedSubscribedServices)
+                .subscribeOn(boundedElastic())
+                .flatMap(routedSubscribedServices -> {
+                    Set<String> subscribedServices = new LinkedHashSet<>();
+                    routedSubscribedServices.values().forEach(subscribedServices::addAll);
+                    int matchingCacheMaxSize = getMatchingCacheMaxSize();
+                    long generation = this.refreshGeneration.get();
+                    // The services timed out or failed are absent, and fall back to the last built ones at the swap
+                    return Mono.fromFuture(() -> this.parallelServiceLoader.load(subscribedServices,
+                                    service -> buildServiceRequestMappings(service, this.discoveryClient.getInstances(service), matchingCacheMaxSize),
+                                    service -> null))
+                            .doOnNext(serviceRequestMappings -> {
+                                refresh(routedSubscribedServices, serviceRequestMappings, generation);
+                                saveSnapshot();
+                            });
+                })
+                .then();
+    }
+
+    /**
+     * Restore the routes from the {@link WebEndpointMappingsSnapshot} without the discovery
+     *
+     * @return <code>true</code> if restored
+     */
+    boolean restore() {
+        WebEndpointMappingsSnapshot snapshot = this.snapshot;
+        Map<String, List<ServiceInstance>> servicesInstances = snapshot.load();
+        if (servicesInstances.isEmpty()) {
+            return false;
+        }
+        int matchingCacheMaxSize = getMatchingCacheMaxSize();
+        long generation = this.refreshGeneration.get();
+        Map<String, ServiceRequestMappings> serviceRequestMappingsMap = new LinkedHashMap<>(servicesInstances.size());
+        servicesInstances.forEach((service, serviceInstances) -> serviceRequestMappingsMap.put(service,
+                buildServiceRequestMappings(service, serviceInstances, matchingCacheMaxSize)));
         List<RouteDefinition> webEndpointRoutes = getWebEndpointRoutes();
+        Map<RouteDefinition, Collection<String>> routedSubscribedServices = new LinkedHashMap<>(webEndpointRoutes.size());
+        for (RouteDefinition webEndpointRoute : webEndpointRoutes) {
+            List<String> subscribedServices = new ArrayList<>();
+            for (String service : servicesInstances.keySet()) {
+                if (isSubscribedService(webEndpointRoute.getUri(), service)) {
+                    subscribedServices.add(service);
+                }
+            }
+            routedSubscribedServices.put(webEndpointRoute, subscribedServices);
+        }
+        refresh(routedSubscribedServices, serviceRequestMappingsMap, generation);
+        logger.info("The routes of {} services were restored from the snapshot file['{}']", servicesInstances.size(),
+                snapshot.getFile());
+        return true;
+    }
 
+    private void saveSnapshot() {
+        WebEndpointMappingsSnapshot snapshot = this.snapshot;
+        if (snapshot.isEnabled()) {
+            Map<String, List<ServiceInstance>> servicesInstances = new LinkedHashMap<>(this.serviceRequestMappingsCache.size());
+            this.serviceRequestMappingsCache.forEach((service, serviceRequestMappings) -> {
+                // The services without any instance are chosen by the load balancer
+                if (!serviceRequestMappings.serviceInstances.isEmpty()) {
+                    servicesInstances.put(service, serviceRequestMappings.serviceInstances);
+                }
+            });
+            snapshot.save(servicesInstances);
+        }
+    }
+
+    private Map<RouteDefinition, Collection<String>> getRoutedSubscribedServices() {
+        List<RouteDefinition> webEndpointRoutes = getWebEndpointRoutes();
+        Map<RouteDefinition, Collection<String>> routedSubscribedServices = new LinkedHashMap<>(webEndpointRoutes.size());
         for (RouteDefinition webEndpointRoute : webEndpointRoutes) {
-            String routeId = webEndpointRoute.getId();
-            URI routeUri = webEndpointRoute.getUri();
-            Collection<RequestMappingContext> requestMappingContexts = buildRequestMappingContexts(routeUri);
-            routedRequestMappingContextsMap.put(routeId, requestMappingContexts);
+            routedSubscribedServices.put(webEndpointRoute, getSubscribedServices(webEndpointRoute.getUri()));
+        }
+        return routedSubscribedServices;
+    }
 
+    /**
+     * Get the last built {@link ServiceRequestMappings} of the service, which is the fallback when the service is
+     * timed out or failed to build, or refreshed incrementally after the full refresh started
+     *
+     * @param serviceName the name of service
+     * @return <code>null</code> if the service was never built
+     */
+    @Nullable
+    private ServiceRequestMappings getServiceRequestMappings(String serviceName) {
+        return this.serviceRequestMappingsCache.get(serviceName);
+    }
+
+    /**
+     * Swap in the routes of the full refresh
+     *
+     * @param routedSubscribedServices  the subscribed services keyed by the route
+     * @param serviceRequestMappingsMap the loaded {@link ServiceRequestMappings} keyed by the service
+     * @param generation                the {@link #refreshGeneration generation} when the full refresh started
+     */
+    private void refresh(Map<RouteDefinition, Collection<String>> routedSubscribedServices,
+                         Map<String, ServiceRequestMappings> serviceRequestMappingsMap, long generation) {
+        Map<String, Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>>> routedRequestMappingContextsMap = new ConcurrentHashMap<>();
+        Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> routedExcludedRequestMappingContextsMap = new ConcurrentHashMap<>();
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = new ConcurrentHashMap<>(serviceRequestMappingsMap.size());
+        Map<String, HashPolicy> routedHashPolicies = new ConcurrentHashMap<>();
+        List<RouteDefinition> webEndpointRoutes = new ArrayList<>(routedSubscribedServices.keySet());
+
+        for (RouteDefinition webEndpointRoute : webEndpointRoutes) {
+            String routeId = webEndpointRoute.getId();
             Set<RequestMappingInfo> requestMappingInfoSet = buildExcludedRequestMappingInfoSet(webEndpointRoutes, routeId);
-            routedExcludedRequestMappingInfoMap.put(routeId, requestMappingInfoSet);
+            routedExcludedRequestMappingContextsMap.put(routeId, buildExcludedRequestMappingContexts(requestMappingInfoSet));
+
+            WebEndpointConfig webEndpointConfig = getWebEndpointConfig(webEndpointRoute.getMetadata());
+            HashPolicy hashPolicy = webEndpointConfig == null ? null : webEndpointConfig.getHashPolicy();
+            if (hashPolicy != null) {
+                routedHashPolicies.put(routeId, hashPolicy);
+            }
         }
 
-        // exchange
+        // exchange, the matching result caches are invalidated with the previous RequestMappingTables
         synchronized (this) {
+            Map<String, ServiceRequestMappings> currentServiceRequestMappingsMap = new HashMap<>();
+            for (Collection<String> subscribedServices : routedSubscribedServices.values()) {
+                for (String subscribedService : subscribedServices) {
+                    ServiceRequestMappings serviceRequestMappings = serviceRequestMappingsMap.get(subscribedService);
+                    if (serviceRequestMappings == null
+                            || this.serviceRefreshGenerations.getOrDefault(subscribedService, 0L) > generation) {
+                        // Timed out, failed, or refreshed incrementally after the full refresh started
+                        serviceRequestMappings = getServiceRequestMappings(subscribedService);
+                    } else if (!currentServiceRequestMappingsMap.containsKey(subscribedService)) {
+                        this.serviceRequestMappingsCache.put(subscribedService, serviceRequestMappings);
+                        this.serviceRefreshGenerations.put(subscribedService, generation);
+                    }
+                    if (serviceRequestMappings != null) {
+                        currentServiceRequestMappingsMap.put(subscribedService, serviceRequestMappings);
+                    }
+                }
+            }
+            // The services no longer subscribed
+            this.serviceRequestMappingsCache.keySet().retainAll(currentServiceRequestMappingsMap.keySet());
+            this.serviceRefreshGenerations.keySet().retainAll(currentServiceRequestMappingsMap.keySet());
+
+            currentServiceRequestMappingsMap.forEach((service, serviceRequestMappings) ->
+                    serviceInstanceIndexes.put(service, serviceRequestMappings.instanceIndex));
+            for (Map.Entry<RouteDefinition, Collection<String>> entry : routedSubscribedServices.entrySet()) {
+                Collection<String> subscribedServices = entry.getValue();
+                // The routes referring to the same service share its RequestMappingTable
+                Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> requestMappingContexts = new HashMap<>(subscribedServices.size());
+                for (String subscribedService : subscribedServices) {
+                    ServiceRequestMappings serviceRequestMappings = currentServiceRequestMappingsMap.get(subscribedService);
+                    if (serviceRequestMappings != null) {
+                        requestMappingContexts.put(subscribedService, serviceRequestMappings.requestMappingTable);
+                    }
+                }
+                routedRequestMappingContextsMap.put(entry.getKey().getId(), requestMappingContexts);
+            }
+
             this.routedRequestMappingContextsCache = routedRequestMappingContextsMap;
-            this.routedExcludedRequestMappingInfoCache = routedExcludedRequestMappingInfoMap;
+            this.routedExcludedRequestMappingContextsCache = routedExcludedRequestMappingContextsMap;
+            this.serviceInstanceIndexesCache = serviceInstanceIndexes;
+            this.routedHashPoliciesCache = routedHashPolicies;
         }
     }
 
@@ -264,22 +863,133 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
         List<Mapping> excludes = webEndpointConfig.getExcludes();
         Set<RequestMappingInfo> requestMappingInfoSet = new HashSet<>(excludes.size());
         for (Mapping exclude : excludes) {
-            requestMappingInfoSet.add(buildRequestMappingInfo(exclude));
+            requestMappingInfoSet.add(this.requestMappingInfoInterner.intern(exclude, RequestMappingContext::buildRequestMappingInfo));
         }
         return requestMappingInfoSet;
     }
 
-    private Collection<RequestMappingContext> buildRequestMappingContexts(URI routeUri) {
-        Collection<String> subscribedServices = getSubscribedServices(routeUri);
-        Collection<RequestMappingContext> requestMappingContexts = new LinkedList<>();
-        // TODO support ZonePreferenceFilter
-        for (String subscribedService : subscribedServices) {
-            ServiceInstance sampleServiceInstance = choose(subscribedService);
-            Collection<WebEndpointMapping> webEndpointMappings = getWebEndpointMappings(sampleServiceInstance);
-            for (WebEndpointMapping webEndpointMapping : webEndpointMappings) {
-                RequestMappingContext requestMappingContext = new RequestMappingContext(webEndpointMapping);
-                requestMappingContexts.add(requestMappingContext);
+    /**
+     * Build the {@link RequestMappingTable} of the excluded {@link RequestMappingInfo RequestMappingInfos}
+     *
+     * @param excludedRequestMappingInfos the excluded {@link RequestMappingInfo RequestMappingInfos}
+     * @return non-null
+     */
+    static RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> buildExcludedRequestMappingContexts(Collection<RequestMappingInfo> excludedRequestMappingInfos) {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>(excludedRequestMappingInfos.size());
+        for (RequestMappingInfo excludedRequestMappingInfo : excludedRequestMappingInfos) {
+            requestMappingContexts.add(new RequestMappingContext(excludedRequestMappingInfo, 0));
+        }
+        // The exclusions are never cached
+        return new RequestMappingTable<>(requestMappingContexts, new MatchingResultCache<>(0));
+    }
+
+    /**
+     * Build the {@link RequestMappingTable} of the application from the union of the mappings of all instances, and
+     * index the instances by the mappings they serve, thus the requests are only routed to the instances exposing
+     * the matched mappings during the rolling deployment. The result is cached only when it is swapped in, thus the
+     * late result of the timed-out loading is discarded.
+     *
+     * @param applicationName      the application name
+     * @param serviceInstances     all {@link ServiceInstance service instances} of the application
+     * @param matchingCacheMaxSize the max size of {@link MatchingResultCache}
+     * @return non-null
+     */
+    private ServiceRequestMappings buildServiceRequestMappings(String applicationName, List<ServiceInstance> serviceInstances,
+                                                               int matchingCacheMaxSize) {
+        // The instances discovered before the first refresh are warm
+        this.slowStartFilter.initialize(applicationName, serviceInstances);
+        WebEndpointMappingsFingerprint fingerprint = WebEndpointMappingsFingerprint.of(serviceInstances);
+        ServiceRequestMappings previous = this.serviceRequestMappingsCache.get(applicationName);
+        if (previous != null && !fingerprint.isEmpty() && fingerprint.equals(previous.fingerprint)
+                && previous.requestMappingTable.getCache().getMaxSize() == matchingCacheMaxSize) {
+            // The mappings are unchanged, only the instances are re-indexed
+            Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>(serviceInstances.size());
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                instanceWebEndpointMappings.put(serviceInstance, previous.fingerprint.getWebEndpointMappings(serviceInstance));
             }
+            WebEndpointMappingInstanceIndex instanceIndex = new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings);
+            logger.trace("The mappings of application['{}'] were unchanged, the instances were re-indexed : {}", applicationName, instanceIndex);
+            ServiceRequestMappings serviceRequestMappings = new ServiceRequestMappings(previous.requestMappingTable, instanceIndex,
+                    previous.fingerprint, serviceInstances);
+            return serviceRequestMappings;
+        }
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>(serviceInstances.size());
+        // The union of mappings keyed by the id
+        Map<Integer, WebEndpointMapping> webEndpointMappingsMap = new LinkedHashMap<>();
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            Collection<WebEndpointMapping> instanceMappings = fingerprint.getWebEndpointMappings(serviceInstance);
+            instanceWebEndpointMappings.put(serviceInstance, instanceMappings);
+            for (WebEndpointMapping webEndpointMapping : instanceMappings) {
+                webEndpointMappingsMap.putIfAbsent(webEndpointMapping.getId(), webEndpointMapping);
+            }
+        }
+        if (serviceInstances.isEmpty()) {
+            // No instance was discovered, the sample instance is chosen by the load balancer
+            ServiceInstance sampleServiceInstance = getValue(choose(applicationName));
+            if (sampleServiceInstance != null) {
+                for (WebEndpointMapping webEndpointMapping : getWebEndpointMappings(sampleServiceInstance)) {
+                    webEndpointMappingsMap.putIfAbsent(webEndpointMapping.getId(), webEndpointMapping);
+                }
+            }
+        }
+        WebEndpointMappingInstanceIndex instanceIndex = new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings);
+        logger.trace("The instances of application['{}'] were indexed : {}", applicationName, instanceIndex);
+        Collection<WebEndpointMapping> webEndpointMappings = webEndpointMappingsMap.values();
+        MatchingResultCache<String, RequestMappingContext> cache = new MatchingResultCache<>(matchingCacheMaxSize, this.matchingCacheStatistics);
+        ServiceRequestMappings serviceRequestMappings = new ServiceRequestMappings(new RequestMappingTable<>(
+                buildRequestMappingContexts(webEndpointMappings, this.requestMappingInfoInterner), cache), instanceIndex, fingerprint,
+                serviceInstances);
+        return serviceRequestMappings;
+    }
+
+    private Duration getChooseTimeout() {
+        Environment environment = this.environment;
+        String timeout = environment == null ? DEFAULT_CHOOSE_TIMEOUT :
+                environment.getProperty(CHOOSE_TIMEOUT_PROPERTY_NAME, DEFAULT_CHOOSE_TIMEOUT);
+        return ofMillis(parseLong(timeout));
+    }
+
+    private boolean isLoadBalancerDelegated() {
+        Environment environment = this.environment;
+        String delegated = environment == null ? DEFAULT_LOAD_BALANCER_DELEGATED :
+                environment.getProperty(LOAD_BALANCER_DELEGATED_PROPERTY_NAME, DEFAULT_LOAD_BALANCER_DELEGATED);
+        return parseBoolean(delegated);
+    }
+
+    private boolean isLeastLoaded() {
+        Environment environment = this.environment;
+        String leastLoaded = environment == null ? DEFAULT_LEAST_LOADED :
+                environment.getProperty(LEAST_LOADED_PROPERTY_NAME, DEFAULT_LEAST_LOADED);
+        return parseBoolean(leastLoaded);
+    }
+
+    private long getLatencyDecayTime() {
+        Environment environment = this.environment;
+        String decayTime = environment == null ? DEFAULT_LATENCY_DECAY_TIME :
+                environment.getProperty(LATENCY_DECAY_TIME_PROPERTY_NAME, DEFAULT_LATENCY_DECAY_TIME);
+        return parseLong(decayTime);
+    }
+
+    private int getMatchingCacheMaxSize() {
+        Environment environment = this.environment;
+        String maxSize = environment == null ? DEFAULT_MATCHING_CACHE_MAX_SIZE :
+                environment.getProperty(MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME, DEFAULT_MATCHING_CACHE_MAX_SIZE);
+        return parseInt(maxSize);
+    }
+
+    /**
+     * Build the {@link RequestMappingContext RequestMappingContexts}
+     *
+     * @param webEndpointMappings        {@link WebEndpointMapping WebEndpointMappings}
+     * @param requestMappingInfoInterner the {@link RequestMappingInterner} of {@link RequestMappingInfo}
+     * @return non-null
+     */
+    static List<RequestMappingContext> buildRequestMappingContexts(Collection<WebEndpointMapping> webEndpointMappings,
+                                                                   RequestMappingInterner<RequestMappingInfo> requestMappingInfoInterner) {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>(webEndpointMappings.size());
+        for (WebEndpointMapping webEndpointMapping : webEndpointMappings) {
+            RequestMappingInfo requestMappingInfo = requestMappingInfoInterner.intern(webEndpointMapping, RequestMappingContext::buildRequestMappingInfo);
+            requestMappingContexts.add(new RequestMappingContext(requestMappingInfo, webEndpointMapping.getId()));
         }
         return requestMappingContexts;
     }
@@ -290,27 +1000,191 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
         return getWebEndpointConfig(metadata);
     }
 
-    private ServiceInstance choose(String applicationName) {
-        ReactorLoadBalancer<ServiceInstance> loadBalancer = this.clientFactory.getInstance(applicationName, ReactorServiceInstanceLoadBalancer.class);
-        Mono<Response<ServiceInstance>> mono = loadBalancer.choose();
-        Response<ServiceInstance> response = getValue(mono);
-        return response.getServer();
+    /**
+     * Choose the {@link ServiceInstance} of the application regardless of the mappings
+     *
+     * @param applicationName the application name
+     * @return the empty {@link Mono} if no {@link ServiceInstance} is available
+     * @see #choose(String, WebEndpointMappingInstanceIndex, int)
+     */
+    Mono<ServiceInstance> choose(String applicationName) {
+        return choose(applicationName, EMPTY, 0);
+    }
+
+    /**
+     * Choose the {@link ServiceInstance} of the application within the timeout, the last chosen one of the application
+     * is the fallback if the selection is timed out or failed. If the zone is preferred, the slow start is enabled,
+     * any instance is ejected or the mapping is not served by all instances, the instance is chosen in round-robin from
+     * the instances of the {@link ServiceInstanceListSupplier} that are filtered by the
+     * {@link WebEndpointMappingInstanceIndex}, the {@link OutlierDetector}, the {@link ZonePreferenceFilter} and the
+     * {@link SlowStartFilter}, otherwise, from the load balancer. If the least-loaded load balancer is enabled,
+     * the {@link LeastLoadedServiceInstanceLoadBalancer} is used instead of the round-robin and the load balancer of
+     * the application.
+     *
+     * @param applicationName the application name
+     * @param instanceIndex   the {@link WebEndpointMappingInstanceIndex} of the application
+     * @param mappingId       the id of the matched {@link WebEndpointMapping}
+     * @return the empty {@link Mono} if no {@link ServiceInstance} is available
+     */
+    Mono<ServiceInstance> choose(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId) {
+        ZonePreferenceFilter zonePreferenceFilter = this.zonePreferenceFilter;
+        SlowStartFilter slowStartFilter = this.slowStartFilter;
+        OutlierDetector outlierDetector = this.outlierDetector;
+        ServiceInstanceListSupplier serviceInstanceListSupplier = zonePreferenceFilter.isEnabled() || slowStartFilter.isEnabled()
+                || outlierDetector.isEjecting(applicationName) || !instanceIndex.isServedByAll(mappingId) ?
+                this.clientFactory.getInstance(applicationName, ServiceInstanceListSupplier.class) : null;
+        Mono<ServiceInstance> chosenServiceInstance;
+        if (serviceInstanceListSupplier == null) {
+            ReactorLoadBalancer<ServiceInstance> loadBalancer = getLoadBalancer(applicationName);
+            if (loadBalancer == null) {
+                logger.trace("No ReactorServiceInstanceLoadBalancer was found by the application['{}']", applicationName);
+                return Mono.empty();
+            }
+            chosenServiceInstance = Mono.defer(loadBalancer::choose).mapNotNull(Response::getServer);
+        } else {
+            chosenServiceInstance = Mono.defer(() -> serviceInstanceListSupplier.get().next())
+                    .mapNotNull(serviceInstances -> choose(applicationName, slowStartFilter.filter(zonePreferenceFilter.filter(
+                            outlierDetector.filter(instanceIndex.filter(serviceInstances, mappingId))))));
+        }
+        return withFallback(applicationName, instanceIndex, mappingId, chosenServiceInstance);
+    }
+
+    /**
+     * Choose the {@link ServiceInstance} of the application by the consistent hashing of the request key from the
+     * instances of the {@link ServiceInstanceListSupplier} that are filtered by the
+     * {@link WebEndpointMappingInstanceIndex}, the {@link OutlierDetector} and the {@link ZonePreferenceFilter}, the
+     * {@link SlowStartFilter} is not applied, because the keys of the warming instance must not be moved.
+     *
+     * @param applicationName the application name
+     * @param instanceIndex   the {@link WebEndpointMappingInstanceIndex} of the application
+     * @param mappingId       the id of the matched {@link WebEndpointMapping}
+     * @param hashKey         the hash key of the request
+     * @param loadFactor      the load factor of the bounded load
+     * @return the empty {@link Mono} if no {@link ServiceInstance} is available
+     * @see ConsistentHashSelector
+     */
+    Mono<ServiceInstance> choose(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId,
+                                 String hashKey, double loadFactor) {
+        ServiceInstanceListSupplier serviceInstanceListSupplier = this.clientFactory.getInstance(applicationName, ServiceInstanceListSupplier.class);
+        if (serviceInstanceListSupplier == null) {
+            logger.trace("No ServiceInstanceListSupplier was found by the application['{}']", applicationName);
+            return Mono.empty();
+        }
+        ZonePreferenceFilter zonePreferenceFilter = this.zonePreferenceFilter;
+        OutlierDetector outlierDetector = this.outlierDetector;
+        ConsistentHashSelector consistentHashSelector = this.consistentHashSelector;
+        return withFallback(applicationName, instanceIndex, mappingId, Mono.defer(() -> serviceInstanceListSupplier.get().next())
+                .mapNotNull(serviceInstances -> consistentHashSelector.choose(serviceInstances, zonePreferenceFilter.filter(
+                        outlierDetector.filter(instanceIndex.filter(serviceInstances, mappingId))), hashKey, loadFactor)));
+    }
+
+    private Mono<ServiceInstance> withFallback(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId,
+                                               Mono<ServiceInstance> chosenServiceInstance) {
+        return chosenServiceInstance
+                .timeout(this.chooseTimeout)
+                .doOnNext(serviceInstance -> this.fallbackServiceInstances.put(applicationName, serviceInstance))
+                .onErrorResume(e -> {
+                    ServiceInstance fallbackServiceInstance = getFallbackServiceInstance(applicationName, instanceIndex, mappingId);
+                    logger.warn("The load balancer failed to choose the instance of the application['{}'], the fallback : {}",
+                            applicationName, fallbackServiceInstance, e);
+                    return Mono.justOrEmpty(fallbackServiceInstance);
+                });
     }
 
-    private RequestMappingContext getMatchingRequestMappingContext(String applicationName, ServerWebExchange exchange) {
+    /**
+     * Get the last chosen {@link ServiceInstance} of the application if it serves the mapping and is not ejected by the
+     * {@link OutlierDetector}
+     *
+     * @param applicationName the application name
+     * @param instanceIndex   the {@link WebEndpointMappingInstanceIndex} of the application
+     * @param mappingId       the id of the matched {@link WebEndpointMapping}
+     * @return <code>null</code> if absent or unavailable
+     */
+    @Nullable
+    ServiceInstance getFallbackServiceInstance(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId) {
+        ServiceInstance fallbackServiceInstance = this.fallbackServiceInstances.get(applicationName);
+        if (fallbackServiceInstance == null || this.outlierDetector.isEjected(fallbackServiceInstance)) {
+            return null;
+        }
+        if (!instanceIndex.isServedByAll(mappingId)
+                && !instanceIndex.getServingInstances(mappingId).contains(getInstanceKey(fallbackServiceInstance))) {
+            return null;
+        }
+        return fallbackServiceInstance;
+    }
+
+    @Nullable
+    private ReactorLoadBalancer<ServiceInstance> getLoadBalancer(String applicationName) {
+        if (this.leastLoaded) {
+            ServiceInstanceLoadStatistics loadStatistics = this.loadStatistics;
+            return this.leastLoadedLoadBalancers.computeIfAbsent(applicationName, name -> new LeastLoadedServiceInstanceLoadBalancer(
+                    this.clientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name, loadStatistics));
+        }
+        return this.clientFactory.getInstance(applicationName, ReactorServiceInstanceLoadBalancer.class);
+    }
+
+    /**
+     * Choose the {@link ServiceInstance} from the filtered instances by the least-loaded load balancer if enabled,
+     * otherwise in round-robin
+     *
+     * @param applicationName  the application name
+     * @param serviceInstances the filtered {@link ServiceInstance service instances}
+     * @return <code>null</code> if no instance
+     */
+    @Nullable
+    private ServiceInstance choose(String applicationName, List<ServiceInstance> serviceInstances) {
+        if (this.leastLoaded) {
+            return LeastLoadedServiceInstanceLoadBalancer.choose(serviceInstances, this.loadStatistics);
+        }
+        int size = serviceInstances.size();
+        if (size == 0) {
+            return null;
+        }
+        AtomicInteger position = this.roundRobinPositions.computeIfAbsent(applicationName, name -> new AtomicInteger());
+        return serviceInstances.get((position.getAndIncrement() & Integer.MAX_VALUE) % size);
+    }
+
+    @Nullable
+    private HashPolicy getHashPolicy(ServerWebExchange exchange) {
+        Map<String, HashPolicy> routedHashPolicies = this.routedHashPoliciesCache;
+        if (routedHashPolicies == null || routedHashPolicies.isEmpty()) {
+            return null;
+        }
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route == null ? null : routedHashPolicies.get(route.getId());
+    }
+
+    @Nullable
+    static String getCookieValue(ServerWebExchange exchange, String name) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(name);
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    private WebEndpointMappingInstanceIndex getInstanceIndex(String applicationName) {
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.serviceInstanceIndexesCache;
+        return serviceInstanceIndexes == null ? EMPTY : serviceInstanceIndexes.getOrDefault(applicationName, EMPTY);
+    }
+
+    private RequestMappingContext getMatchingRequestMappingContext(String applicationName, ServerWebExchange exchange,
+                                                                   PathContainer rewritePath) {
         Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
         String routeId = route.getId();
-        return getMatchingRequestMappingContext(applicationName, routeId, exchange);
+        return getMatchingRequestMappingContext(applicationName, routeId, exchange, rewritePath);
     }
 
     RequestMappingContext getMatchingRequestMappingContext(String applicationName, String routeId, ServerWebExchange exchange) {
+        return getMatchingRequestMappingContext(applicationName, routeId, exchange, null);
+    }
+
+    RequestMappingContext getMatchingRequestMappingContext(String applicationName, String routeId, ServerWebExchange exchange,
+                                                           @Nullable PathContainer rewritePath) {
         if (isExcludedRequest(routeId, exchange)) {
             // The request is excluded
             logger.trace("The request is excluded");
             return null;
         }
 
-        Map<String, Collection<RequestMappingContext>> routedRequestMappingContexts = this.routedRequestMappingContextsCache;
+        Map<String, Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>>> routedRequestMappingContexts = this.routedRequestMappingContextsCache;
 
         if (routedRequestMappingContexts == null) {
             // No RequestMappingContexts for routing
@@ -318,53 +1192,81 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
             return null;
         }
 
-        Collection<RequestMappingContext> requestMappingContexts = routedRequestMappingContexts.get(routeId);
+        Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> applicationRequestMappingContexts = routedRequestMappingContexts.get(routeId);
 
-        if (isEmpty(requestMappingContexts)) {
+        if (applicationRequestMappingContexts == null) {
             // No RequestMappingContext found
-            logger.trace("No RequestMappingContext was not found by route id['{}'] : {}", routeId, requestMappingContexts);
+            logger.trace("No RequestMappingContext was not found by route id['{}']", routeId);
             return null;
         }
 
-        ServerHttpRequest request = exchange.getRequest();
-        RequestPath requestPath = request.getPath();
-        String path = requestPath.value();
+        // Only the mappings of the requested application will be scanned
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> requestMappingTable = applicationRequestMappingContexts.get(applicationName);
 
+        if (requestMappingTable == null || requestMappingTable.isEmpty()) {
+            // No RequestMappingContext found
+            logger.trace("No RequestMappingContext was not found by route id['{}'] and application['{}']", routeId, applicationName);
+            return null;
+        }
 
-        String rewritePath = substringAfter(path, SLASH_CHAR + applicationName);
-        exchange.getAttributes().put(WEB_ENDPOINT_REWRITE_PATH_ATTRIBUTE_NAME, rewritePath);
-        ServerHttpRequest newRequest = request.mutate().path(rewritePath).build();
-        ServerWebExchange newExchange = exchange.mutate().request(newRequest).build();
+        if (rewritePath == null) {
+            rewritePath = getRewritePath(exchange.getRequest().getPath(), applicationName);
+        }
 
-        List<RequestMappingContext> matchesRequestMappings = newArrayList(requestMappingContexts.size());
-        for (RequestMappingContext requestMappingContext : requestMappingContexts) {
-            if (matchesRequestMapping(newExchange, requestMappingContext)) {
-                // matches the request mappings
-                matchesRequestMappings.add(requestMappingContext);
+        // The patterns are matched against the rewrite path, and the other conditions are evaluated on the original
+        // ServerWebExchange that is never mutated
+        return requestMappingTable.getMatchingRequestMappingContext(new ExchangeMatchingRequest(exchange, rewritePath));
+    }
+
+    /**
+     * Get the rewrite path that is the sub-path after the segment of application name without any copy of the request
+     *
+     * @param requestPath     {@link RequestPath}
+     * @param applicationName the application name
+     * @return the empty path if the application name is not found
+     */
+    static PathContainer getRewritePath(RequestPath requestPath, String applicationName) {
+        PathContainer path = requestPath.pathWithinApplication();
+        List<Element> elements = path.elements();
+        int size = elements.size();
+        for (int i = 0; i < size; i++) {
+            if (elements.get(i) instanceof PathSegment segment && applicationName.equals(segment.value())) {
+                return path.subPath(i + 1);
             }
         }
-        matchesRequestMappings.sort((v1, v2) -> v1.compareTo(v2, newExchange));
-
-        return first(matchesRequestMappings);
+        return path.subPath(size);
     }
 
     private boolean isInvalidScheme(URI url) {
         return !isWebEndpointRoute(url);
     }
 
-    private boolean matchesRequestMapping(ServerWebExchange exchange, RequestMappingContext requestMappingContext) {
-        RequestMappingInfo requestMappingInfo = requestMappingContext.requestMappingInfo;
-        return requestMappingInfo.getMatchingCondition(exchange) != null;
+    private boolean isExcludedRequest(String routeId, ServerWebExchange exchange) {
+        Map<String, RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest>> routedExcludedRequestMappingContexts = this.routedExcludedRequestMappingContextsCache;
+        if (routedExcludedRequestMappingContexts == null) {
+            // Not initialized
+            return false;
+        }
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> excludedRequestMappingContexts = routedExcludedRequestMappingContexts.get(routeId);
+        return excludedRequestMappingContexts != null && isExcludedRequest(excludedRequestMappingContexts, exchange);
     }
 
-    private boolean isExcludedRequest(String routeId, ServerWebExchange exchange) {
-        Collection<RequestMappingInfo> excludedRequestMappingInfoSet = routedExcludedRequestMappingInfoCache.getOrDefault(routeId, emptySet());
-        for (RequestMappingInfo excludedRequestMappingInfo : excludedRequestMappingInfoSet) {
-            if (excludedRequestMappingInfo.getMatchingCondition(exchange) != null) {
-                return true;
-            }
+    /**
+     * Whether the request is excluded, only the excluded mappings that accept the request method and whose literal
+     * path segments match the request path will be evaluated, thus the most requests are rejected by the lookups of
+     * the literal segments.
+     *
+     * @param excludedRequestMappingContexts the {@link RequestMappingTable} of the excluded mappings
+     * @param exchange                       {@link ServerWebExchange}
+     * @return <code>true</code> if excluded
+     */
+    static boolean isExcludedRequest(RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> excludedRequestMappingContexts, ServerWebExchange exchange) {
+        if (excludedRequestMappingContexts.isEmpty()) {
+            return false;
         }
-        return false;
+        // The exclusions are matched against the original path
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        return excludedRequestMappingContexts.anyMatch(new ExchangeMatchingRequest(exchange, path));
     }
 
     private boolean matchesEvent(RefreshRoutesResultEvent event) {
@@ -411,10 +1313,51 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
         return commaDelimitedListToSet(host);
     }
 
+    static boolean isSubscribedService(URI routeUri, String serviceName) {
+        String host = routeUri.getHost();
+        return ALL_SERVICES.equals(host) || commaDelimitedListToSet(host).contains(serviceName);
+    }
+
     private boolean isWebEndpointRoute(URI routeUri) {
         return routeUri != null && SCHEME.equals(routeUri.getScheme());
     }
 
+    /**
+     * Get the {@link Statistics} of the {@link MatchingResultCache matching result caches}
+     *
+     * @return non-null
+     */
+    public Statistics getMatchingCacheStatistics() {
+        return this.matchingCacheStatistics;
+    }
+
+    /**
+     * Get the {@link RefreshScheduler.Statistics} of the refresh-triggering events and the coalesced ones
+     *
+     * @return non-null
+     */
+    public RefreshScheduler.Statistics getRefreshStatistics() {
+        return this.refreshStatistics;
+    }
+
+    /**
+     * Get the {@link OutlierDetector.Statistics} of the failures and the ejections
+     *
+     * @return non-null
+     */
+    public OutlierDetector.Statistics getOutlierStatistics() {
+        return this.outlierStatistics;
+    }
+
+    /**
+     * Get the count of the instances being ejected by the {@link OutlierDetector}
+     *
+     * @return the count
+     */
+    public int getEjectedInstanceCount() {
+        return this.outlierDetector.getEjectedInstanceCount();
+    }
+
     /**
      * Clear for testing
      */
@@ -422,21 +1365,223 @@ public class WebEndpointMappingGlobalFilter implements GlobalFilter, SmartApplic
         this.routedRequestMappingContextsCache = null;
     }
 
-    static class RequestMappingContext {
+    /**
+     * The {@link RequestMappingTable} and the {@link WebEndpointMappingInstanceIndex} of a service, which are built
+     * and swapped in together
+     */
+    static class ServiceRequestMappings {
+
+        final RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> requestMappingTable;
+
+        final WebEndpointMappingInstanceIndex instanceIndex;
+
+        final WebEndpointMappingsFingerprint fingerprint;
+
+        /**
+         * The {@link ServiceInstance service instances} built from, which are saved into the
+         * {@link WebEndpointMappingsSnapshot}
+         */
+        final List<ServiceInstance> serviceInstances;
+
+        ServiceRequestMappings(RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> requestMappingTable,
+                               WebEndpointMappingInstanceIndex instanceIndex, WebEndpointMappingsFingerprint fingerprint,
+                               List<ServiceInstance> serviceInstances) {
+            this.requestMappingTable = requestMappingTable;
+            this.instanceIndex = instanceIndex;
+            this.fingerprint = fingerprint;
+            this.serviceInstances = serviceInstances;
+        }
+    }
+
+    /**
+     * The {@link MatchingRequest} adapted from the {@link ServerWebExchange}
+     */
+    static class ExchangeMatchingRequest implements MatchingRequest {
+
+        private final ServerWebExchange exchange;
+
+        private final PathContainer path;
+
+        ExchangeMatchingRequest(ServerWebExchange exchange, PathContainer path) {
+            this.exchange = exchange;
+            this.path = path;
+        }
+
+        @Override
+        public String getMethod() {
+            return this.exchange.getRequest().getMethod().name();
+        }
+
+        @Override
+        public PathContainer getPath() {
+            return this.path;
+        }
+
+        @Override
+        public List<String> getParameterValues(String name) {
+            return this.exchange.getRequest().getQueryParams().get(name);
+        }
+
+        @Override
+        public List<String> getHeaderValues(String name) {
+            return this.exchange.getRequest().getHeaders().get(name);
+        }
+
+        @Override
+        public boolean isPreFlight() {
+            return isPreFlightRequest(this.exchange.getRequest());
+        }
+
+        ServerWebExchange getExchange() {
+            return this.exchange;
+        }
+    }
+
+    static class RequestMappingContext extends AbstractRequestMappingContext<RequestMappingContext, ExchangeMatchingRequest> {
 
-        private final RequestMappingInfo requestMappingInfo;
+        final RequestMappingInfo requestMappingInfo;
 
-        private int id;
+        /**
+         * The parsed {@link PathPattern PathPatterns} to be iterated without allocation
+         */
+        private final PathPattern[] pathPatterns;
 
         RequestMappingContext(WebEndpointMapping webEndpointMapping) {
-            this.requestMappingInfo = buildRequestMappingInfo(webEndpointMapping);
-            this.id = webEndpointMapping.getId();
+            this(buildRequestMappingInfo(webEndpointMapping), webEndpointMapping.getId());
+        }
+
+        RequestMappingContext(RequestMappingInfo requestMappingInfo, int id) {
+            this(requestMappingInfo, requestMappingInfo.getPatternsCondition().getPatterns().toArray(PathPattern[]::new), id);
         }
 
-        public int compareTo(RequestMappingContext other, ServerWebExchange exchange) {
+        private RequestMappingContext(RequestMappingInfo requestMappingInfo, PathPattern[] pathPatterns, int id) {
+            super(id, of(pathPatterns).map(PathPattern::getPatternString).toArray(String[]::new));
+            this.requestMappingInfo = requestMappingInfo;
+            this.pathPatterns = pathPatterns;
+        }
+
+        /**
+         * Whether matches the path and the request, that is equivalent to
+         * {@link RequestMappingInfo#getMatchingCondition(ServerWebExchange)} with the path, but allocates no request
+         *
+         * @param request the {@link ExchangeMatchingRequest} with the path to match the patterns
+         * @return <code>true</code> if matches
+         */
+        @Override
+        public boolean matches(ExchangeMatchingRequest request) {
+            RequestMappingInfo info = this.requestMappingInfo;
+            ServerWebExchange exchange = request.getExchange();
+            return info.getMethodsCondition().getMatchingCondition(exchange) != null
+                    && matchesPatterns(request.getPath())
+                    && info.getParamsCondition().getMatchingCondition(exchange) != null
+                    && info.getHeadersCondition().getMatchingCondition(exchange) != null
+                    && info.getConsumesCondition().getMatchingCondition(exchange) != null
+                    && info.getProducesCondition().getMatchingCondition(exchange) != null;
+        }
+
+        private boolean matchesPatterns(PathContainer path) {
+            for (PathPattern pattern : this.pathPatterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the value of the path variable from the first pattern matching the path
+         *
+         * @param path the path
+         * @param name the name of the path variable
+         * @return <code>null</code> if absent
+         */
+        @Nullable
+        String getPathVariable(PathContainer path, String name) {
+            for (PathPattern pattern : this.pathPatterns) {
+                PathMatchInfo pathMatchInfo = pattern.matchAndExtract(path);
+                if (pathMatchInfo != null) {
+                    return pathMatchInfo.getUriVariables().get(name);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Set<RequestMethod> getMethods() {
+            return this.requestMappingInfo.getMethodsCondition().getMethods();
+        }
+
+        @Override
+        public Collection<String> getParamNames() {
+            return this.requestMappingInfo.getParamsCondition().getExpressions().stream().map(NameValueExpression::getName).toList();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return this.requestMappingInfo.getHeadersCondition().getExpressions().stream().map(NameValueExpression::getName).toList();
+        }
+
+        @Override
+        public boolean hasConsumes() {
+            return !this.requestMappingInfo.getConsumesCondition().isEmpty();
+        }
+
+        @Override
+        public boolean hasProduces() {
+            return !this.requestMappingInfo.getProducesCondition().isEmpty();
+        }
+
+        @Override
+        public int compareTo(RequestMappingContext other, ExchangeMatchingRequest request) {
+            return compareTo(other, request.getExchange());
+        }
+
+        int compareTo(RequestMappingContext other, ServerWebExchange exchange) {
             return this.requestMappingInfo.compareTo(other.requestMappingInfo, exchange);
         }
 
+        /**
+         * Compare with the other by the conditions that do not depend on the request, in the same order of
+         * {@link RequestMappingInfo#compareTo(RequestMappingInfo, ServerWebExchange)} except the "produces"
+         *
+         * @param other the other {@link RequestMappingContext}
+         * @return the comparison result
+         */
+        @Override
+        public int compareTo(RequestMappingContext other) {
+            int result = compareToRequestIndependently(other);
+            if (result != 0) {
+                return result;
+            }
+            return this.requestMappingInfo.getMethodsCondition().compareTo(other.requestMappingInfo.getMethodsCondition(), null);
+        }
+
+        /**
+         * Compare with the other by the conditions before the "produces" that do not depend on the request
+         *
+         * @param other the other {@link RequestMappingContext}
+         * @return the comparison result
+         */
+        @Override
+        public int compareToRequestIndependently(RequestMappingContext other) {
+            RequestMappingInfo info = this.requestMappingInfo;
+            RequestMappingInfo otherInfo = other.requestMappingInfo;
+            // The conditions below never use the ServerWebExchange
+            int result = info.getPatternsCondition().compareTo(otherInfo.getPatternsCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            result = info.getParamsCondition().compareTo(otherInfo.getParamsCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            result = info.getHeadersCondition().compareTo(otherInfo.getHeadersCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            return info.getConsumesCondition().compareTo(otherInfo.getConsumesCondition(), null);
+        }
+
         static RequestMappingInfo buildRequestMappingInfo(Mapping mapping) {
             return paths(mapping.getPatterns())
                     .methods(mapping.getMethods())
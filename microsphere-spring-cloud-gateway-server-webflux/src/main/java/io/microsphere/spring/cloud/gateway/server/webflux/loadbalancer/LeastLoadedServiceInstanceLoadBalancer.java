@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer;
+
+import io.microsphere.annotation.Nullable;
+import io.microsphere.logging.Logger;
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.ServiceInstanceLoadStatistics.Load;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.microsphere.logging.LoggerFactory.getLogger;
+
+/**
+ * The {@link ReactorServiceInstanceLoadBalancer} chooses the less loaded one of two random candidates, a.k.a. "the
+ * power of two choices", the load is measured by the {@link ServiceInstanceLoadStatistics} of the gateway, that is
+ * the latency EWMA weighted by the in-flight requests, or only the in-flight requests if any candidate has not been
+ * measured yet.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstanceLoadStatistics
+ * @see ReactorServiceInstanceLoadBalancer
+ * @since 1.0.0
+ */
+public class LeastLoadedServiceInstanceLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger logger = getLogger(LeastLoadedServiceInstanceLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final String serviceId;
+
+    private final ServiceInstanceLoadStatistics loadStatistics;
+
+    public LeastLoadedServiceInstanceLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                  String serviceId, ServiceInstanceLoadStatistics loadStatistics) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.loadStatistics = loadStatistics;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = this.serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(serviceInstances -> {
+            ServiceInstance serviceInstance = choose(serviceInstances, this.loadStatistics);
+            if (serviceInstance == null) {
+                logger.warn("No servers available for service : {}", this.serviceId);
+                return new EmptyResponse();
+            }
+            if (supplier instanceof SelectedInstanceCallback selectedInstanceCallback) {
+                selectedInstanceCallback.selectedServiceInstance(serviceInstance);
+            }
+            return new DefaultResponse(serviceInstance);
+        });
+    }
+
+    /**
+     * Choose the less loaded one of two random {@link ServiceInstance service instances}
+     *
+     * @param serviceInstances the {@link ServiceInstance service instances}
+     * @param loadStatistics   {@link ServiceInstanceLoadStatistics}
+     * @param <S>              the type of {@link ServiceInstance}
+     * @return <code>null</code> if no instance
+     */
+    @Nullable
+    public static <S extends ServiceInstance> S choose(List<S> serviceInstances, ServiceInstanceLoadStatistics loadStatistics) {
+        int size = serviceInstances.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return serviceInstances.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // The second is distinct from the first
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        S firstServiceInstance = serviceInstances.get(first);
+        S secondServiceInstance = serviceInstances.get(second);
+        return isLessLoaded(loadStatistics.getLoad(secondServiceInstance), loadStatistics.getLoad(firstServiceInstance)) ?
+                secondServiceInstance : firstServiceInstance;
+    }
+
+    static boolean isLessLoaded(Load load, Load other) {
+        double latency = load.getLatency();
+        double otherLatency = other.getLatency();
+        long inFlightRequests = load.getInFlightRequests();
+        long otherInFlightRequests = other.getInFlightRequests();
+        if (latency == 0 || otherLatency == 0) {
+            // least outstanding requests
+            return inFlightRequests < otherInFlightRequests;
+        }
+        return (latency + 1) * (inFlightRequests + 1) < (otherLatency + 1) * (otherInFlightRequests + 1);
+    }
+
+    public String getServiceId() {
+        return this.serviceId;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer;
+
+import io.microsphere.annotation.Nonnull;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.getInstanceKey;
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Math.exp;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The statistics of the load per {@link ServiceInstance} measured by the gateway, including the in-flight requests
+ * and the exponentially weighted moving average(EWMA) of the latency, all counters are lock-free, the in-flight
+ * requests are counted by the striped {@link LongAdder}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see LeastLoadedServiceInstanceLoadBalancer
+ * @since 1.0.0
+ */
+public class ServiceInstanceLoadStatistics {
+
+    private final long decayTime;
+
+    /**
+     * The {@link Load Loads} keyed by the service id and then the instance key
+     */
+    private final Map<String, Map<String, Load>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param decayTime the decay time in milliseconds of the latency EWMA
+     */
+    public ServiceInstanceLoadStatistics(long decayTime) {
+        this.decayTime = MILLISECONDS.toNanos(Math.max(decayTime, 1));
+    }
+
+    /**
+     * Get the {@link Load} of {@link ServiceInstance}, created if absent
+     *
+     * @param serviceInstance {@link ServiceInstance}
+     * @return non-null
+     */
+    @Nonnull
+    public Load getLoad(ServiceInstance serviceInstance) {
+        Map<String, Load> serviceLoads = this.loads.computeIfAbsent(serviceInstance.getServiceId(), id -> new ConcurrentHashMap<>());
+        return serviceLoads.computeIfAbsent(getInstanceKey(serviceInstance), key -> new Load(this.decayTime));
+    }
+
+    /**
+     * Retain the {@link Load Loads} of the current instances of the service, the others are removed
+     *
+     * @param serviceId        the service id
+     * @param serviceInstances the current {@link ServiceInstance service instances}
+     */
+    public void retain(String serviceId, Collection<? extends ServiceInstance> serviceInstances) {
+        Map<String, Load> serviceLoads = this.loads.get(serviceId);
+        if (serviceLoads == null) {
+            return;
+        }
+        Set<String> instanceKeys = new HashSet<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            instanceKeys.add(getInstanceKey(serviceInstance));
+        }
+        serviceLoads.keySet().retainAll(instanceKeys);
+    }
+
+    /**
+     * Get the count of the {@link Load Loads}
+     *
+     * @return the count
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, Load> serviceLoads : this.loads.values()) {
+            size += serviceLoads.size();
+        }
+        return size;
+    }
+
+    /**
+     * Get the decay time of the latency EWMA
+     *
+     * @return the decay time in milliseconds
+     */
+    public long getDecayTime() {
+        return NANOSECONDS.toMillis(this.decayTime);
+    }
+
+    public void clear() {
+        this.loads.clear();
+    }
+
+    /**
+     * The load of {@link ServiceInstance}
+     */
+    public static class Load {
+
+        private final long decayTime;
+
+        private final LongAdder inFlightRequests = new LongAdder();
+
+        /**
+         * The bits of the latency EWMA in nanoseconds
+         */
+        private final AtomicLong latency = new AtomicLong();
+
+        /**
+         * The time in nanoseconds of the last update of the latency
+         */
+        private final AtomicLong lastUpdateTime = new AtomicLong();
+
+        Load(long decayTime) {
+            this.decayTime = decayTime;
+        }
+
+        /**
+         * Begin the request
+         *
+         * @return the start time in nanoseconds
+         */
+        public long begin() {
+            this.inFlightRequests.increment();
+            return nanoTime();
+        }
+
+        /**
+         * End the request
+         *
+         * @param startTime the start time in nanoseconds returned by {@link #begin()}
+         */
+        public void end(long startTime) {
+            this.inFlightRequests.decrement();
+            long now = nanoTime();
+            record(now - startTime, now);
+        }
+
+        void record(long latency, long now) {
+            long lastUpdateTime = this.lastUpdateTime.getAndSet(now);
+            double weight = lastUpdateTime == 0 ? 0 : exp(-(double) Math.max(now - lastUpdateTime, 0) / this.decayTime);
+            long previousBits;
+            double average;
+            do {
+                previousBits = this.latency.get();
+                double previous = longBitsToDouble(previousBits);
+                average = previous * weight + latency * (1 - weight);
+            } while (!this.latency.compareAndSet(previousBits, doubleToRawLongBits(average)));
+        }
+
+        public long getInFlightRequests() {
+            return this.inFlightRequests.sum();
+        }
+
+        /**
+         * Get the latency EWMA in nanoseconds, that decays towards zero since the last update, thus the idle
+         * instances will be chosen again
+         *
+         * @return zero if never measured
+         */
+        public double getLatency() {
+            return getLatency(nanoTime());
+        }
+
+        double getLatency(long now) {
+            double latency = longBitsToDouble(this.latency.get());
+            long lastUpdateTime = this.lastUpdateTime.get();
+            if (latency == 0 || lastUpdateTime == 0) {
+                return 0;
+            }
+            return latency * exp(-(double) Math.max(now - lastUpdateTime, 0) / this.decayTime);
+        }
+
+        @Override
+        public String toString() {
+            return "Load{inFlightRequests=" + getInFlightRequests() + ", latency=" + getLatency() + '}';
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.server.webflux.filter;
+
+import io.microsphere.spring.cloud.client.event.ServiceInstancesChangedEvent;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingInterner;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.gateway.config.GatewayLoadBalancerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_CONTEXT_PATH_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonConstants.APPLICATION_NAME_URI_TEMPLATE_VARIABLE_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.CHOOSE_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LEAST_LOADED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.LOAD_BALANCER_DELEGATED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.OUTLIER_DETECTION_ENABLED_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.ZONE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.EMPTY;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter.ZONE_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.buildRequestMappingContexts;
+import static io.microsphere.spring.web.metadata.WebEndpointMapping.ID_HEADER_NAME;
+import static java.net.URI.create;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.URI_TEMPLATE_VARIABLES_ATTRIBUTE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.mock.web.server.MockServerWebExchange.from;
+import static reactor.core.scheduler.Schedulers.parallel;
+
+/**
+ * {@link WebEndpointMappingGlobalFilter} Test that proves the filter never blocks the non-blocking threads
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingGlobalFilter
+ * @see BlockHound
+ * @since 1.0.0
+ */
+class WebEndpointMappingGlobalFilterBlockingTest {
+
+    static final String ROUTE_ID = "test-route";
+
+    static final String APPLICATION_NAME = "test-app";
+
+    private ReactorServiceInstanceLoadBalancer loadBalancer;
+
+    private ServiceInstanceListSupplier serviceInstanceListSupplier;
+
+    private WebEndpointMappingGlobalFilter filter;
+
+    private ReactiveLoadBalancerClientFilter loadBalancerClientFilter;
+
+    private ServiceInstance serviceInstance;
+
+    private MockEnvironment environment;
+
+    @BeforeAll
+    static void install() {
+        BlockHound.install();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.loadBalancer = mock(ReactorServiceInstanceLoadBalancer.class);
+        LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance(APPLICATION_NAME, ReactorServiceInstanceLoadBalancer.class)).thenReturn(this.loadBalancer);
+        this.serviceInstanceListSupplier = mock(ServiceInstanceListSupplier.class);
+        when(clientFactory.getInstance(APPLICATION_NAME, ServiceInstanceListSupplier.class)).thenReturn(this.serviceInstanceListSupplier);
+        ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider = mock(ObjectProvider.class);
+        when(serviceInstanceListSupplierProvider.getIfAvailable(any(Supplier.class))).thenReturn(this.serviceInstanceListSupplier);
+        when(clientFactory.getLazyProvider(APPLICATION_NAME, ServiceInstanceListSupplier.class)).thenReturn(serviceInstanceListSupplierProvider);
+        when(clientFactory.getProperties(APPLICATION_NAME)).thenReturn(new LoadBalancerProperties());
+        this.serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+
+        this.filter = new WebEndpointMappingGlobalFilter(null, clientFactory, new GatewayProperties());
+        // The next filter in the chain resolves the "lb" URI as the gateway does
+        this.loadBalancerClientFilter = new ReactiveLoadBalancerClientFilter(clientFactory, new GatewayLoadBalancerProperties());
+        this.environment = new MockEnvironment();
+        this.environment.setProperty(CHOOSE_TIMEOUT_PROPERTY_NAME, "100");
+        this.filter.setEnvironment(this.environment);
+        refresh();
+    }
+
+    private final WebEndpointMapping webEndpointMapping = WebEndpointMapping.webflux().endpoint("helloworld").patterns("/test/helloworld").build();
+
+    private void refresh() {
+        // refresh without any route
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent(APPLICATION_NAME, ofList(this.serviceInstance)));
+
+        RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest> table =
+                new RequestMappingTable<>(buildRequestMappingContexts(ofList(this.webEndpointMapping), new RequestMappingInterner<>()),
+                        new MatchingResultCache<>(0));
+        this.filter.routedRequestMappingContextsCache = Map.of(ROUTE_ID, Map.of(APPLICATION_NAME, table));
+    }
+
+    @Test
+    void testBlockHoundInstalled() {
+        Mono<String> blocking = Mono.fromCallable(() -> {
+            Thread.sleep(1);
+            return "";
+        }).subscribeOn(parallel());
+        Throwable error = assertThrows(Throwable.class, blocking::block);
+        assertSame(BlockingOperationError.class, (error instanceof BlockingOperationError ? error : error.getCause()).getClass());
+    }
+
+    @Test
+    void testFilterNeverBlocks() {
+        // The load balancer emits on the parallel scheduler later
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofMillis(20)));
+
+        ServerWebExchange exchange = filter();
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        assertNotNull(exchange.getRequest().getHeaders().getFirst(ID_HEADER_NAME));
+    }
+
+    @Test
+    void testFilterOnTimeout() {
+        // No fallback instance yet
+        when(this.loadBalancer.choose()).thenReturn(Mono.never());
+        ServerWebExchange exchange = filter();
+        assertEquals(create("we://test-app/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+
+        // The last chosen instance is the fallback
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofMillis(1)));
+        filter();
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofSeconds(10)));
+        exchange = filter();
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+
+        when(this.loadBalancer.choose()).thenReturn(Mono.error(new IllegalStateException("For testing")));
+        exchange = filter();
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+
+        // Only the fallback of the changed application is removed
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("other-app", ofList()));
+        exchange = filter();
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent(APPLICATION_NAME, ofList(this.serviceInstance)));
+        exchange = filter();
+        assertEquals(create("we://test-app/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+    }
+
+    @Test
+    void testGetFallbackServiceInstance() {
+        this.environment.setProperty(OUTLIER_DETECTION_ENABLED_PROPERTY_NAME, "true");
+        this.environment.setProperty(OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME, "1");
+        refresh();
+        int mappingId = this.webEndpointMapping.getId();
+        assertNull(this.filter.getFallbackServiceInstance(APPLICATION_NAME, EMPTY, mappingId));
+
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofMillis(1)));
+        filter();
+        assertSame(this.serviceInstance, this.filter.getFallbackServiceInstance(APPLICATION_NAME, EMPTY, mappingId));
+
+        // The fallback lacking the mapping is never used
+        DefaultServiceInstance newServiceInstance = new DefaultServiceInstance("new", APPLICATION_NAME, "127.0.0.3", 8080, false);
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>();
+        instanceWebEndpointMappings.put(this.serviceInstance, ofList());
+        instanceWebEndpointMappings.put(newServiceInstance, ofList(this.webEndpointMapping));
+        WebEndpointMappingInstanceIndex instanceIndex = new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings);
+        assertNull(this.filter.getFallbackServiceInstance(APPLICATION_NAME, instanceIndex, mappingId));
+
+        // The ejected fallback is never used
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofMillis(1)));
+        filter(SERVICE_UNAVAILABLE);
+        assertEquals(1, this.filter.getEjectedInstanceCount());
+        assertNull(this.filter.getFallbackServiceInstance(APPLICATION_NAME, EMPTY, mappingId));
+    }
+
+    @Test
+    void testFilterWithLoadBalancerDelegated() {
+        this.environment.setProperty(LOAD_BALANCER_DELEGATED_PROPERTY_NAME, "true");
+        refresh();
+
+        // The ReactiveLoadBalancerClientFilter chooses the instance
+        when(this.loadBalancer.choose(any(Request.class))).thenReturn(delayedResponse(ofMillis(1)));
+        ServerWebExchange exchange = filter("/test-app/test/helloworld?name=a%20b", OK);
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld?name=a%20b"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        assertNotNull(exchange.getRequest().getHeaders().getFirst(ID_HEADER_NAME));
+        verify(this.loadBalancer, never()).choose();
+    }
+
+    @Test
+    void testFilterWithContextPath() {
+        DefaultServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+        serviceInstance.getMetadata().put(WEB_CONTEXT_PATH_METADATA_NAME, "/ctx");
+        this.serviceInstance = serviceInstance;
+        refresh();
+
+        // The instance chosen by the filter
+        when(this.loadBalancer.choose()).thenReturn(delayedResponse(ofMillis(1)));
+        ServerWebExchange exchange = filter();
+        URI targetURI = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        assertEquals(create("http://127.0.0.1:8080/test/helloworld"), targetURI);
+
+        // The instance chosen by the ReactiveLoadBalancerClientFilter resolves the same target
+        this.environment.setProperty(LOAD_BALANCER_DELEGATED_PROPERTY_NAME, "true");
+        refresh();
+        when(this.loadBalancer.choose(any(Request.class))).thenReturn(delayedResponse(ofMillis(1)));
+        exchange = filter();
+        assertEquals(targetURI, exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+    }
+
+    @Test
+    void testFilterWithZonePreference() {
+        this.environment.setProperty(ZONE_PROPERTY_NAME, "zone-a");
+        refresh();
+
+        DefaultServiceInstance localServiceInstance = new DefaultServiceInstance("local", APPLICATION_NAME, "127.0.0.2", 8080, false);
+        localServiceInstance.getMetadata().put(ZONE_METADATA_NAME, "zone-a");
+        DefaultServiceInstance remoteServiceInstance = new DefaultServiceInstance("remote", APPLICATION_NAME, "127.0.0.3", 8080, false);
+        remoteServiceInstance.getMetadata().put(ZONE_METADATA_NAME, "zone-b");
+        when(this.serviceInstanceListSupplier.get()).thenReturn(Flux.just(ofList((ServiceInstance) remoteServiceInstance, localServiceInstance))
+                .delayElements(ofMillis(1)));
+
+        for (int i = 0; i < 3; i++) {
+            ServerWebExchange exchange = filter();
+            assertEquals(create("http://127.0.0.2:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        }
+        verify(this.loadBalancer, never()).choose();
+
+        // fall back to the other zones
+        when(this.serviceInstanceListSupplier.get()).thenReturn(Flux.just(ofList((ServiceInstance) remoteServiceInstance)));
+        assertEquals(create("http://127.0.0.3:8080/test/helloworld"), filter().getAttribute(GATEWAY_REQUEST_URL_ATTR));
+    }
+
+    @Test
+    void testFilterWithMappingAwareSelection() {
+        this.environment.setProperty(LOAD_BALANCER_DELEGATED_PROPERTY_NAME, "true");
+        refresh();
+
+        // The old instance lacks the mapping during the rolling deployment
+        DefaultServiceInstance oldServiceInstance = new DefaultServiceInstance("old", APPLICATION_NAME, "127.0.0.2", 8080, false);
+        DefaultServiceInstance newServiceInstance = new DefaultServiceInstance("new", APPLICATION_NAME, "127.0.0.3", 8080, false);
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>();
+        instanceWebEndpointMappings.put(oldServiceInstance, ofList());
+        instanceWebEndpointMappings.put(newServiceInstance, ofList(this.webEndpointMapping));
+        this.filter.serviceInstanceIndexesCache = Map.of(APPLICATION_NAME, new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings));
+        when(this.serviceInstanceListSupplier.get()).thenReturn(Flux.just(ofList((ServiceInstance) oldServiceInstance, newServiceInstance))
+                .delayElements(ofMillis(1)));
+
+        for (int i = 0; i < 3; i++) {
+            ServerWebExchange exchange = filter();
+            assertEquals(create("http://127.0.0.3:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        }
+        verify(this.loadBalancer, never()).choose();
+    }
+
+    @Test
+    void testFilterWithLeastLoaded() {
+        this.environment.setProperty(LEAST_LOADED_PROPERTY_NAME, "true");
+        refresh();
+
+        when(this.serviceInstanceListSupplier.get(any(Request.class))).thenReturn(Flux.just(ofList(this.serviceInstance))
+                .delayElements(ofMillis(1)));
+        for (int i = 0; i < 3; i++) {
+            ServerWebExchange exchange = filter();
+            assertEquals(create("http://127.0.0.1:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        }
+        verify(this.loadBalancer, never()).choose();
+    }
+
+    @Test
+    void testFilterWithOutlierDetection() {
+        this.environment.setProperty(OUTLIER_DETECTION_ENABLED_PROPERTY_NAME, "true");
+        this.environment.setProperty(OUTLIER_CONSECUTIVE_FAILURES_PROPERTY_NAME, "1");
+        refresh();
+
+        DefaultServiceInstance sickServiceInstance = new DefaultServiceInstance("sick", APPLICATION_NAME, "127.0.0.2", 8080, false);
+        DefaultServiceInstance healthyServiceInstance = new DefaultServiceInstance("healthy", APPLICATION_NAME, "127.0.0.3", 8080, false);
+        when(this.loadBalancer.choose()).thenReturn(Mono.delay(ofMillis(1)).map(i -> new DefaultResponse(sickServiceInstance)));
+        when(this.serviceInstanceListSupplier.get()).thenReturn(Flux.just(ofList((ServiceInstance) sickServiceInstance, healthyServiceInstance))
+                .delayElements(ofMillis(1)));
+
+        ServerWebExchange exchange = filter(SERVICE_UNAVAILABLE);
+        assertEquals(create("http://127.0.0.2:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        assertEquals(1, this.filter.getOutlierStatistics().getEjectionCount());
+        assertEquals(1, this.filter.getEjectedInstanceCount());
+
+        // The ejected instance is never chosen
+        for (int i = 0; i < 3; i++) {
+            exchange = filter();
+            assertEquals(create("http://127.0.0.3:8080/test/helloworld"), exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR));
+        }
+        verify(this.loadBalancer, times(1)).choose();
+        assertEquals(1, this.filter.getOutlierStatistics().getFailureCount());
+    }
+
+    private Mono<Response<ServiceInstance>> delayedResponse(Duration delay) {
+        return Mono.delay(delay).map(i -> new DefaultResponse(this.serviceInstance));
+    }
+
+    private ServerWebExchange filter() {
+        return filter(OK);
+    }
+
+    private ServerWebExchange filter(HttpStatus status) {
+        return filter("/test-app/test/helloworld", status);
+    }
+
+    private ServerWebExchange filter(String requestURI, HttpStatus status) {
+        URI url = create("we://test-app/test/helloworld");
+        ServerWebExchange exchange = from(MockServerHttpRequest.method(GET, create(requestURI)));
+        Map<String, Object> attributes = exchange.getAttributes();
+        attributes.put(GATEWAY_REQUEST_URL_ATTR, url);
+        attributes.put(GATEWAY_ROUTE_ATTR, Route.async().id(ROUTE_ID).uri(url).predicate(e -> true).build());
+        attributes.put(URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of(APPLICATION_NAME_URI_TEMPLATE_VARIABLE_NAME, APPLICATION_NAME));
+
+        AtomicReference<ServerWebExchange> filteredExchange = new AtomicReference<>();
+        GatewayFilterChain chain = e -> this.loadBalancerClientFilter.filter(e, lbe -> {
+            filteredExchange.set(lbe);
+            lbe.getResponse().setStatusCode(status);
+            return Mono.empty();
+        });
+        // The filter is executed on the non-blocking thread as the Netty event-loop
+        Mono.defer(() -> this.filter.filter(exchange, chain))
+                .subscribeOn(parallel())
+                .block(ofSeconds(5));
+        return filteredExchange.get();
+    }
+}
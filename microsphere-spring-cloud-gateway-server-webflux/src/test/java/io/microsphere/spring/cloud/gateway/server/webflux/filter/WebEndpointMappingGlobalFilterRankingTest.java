@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.server.webflux.filter;
+
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.ExchangeMatchingRequest;
+import io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.RequestMappingContext;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpMethod.valueOf;
+import static org.springframework.mock.web.server.MockServerWebExchange.from;
+
+/**
+ * The equivalence Test between the ranked {@link RequestMappingContext RequestMappingContexts} and
+ * the sort of all matches per request
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingTable
+ * @see WebEndpointMappingGlobalFilter.RequestMappingContext
+ * @since 1.0.0
+ */
+class WebEndpointMappingGlobalFilterRankingTest {
+
+    static final String[][] PATTERNS = {
+            ofArray("/users"),
+            ofArray("/users/{id}"),
+            ofArray("/users/*"),
+            ofArray("/users/**"),
+            ofArray("/users/me"),
+            ofArray("/users/{id}/orders"),
+            ofArray("/users/{id:\\d+}"),
+            ofArray("/{*path}"),
+            ofArray("/**"),
+            ofArray("/users", "/users/me")
+    };
+
+    static final String[][] METHODS = {
+            ofArray(),
+            ofArray("GET"),
+            ofArray("POST"),
+            ofArray("GET", "POST"),
+            ofArray("HEAD"),
+            ofArray("GET", "HEAD")
+    };
+
+    static final String[][] PARAMS = {
+            ofArray(),
+            ofArray("a"),
+            ofArray("a=1"),
+            ofArray("!a")
+    };
+
+    static final String[][] HEADERS = {
+            ofArray(),
+            ofArray("X-A"),
+            ofArray("X-A=1")
+    };
+
+    static final String[][] CONSUMES = {
+            ofArray(),
+            ofArray("application/json"),
+            ofArray("text/plain"),
+            ofArray("application/*")
+    };
+
+    static final String[][] PRODUCES = {
+            ofArray(),
+            ofArray(),
+            ofArray("application/json"),
+            ofArray("text/plain"),
+            ofArray("application/json", "text/plain"),
+            ofArray("text/*")
+    };
+
+    static final String[] PATHS = ofArray("/users", "/users/1", "/users/me", "/users/1/orders", "/x/y", "/");
+
+    static final String[] REQUEST_METHODS = ofArray("GET", "POST", "HEAD", "PUT");
+
+    static final String[] CONTENT_TYPES = ofArray(null, "application/json", "text/plain");
+
+    static final String[] ACCEPTS = ofArray(null, "*/*", "application/json", "text/plain", "text/plain, application/json;q=0.5");
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        this.random = new Random(20260101L);
+    }
+
+    @Test
+    void testEquivalence() {
+        for (int round = 0; round < 20; round++) {
+            List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                requestMappingContexts.add(new RequestMappingContext(randomWebEndpointMapping(round * 100 + i)));
+            }
+            RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> table = buildRequestMappingTable(requestMappingContexts, 0);
+            assertEquals(requestMappingContexts.size(), table.size());
+
+            for (int i = 0; i < 200; i++) {
+                ServerWebExchange exchange = randomExchange();
+                RequestMappingContext expected = getMatchingRequestMappingContextBySorting(requestMappingContexts, exchange);
+                RequestMappingContext actual = table.match(request(exchange));
+                assertSame(expected, actual, () -> "The request : " + exchange.getRequest().getMethod() + " " +
+                        exchange.getRequest().getURI() + " " + exchange.getRequest().getHeaders());
+            }
+        }
+    }
+
+    @Test
+    void testMatchingCache() {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requestMappingContexts.add(new RequestMappingContext(randomWebEndpointMapping(i)));
+        }
+        Statistics statistics = new Statistics();
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> table =
+                new RequestMappingTable<>(requestMappingContexts, new MatchingResultCache<>(64, statistics));
+
+        for (int i = 0; i < 2000; i++) {
+            ServerWebExchange exchange = randomExchange();
+            RequestMappingContext expected = getMatchingRequestMappingContextBySorting(requestMappingContexts, exchange);
+            assertSame(expected, table.getMatchingRequestMappingContext(request(exchange)));
+        }
+        assertEquals(2000, statistics.getHitCount() + statistics.getMissCount());
+        assertTrue(statistics.getHitCount() > 0);
+        assertTrue(statistics.getEvictionCount() > 0);
+    }
+
+    @Test
+    void testProducesTies() {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+        requestMappingContexts.add(new RequestMappingContext(WebEndpointMapping.webflux().endpoint("json")
+                .patterns("/users").produces("application/json").build()));
+        requestMappingContexts.add(new RequestMappingContext(WebEndpointMapping.webflux().endpoint("text")
+                .patterns("/users").produces("text/plain").build()));
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> table = buildRequestMappingTable(requestMappingContexts, 0);
+
+        RequestMappingContext first = table.get(0);
+        assertEquals(0, first.getRank());
+        assertEquals(2, first.getTieEnd());
+
+        ServerWebExchange exchange = from(MockServerHttpRequest.get("/users").header(ACCEPT, "text/plain, application/json;q=0.5"));
+        RequestMappingContext matched = table.match(request(exchange));
+        assertNotNull(matched);
+        assertSame(getMatchingRequestMappingContextBySorting(requestMappingContexts, exchange), matched);
+
+        exchange = from(MockServerHttpRequest.get("/users").header(ACCEPT, "application/json, text/plain;q=0.5"));
+        assertSame(getMatchingRequestMappingContextBySorting(requestMappingContexts, exchange), table.match(request(exchange)));
+
+        exchange = from(MockServerHttpRequest.get("/orders"));
+        assertNull(table.match(request(exchange)));
+    }
+
+    static RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> buildRequestMappingTable(
+            List<RequestMappingContext> requestMappingContexts, int matchingCacheMaxSize) {
+        return new RequestMappingTable<>(requestMappingContexts, new MatchingResultCache<>(matchingCacheMaxSize));
+    }
+
+    static RequestMappingContext getMatchingRequestMappingContextBySorting(List<RequestMappingContext> requestMappingContexts,
+                                                                           ServerWebExchange exchange) {
+        List<RequestMappingContext> matches = new ArrayList<>();
+        for (RequestMappingContext requestMappingContext : requestMappingContexts) {
+            if (requestMappingContext.requestMappingInfo.getMatchingCondition(exchange) != null) {
+                matches.add(requestMappingContext);
+            }
+        }
+        matches.sort((v1, v2) -> v1.compareTo(v2, exchange));
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    static ExchangeMatchingRequest request(ServerWebExchange exchange) {
+        return new ExchangeMatchingRequest(exchange, exchange.getRequest().getPath().pathWithinApplication());
+    }
+
+    WebEndpointMapping randomWebEndpointMapping(int id) {
+        WebEndpointMapping.Builder<String> builder = WebEndpointMapping.<String>webflux()
+                .endpoint("endpoint-" + id)
+                .patterns(random(PATTERNS))
+                .params(random(PARAMS))
+                .headers(random(HEADERS))
+                .consumes(random(CONSUMES))
+                .produces(random(PRODUCES));
+        String[] methods = random(METHODS);
+        if (methods.length > 0) {
+            builder.methods(methods);
+        }
+        return builder.build();
+    }
+
+    ServerWebExchange randomExchange() {
+        MockServerHttpRequest.BodyBuilder builder = MockServerHttpRequest.method(valueOf(random(REQUEST_METHODS)), random(PATHS));
+        if (this.random.nextBoolean()) {
+            builder.queryParam("a", this.random.nextBoolean() ? "1" : "2");
+        }
+        if (this.random.nextBoolean()) {
+            builder.header("X-A", this.random.nextBoolean() ? "1" : "2");
+        }
+        String contentType = random(CONTENT_TYPES);
+        if (contentType != null) {
+            builder.header(CONTENT_TYPE, contentType);
+        }
+        String accept = random(ACCEPTS);
+        if (accept != null) {
+            builder.header(ACCEPT, accept);
+        }
+        return from(builder.build());
+    }
+
+    <T> T random(T[] values) {
+        return values[this.random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.server.webflux.filter;
+
+import io.microsphere.spring.cloud.client.event.ServiceInstancesChangedEvent;
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.collection.Sets.ofSet;
+import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_MAPPINGS_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_QUIET_PERIOD_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.SNAPSHOT_FILE_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.WEB_ENDPOINT_KEY;
+import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.isSubscribedService;
+import static java.net.URI.create;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The refresh Test of {@link WebEndpointMappingGlobalFilter}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingGlobalFilter
+ * @since 1.0.0
+ */
+class WebEndpointMappingGlobalFilterRefreshTest {
+
+    static final String ROUTE_ID = "test-route";
+
+    private DiscoveryClient discoveryClient;
+
+    private GatewayProperties gatewayProperties;
+
+    private WebEndpointMappingGlobalFilter filter;
+
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        this.discoveryClient = mock(DiscoveryClient.class);
+        when(this.discoveryClient.getServices()).thenReturn(ofList("test-app", "other-app"));
+        RouteDefinition route = new RouteDefinition();
+        route.setId(ROUTE_ID);
+        route.setUri(create("we://all"));
+        route.getMetadata().put(WEB_ENDPOINT_KEY, new WebEndpointConfig());
+        this.gatewayProperties = new GatewayProperties();
+        this.gatewayProperties.setRoutes(ofList(route));
+        this.filter = new WebEndpointMappingGlobalFilter(this.discoveryClient, mock(LoadBalancerClientFactory.class), this.gatewayProperties);
+        this.environment = new MockEnvironment();
+        this.filter.setEnvironment(this.environment);
+    }
+
+    @Test
+    void testRefreshIncrementally() {
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        // The full refresh on the first time
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        verify(this.discoveryClient, times(1)).getInstances("test-app");
+        verify(this.discoveryClient, times(1)).getInstances("other-app");
+
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> tables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.filter.serviceInstanceIndexesCache;
+
+        // Only the changed service is rebuilt from the instances of the event
+        DefaultServiceInstance changedServiceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        changedServiceInstance.getMetadata().put(WEB_MAPPINGS_METADATA_NAME, "[]");
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(changedServiceInstance)));
+        verify(this.discoveryClient, times(1)).getInstances("test-app");
+        verify(this.discoveryClient, times(1)).getInstances("other-app");
+        verify(this.discoveryClient, times(1)).getServices();
+
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> newTables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        assertNotSame(tables, newTables);
+        assertNotSame(tables.get("test-app"), newTables.get("test-app"));
+        assertSame(tables.get("other-app"), newTables.get("other-app"));
+        assertNotSame(serviceInstanceIndexes.get("test-app"), this.filter.serviceInstanceIndexesCache.get("test-app"));
+        assertSame(serviceInstanceIndexes.get("other-app"), this.filter.serviceInstanceIndexesCache.get("other-app"));
+    }
+
+    @Test
+    void testRefreshWithUnchangedMappings() {
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        // The full refresh on the first time, then the incremental one
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> tables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.filter.serviceInstanceIndexesCache;
+
+        // The scale-up with the same mappings reuses the compiled table, only the instances are re-indexed
+        ServiceInstance newServiceInstance = new DefaultServiceInstance("new-test-instance", "test-app", "127.0.0.2", 8080, false);
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance, newServiceInstance)));
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> newTables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        assertSame(tables.get("test-app"), newTables.get("test-app"));
+        assertNotSame(serviceInstanceIndexes.get("test-app"), this.filter.serviceInstanceIndexesCache.get("test-app"));
+        assertSame(this.filter.serviceRequestMappingsCache.get("test-app").requestMappingTable, newTables.get("test-app"));
+    }
+
+    @Test
+    void testRefreshOnTimeout() throws Exception {
+        this.environment.setProperty(REFRESH_TIMEOUT_PROPERTY_NAME, "100");
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> tables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.filter.serviceInstanceIndexesCache;
+
+        WebEndpointMappingGlobalFilter.ServiceRequestMappings serviceRequestMappings = this.filter.serviceRequestMappingsCache.get("other-app");
+        CountDownLatch loaded = new CountDownLatch(1);
+        when(this.discoveryClient.getInstances("other-app")).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            loaded.countDown();
+            return ofList();
+        });
+        this.filter.refreshRequestMappings().block();
+
+        // The timed-out service falls back to the previous snapshot
+        Map<String, RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest>> newTables =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID);
+        assertNotSame(tables.get("test-app"), newTables.get("test-app"));
+        assertSame(tables.get("other-app"), newTables.get("other-app"));
+        assertSame(serviceInstanceIndexes.get("other-app"), this.filter.serviceInstanceIndexesCache.get("other-app"));
+
+        // The late result of the timed-out service is discarded
+        assertTrue(loaded.await(5, SECONDS));
+        Thread.sleep(200);
+        assertSame(serviceRequestMappings, this.filter.serviceRequestMappingsCache.get("other-app"));
+    }
+
+    @Test
+    void testRefreshWithIncrementalRefreshDuringFullRefresh() throws Exception {
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(this.discoveryClient.getInstances("test-app")).thenAnswer(invocation -> {
+            loading.countDown();
+            refreshed.await();
+            return ofList(serviceInstance);
+        });
+        CompletableFuture<Void> refreshing = this.filter.refreshRequestMappings().toFuture();
+        assertTrue(loading.await(5, SECONDS));
+
+        // The service is refreshed incrementally while the full refresh is loading the stale instances
+        ServiceInstance newServiceInstance = new DefaultServiceInstance("new-test-instance", "test-app", "127.0.0.2", 8080, false);
+        this.filter.refresh("test-app", ofList(newServiceInstance));
+        RequestMappingTable<WebEndpointMappingGlobalFilter.RequestMappingContext, WebEndpointMappingGlobalFilter.ExchangeMatchingRequest> table =
+                this.filter.routedRequestMappingContextsCache.get(ROUTE_ID).get("test-app");
+        refreshed.countDown();
+        refreshing.get(5, SECONDS);
+
+        // The newer incremental one is kept by the full refresh
+        assertSame(table, this.filter.routedRequestMappingContextsCache.get(ROUTE_ID).get("test-app"));
+        assertEquals("new-test-instance", this.filter.serviceRequestMappingsCache.get("test-app").serviceInstances.get(0).getInstanceId());
+        assertSame(this.filter.serviceRequestMappingsCache.get("test-app").instanceIndex, this.filter.serviceInstanceIndexesCache.get("test-app"));
+    }
+
+    @Test
+    void testRefreshWithCoalescing() {
+        this.environment.setProperty(REFRESH_QUIET_PERIOD_PROPERTY_NAME, "60000");
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        // The initial refresh is never delayed
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.filter.serviceInstanceIndexesCache;
+
+        for (int i = 0; i < 3; i++) {
+            this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        }
+        assertSame(serviceInstanceIndexes, this.filter.serviceInstanceIndexesCache);
+        assertEquals(4, this.filter.getRefreshStatistics().getEventCount());
+        assertEquals(2, this.filter.getRefreshStatistics().getCoalescedCount());
+        assertEquals(1, this.filter.getRefreshStatistics().getRefreshCount());
+        this.filter.destroy();
+    }
+
+    @Test
+    void testRefreshExecutorsOnEnvironmentChange() {
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+
+        // The changed settings are not applied by the refreshes
+        this.environment.setProperty(REFRESH_QUIET_PERIOD_PROPERTY_NAME, "60000");
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        assertEquals(2, this.filter.getRefreshStatistics().getRefreshCount());
+
+        // but on the EnvironmentChangeEvent
+        this.filter.onApplicationEvent(new EnvironmentChangeEvent(ofSet(REFRESH_QUIET_PERIOD_PROPERTY_NAME)));
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        assertEquals(2, this.filter.getRefreshStatistics().getRefreshCount());
+        assertEquals(3, this.filter.getRefreshStatistics().getEventCount());
+        this.filter.destroy();
+    }
+
+    @Test
+    void testRestore(@TempDir Path directory) {
+        this.environment.setProperty(SNAPSHOT_FILE_PROPERTY_NAME, directory.resolve("mappings.bin").toString());
+        assertFalse(this.filter.restore());
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", "test-app", "127.0.0.1", 8080, false);
+        // The snapshot is saved after the refreshes
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        this.filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        this.filter.destroy();
+
+        // The restarted one serves from the snapshot while the discovery is slow
+        DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+        when(discoveryClient.getServices()).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return ofList("test-app");
+        });
+        WebEndpointMappingGlobalFilter filter = new WebEndpointMappingGlobalFilter(discoveryClient, mock(LoadBalancerClientFactory.class),
+                this.gatewayProperties);
+        filter.setEnvironment(this.environment);
+        filter.onApplicationEvent(new ServiceInstancesChangedEvent("test-app", ofList(serviceInstance)));
+        assertTrue(filter.routedRequestMappingContextsCache.get(ROUTE_ID).containsKey("test-app"));
+        assertEquals(ofList("test-instance"), ofList(filter.serviceRequestMappingsCache.get("test-app").serviceInstances.get(0).getInstanceId()));
+        verify(discoveryClient, never()).getInstances("test-app");
+        filter.destroy();
+    }
+
+    @Test
+    void testIsSubscribedService() {
+        assertTrue(isSubscribedService(create("we://all"), "test-app"));
+        assertTrue(isSubscribedService(create("we://test-app"), "test-app"));
+        assertFalse(isSubscribedService(create("we://other-app"), "test-app"));
+        verify(this.discoveryClient, never()).getServices();
+    }
+}
@@ -17,17 +17,33 @@
 
 package io.microsphere.spring.cloud.gateway.server.webflux.filter;
 
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.ExchangeMatchingRequest;
+import io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.RequestMappingContext;
 import io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
 
 import java.net.URI;
 
 import static io.microsphere.spring.cloud.client.service.registry.constants.InstanceConstants.WEB_CONTEXT_PATH_METADATA_NAME;
+import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.buildExcludedRequestMappingContexts;
 import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.buildPath;
+import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.getRewritePath;
+import static io.microsphere.spring.cloud.gateway.server.webflux.filter.WebEndpointMappingGlobalFilter.isExcludedRequest;
+import static io.microsphere.collection.Lists.ofList;
 import static java.net.URI.create;
+import static java.util.Collections.emptyList;
+import static org.springframework.http.server.RequestPath.parse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.mock.web.server.MockServerWebExchange.from;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+import static org.springframework.web.reactive.result.method.RequestMappingInfo.paths;
 
 /**
  * {@link WebEndpointMappingGlobalFilter} Static staff Test
@@ -52,6 +68,32 @@ public class WebEndpointMappingGlobalFilterStaticTest {
         assertEquals("/test-path", buildPath(serviceInstance, uri));
     }
 
+    @Test
+    void testGetRewritePath() {
+        assertEquals("/test-path/1", getRewritePath(parse("/test-app/test-path/1", null), "test-app").value());
+        assertEquals("/test-path/1", getRewritePath(parse("/ctx/test-app/test-path/1", "/ctx"), "test-app").value());
+        assertEquals("/test-path%20a", getRewritePath(parse("/test-app/test-path%20a", null), "test-app").value());
+        assertEquals("", getRewritePath(parse("/test-app", null), "test-app").value());
+        assertEquals("", getRewritePath(parse("/test-application/test-path", null), "test-app").value());
+    }
+
+    @Test
+    void testIsExcludedRequest() {
+        assertFalse(isExcludedRequest(buildExcludedRequestMappingContexts(emptyList()), null));
+
+        RequestMappingTable<RequestMappingContext, ExchangeMatchingRequest> exclusions = buildExcludedRequestMappingContexts(ofList(
+                paths("/admin/**").build(),
+                paths("/users/{id}").methods(POST).build(),
+                paths("/orders").params("debug").build()));
+
+        assertTrue(isExcludedRequest(exclusions, from(MockServerHttpRequest.get("/admin/users"))));
+        assertTrue(isExcludedRequest(exclusions, from(MockServerHttpRequest.post("/users/1"))));
+        assertFalse(isExcludedRequest(exclusions, from(MockServerHttpRequest.get("/users/1"))));
+        assertTrue(isExcludedRequest(exclusions, from(MockServerHttpRequest.get("/orders?debug=true"))));
+        assertFalse(isExcludedRequest(exclusions, from(MockServerHttpRequest.get("/orders"))));
+        assertFalse(isExcludedRequest(exclusions, from(MockServerHttpRequest.get("/products"))));
+    }
+
     private ServiceInstance createServiceInstance() {
         DefaultServiceInstance serviceInstance = new DefaultServiceInstance();
         serviceInstance.setServiceId("test-app");
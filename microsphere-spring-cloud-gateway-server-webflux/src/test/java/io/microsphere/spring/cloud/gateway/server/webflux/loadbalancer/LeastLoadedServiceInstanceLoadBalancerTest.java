@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer;
+
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.ServiceInstanceLoadStatistics.Load;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.LeastLoadedServiceInstanceLoadBalancer.choose;
+import static io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.LeastLoadedServiceInstanceLoadBalancer.isLessLoaded;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link LeastLoadedServiceInstanceLoadBalancer} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see LeastLoadedServiceInstanceLoadBalancer
+ * @since 1.0.0
+ */
+class LeastLoadedServiceInstanceLoadBalancerTest {
+
+    private final ServiceInstance fast = new DefaultServiceInstance("fast", "test-app", "127.0.0.1", 8080, false);
+
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", "test-app", "127.0.0.2", 8080, false);
+
+    private ServiceInstanceLoadStatistics loadStatistics;
+
+    @BeforeEach
+    void setUp() {
+        this.loadStatistics = new ServiceInstanceLoadStatistics(10000);
+    }
+
+    @Test
+    void testChoose() {
+        assertNull(choose(ofList(), this.loadStatistics));
+        assertSame(this.slow, choose(ofList(this.slow), this.loadStatistics));
+
+        long now = System.nanoTime();
+        this.loadStatistics.getLoad(this.fast).record(1_000_000, now);
+        this.loadStatistics.getLoad(this.slow).record(100_000_000, now);
+        List<ServiceInstance> serviceInstances = ofList(this.slow, this.fast);
+        for (int i = 0; i < 100; i++) {
+            assertSame(this.fast, choose(serviceInstances, this.loadStatistics));
+        }
+    }
+
+    @Test
+    void testIsLessLoaded() {
+        Load load = new Load(10000);
+        Load other = new Load(10000);
+        // least outstanding requests if not measured
+        other.begin();
+        assertTrue(isLessLoaded(load, other));
+        assertFalse(isLessLoaded(other, load));
+
+        long now = System.nanoTime();
+        load.record(10, now);
+        other.record(10, now);
+        // the in-flight requests weight the latency
+        assertTrue(isLessLoaded(load, other));
+        load.begin();
+        load.begin();
+        assertFalse(isLessLoaded(load, other));
+    }
+
+    @Test
+    void testChooseByRequest() {
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get(any(Request.class))).thenReturn(Flux.just(ofList(this.fast)));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any(Supplier.class))).thenReturn(supplier);
+
+        LeastLoadedServiceInstanceLoadBalancer loadBalancer = new LeastLoadedServiceInstanceLoadBalancer(provider, "test-app", this.loadStatistics);
+        assertEquals("test-app", loadBalancer.getServiceId());
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+        assertSame(this.fast, response.getServer());
+
+        when(supplier.get(any(Request.class))).thenReturn(Flux.just(ofList()));
+        assertFalse(loadBalancer.choose(new DefaultRequest<>()).block().hasServer());
+    }
+}
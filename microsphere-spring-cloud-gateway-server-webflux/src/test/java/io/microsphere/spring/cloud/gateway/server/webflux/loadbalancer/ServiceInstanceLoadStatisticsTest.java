@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer;
+
+import io.microsphere.spring.cloud.gateway.server.webflux.loadbalancer.ServiceInstanceLoadStatistics.Load;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import static io.microsphere.collection.Lists.ofList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ServiceInstanceLoadStatistics} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ServiceInstanceLoadStatistics
+ * @since 1.0.0
+ */
+class ServiceInstanceLoadStatisticsTest {
+
+    private final ServiceInstance a1 = new DefaultServiceInstance("a1", "a", "127.0.0.1", 8080, false);
+
+    private final ServiceInstance a2 = new DefaultServiceInstance("a2", "a", "127.0.0.2", 8080, false);
+
+    private final ServiceInstance b1 = new DefaultServiceInstance("b1", "b", "127.0.0.3", 8080, false);
+
+    @Test
+    void testInFlightRequests() {
+        ServiceInstanceLoadStatistics loadStatistics = new ServiceInstanceLoadStatistics(1000);
+        assertEquals(1000, loadStatistics.getDecayTime());
+        Load load = loadStatistics.getLoad(this.a1);
+        assertSame(load, loadStatistics.getLoad(this.a1));
+        assertEquals(0, load.getInFlightRequests());
+        assertEquals(0, load.getLatency());
+
+        long startTime = load.begin();
+        load.begin();
+        assertEquals(2, load.getInFlightRequests());
+        load.end(startTime);
+        assertEquals(1, load.getInFlightRequests());
+        assertTrue(load.getLatency() > 0);
+    }
+
+    @Test
+    void testLatency() {
+        long decayTime = MILLISECONDS.toNanos(1000);
+        Load load = new Load(decayTime);
+        load.record(100, 1);
+        assertEquals(100, load.getLatency(1));
+
+        // The weight of the previous average is 1/e after the decay time
+        load.record(200, 1 + decayTime);
+        double weight = Math.exp(-1);
+        double latency = 100 * weight + 200 * (1 - weight);
+        assertEquals(latency, load.getLatency(1 + decayTime), 0.0001);
+
+        // decays towards zero since the last update
+        assertEquals(latency * weight, load.getLatency(1 + 2 * decayTime), 0.0001);
+    }
+
+    @Test
+    void testRetain() {
+        ServiceInstanceLoadStatistics loadStatistics = new ServiceInstanceLoadStatistics(1000);
+        Load load = loadStatistics.getLoad(this.a1);
+        loadStatistics.getLoad(this.a2);
+        loadStatistics.getLoad(this.b1);
+        assertEquals(3, loadStatistics.size());
+
+        loadStatistics.retain("a", ofList(this.a1));
+        assertEquals(2, loadStatistics.size());
+        assertSame(load, loadStatistics.getLoad(this.a1));
+        loadStatistics.retain("c", ofList());
+        assertEquals(2, loadStatistics.size());
+
+        loadStatistics.clear();
+        assertEquals(0, loadStatistics.size());
+        assertNotSame(load, loadStatistics.getLoad(this.a1));
+    }
+}
@@ -18,13 +18,16 @@ package io.microsphere.spring.cloud.gateway.server.webmvc.autoconfigure;
 
 import io.microsphere.spring.cloud.client.event.ServiceInstancesChangedEvent;
 import io.microsphere.spring.cloud.gateway.commons.annotation.ConditionalOnMicrosphereWebEndpointMappingEnabled;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RefreshScheduler;
 import io.microsphere.spring.cloud.gateway.server.webmvc.annotation.ConditionalOnGatewayServerMvcEnabled;
 import io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.cloud.autoconfigure.ConfigurationPropertiesRebinderAutoConfiguration;
 import org.springframework.cloud.client.ConditionalOnBlockingDiscoveryEnabled;
 import org.springframework.cloud.client.ConditionalOnDiscoveryEnabled;
+import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.discovery.composite.CompositeDiscoveryClientAutoConfiguration;
 import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
@@ -45,8 +48,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 
+import static io.microsphere.collection.Lists.ofList;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ID_KEY;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.SCHEME;
 import static io.microsphere.spring.cloud.gateway.server.webmvc.constants.GatewayPropertyConstants.GATEWAY_ROUTES_PROPERTY_NAME_PREFIX;
@@ -82,7 +85,7 @@ import static java.util.stream.Collectors.toUnmodifiableList;
 public class WebEndpointMappingGatewayServerMvcAutoConfiguration {
 
     @ConditionalOnBean(value = {GatewayMvcProperties.class, DiscoveryClient.class, LoadBalancerClientFactory.class})
-    static class WebEndpointMappingHandlerConfig implements SmartApplicationListener {
+    static class WebEndpointMappingHandlerConfig implements SmartApplicationListener, DisposableBean {
 
         private final GatewayMvcProperties gatewayMvcProperties;
 
@@ -90,6 +93,16 @@ public class WebEndpointMappingGatewayServerMvcAutoConfiguration {
 
         private final ConfigurableEnvironment environment;
 
+        /**
+         * The {@link RefreshScheduler.Statistics} of the refresh-triggering events across the refreshes
+         */
+        private final RefreshScheduler.Statistics refreshStatistics = new RefreshScheduler.Statistics();
+
+        /**
+         * The {@link RefreshScheduler} coalescing the refresh-triggering events per route
+         */
+        private volatile RefreshScheduler refreshScheduler = RefreshScheduler.of(null, this.refreshStatistics);
+
         WebEndpointMappingHandlerConfig(GatewayMvcProperties gatewayMvcProperties, ConfigurableApplicationContext context) {
             this.gatewayMvcProperties = gatewayMvcProperties;
             this.context = context;
@@ -110,11 +123,26 @@ public class WebEndpointMappingGatewayServerMvcAutoConfiguration {
             } else if (event instanceof EnvironmentChangeEvent environmentChangeEvent) {
                 onEnvironmentChangeEvent(environmentChangeEvent);
             } else {
-                onServiceInstancesChangedEvent();
+                onServiceInstancesChangedEvent((ServiceInstancesChangedEvent) event);
             }
         }
 
+        @Override
+        public void destroy() {
+            this.refreshScheduler.shutdown();
+        }
+
+        /**
+         * Get the {@link RefreshScheduler.Statistics} of the refresh-triggering events and the coalesced ones
+         *
+         * @return non-null
+         */
+        RefreshScheduler.Statistics getRefreshStatistics() {
+            return this.refreshStatistics;
+        }
+
         void onContextRefreshedEvent(ContextRefreshedEvent event) {
+            refreshScheduler();
             ApplicationContext context = event.getApplicationContext();
             List<RouteProperties> routes = getWebEndpointMappingRouteProperties();
             refresh(routes, context, handlerFilterFunction -> {
@@ -123,16 +151,45 @@ public class WebEndpointMappingGatewayServerMvcAutoConfiguration {
         }
 
         void onEnvironmentChangeEvent(EnvironmentChangeEvent event) {
-            refresh(() -> findWebEndpointMappingRouteProperties(event.getKeys()));
+            refreshScheduler();
+            for (RouteProperties routeProperties : getWebEndpointMappingRouteProperties()) {
+                WebEndpointMappingHandlerFilterFunction handlerFilterFunction = getWebEndpointMappingHandlerFilterFunction(routeProperties.getId());
+                if (handlerFilterFunction != null) {
+                    handlerFilterFunction.refreshParallelServiceLoader();
+                }
+            }
+            for (RouteProperties routeProperties : findWebEndpointMappingRouteProperties(event.getKeys())) {
+                this.refreshScheduler.schedule(routeProperties.getId(), () -> refresh(ofList(routeProperties), this.context));
+            }
         }
 
-        void onServiceInstancesChangedEvent() {
-            refresh(this::getWebEndpointMappingRouteProperties);
+        void onServiceInstancesChangedEvent(ServiceInstancesChangedEvent event) {
+            String serviceName = event.getServiceName();
+            List<ServiceInstance> serviceInstances = event.getServiceInstances();
+            for (RouteProperties routeProperties : getWebEndpointMappingRouteProperties()) {
+                WebEndpointMappingHandlerFilterFunction handlerFilterFunction = getWebEndpointMappingHandlerFilterFunction(routeProperties.getId());
+                if (handlerFilterFunction != null) {
+                    handlerFilterFunction.onServiceInstancesChanged(serviceName, serviceInstances);
+                    // Only the mappings of the changed service are rebuilt, and the pending rebuild is replaced by
+                    // the one with the latest instances
+                    this.refreshScheduler.schedule(routeProperties.getId() + "/" + serviceName,
+                            () -> handlerFilterFunction.refresh(routeProperties, this.context, serviceName, serviceInstances));
+                }
+            }
         }
 
-        private void refresh(Supplier<List<RouteProperties>> routesSupplier) {
-            List<RouteProperties> routes = routesSupplier.get();
-            refresh(routes, this.context);
+        /**
+         * Swap in the {@link RefreshScheduler} if its properties were changed, which is invoked on the
+         * {@link ContextRefreshedEvent} and the {@link EnvironmentChangeEvent} only, thus the scheduler never shuts
+         * down itself while running a refresh
+         */
+        private synchronized void refreshScheduler() {
+            RefreshScheduler refreshScheduler = this.refreshScheduler;
+            if (!refreshScheduler.hasSameSettings(this.environment)) {
+                this.refreshScheduler = RefreshScheduler.of(this.environment, this.refreshStatistics);
+                // The pending refreshes still run on their time
+                refreshScheduler.shutdown();
+            }
         }
 
         private void refresh(List<RouteProperties> routes, ApplicationContext context) {
@@ -21,55 +21,95 @@ import io.microsphere.annotation.Nonnull;
 import io.microsphere.annotation.Nullable;
 import io.microsphere.logging.Logger;
 import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig;
+import io.microsphere.spring.cloud.gateway.commons.config.WebEndpointConfig.HashPolicy;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.ConsistentHashSelector;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.OutlierDetector;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.SlowStartFilter;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex;
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.ZonePreferenceFilter;
+import io.microsphere.spring.cloud.gateway.commons.mapping.AbstractRequestMappingContext;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingRequest;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import io.microsphere.spring.cloud.gateway.commons.mapping.ParallelServiceLoader;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingInterner;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.commons.mapping.WebEndpointMappingsFingerprint;
 import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.cloud.gateway.server.mvc.filter.LoadBalancerFilterFunctions;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.servlet.function.HandlerFilterFunction;
 import org.springframework.web.servlet.function.HandlerFunction;
 import org.springframework.web.servlet.function.ServerRequest;
 import org.springframework.web.servlet.function.ServerResponse;
+import org.springframework.web.servlet.mvc.condition.NameValueExpression;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPattern.PathMatchInfo;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
-import static io.microsphere.collection.ListUtils.first;
-import static io.microsphere.collection.ListUtils.newArrayList;
 import static io.microsphere.constants.PathConstants.SLASH_CHAR;
 import static io.microsphere.logging.LoggerFactory.getLogger;
 import static io.microsphere.spring.cloud.client.service.util.ServiceInstanceUtils.getWebEndpointMappings;
 import static io.microsphere.spring.cloud.gateway.commons.config.ConfigUtils.getWebEndpointConfig;
 import static io.microsphere.spring.cloud.gateway.commons.constants.CommonConstants.APPLICATION_NAME_URI_TEMPLATE_VARIABLE_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.DEFAULT_MATCHING_CACHE_MAX_SIZE;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.ALL_SERVICES;
 import static io.microsphere.spring.cloud.gateway.commons.constants.RouteConstants.WEB_ENDPOINT_REWRITE_PATH_ATTRIBUTE_NAME;
+import static io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex.EMPTY;
 import static io.microsphere.spring.web.metadata.WebEndpointMapping.ID_HEADER_NAME;
 import static io.microsphere.util.StringUtils.isBlank;
 import static io.microsphere.util.StringUtils.substringAfter;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.nanoTime;
 import static java.lang.String.valueOf;
 import static java.net.URI.create;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.list;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Stream.of;
 import static org.springframework.cloud.gateway.server.mvc.common.MvcUtils.GATEWAY_REQUEST_URL_ATTR;
 import static org.springframework.cloud.gateway.server.mvc.common.MvcUtils.GATEWAY_ROUTE_ID_ATTR;
 import static org.springframework.cloud.gateway.server.mvc.common.MvcUtils.getAttribute;
-import static org.springframework.cloud.gateway.server.mvc.filter.LoadBalancerFilterFunctions.lb;
+import static org.springframework.cloud.gateway.server.mvc.common.MvcUtils.setRequestUrl;
+import static org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools.reconstructURI;
+import static org.springframework.http.HttpMethod.HEAD;
 import static org.springframework.http.server.RequestPath.parse;
-import static org.springframework.util.CollectionUtils.isEmpty;
 import static org.springframework.util.StringUtils.commaDelimitedListToSet;
+import static org.springframework.web.cors.CorsUtils.isPreFlightRequest;
 import static org.springframework.web.servlet.function.ServerRequest.from;
 import static org.springframework.web.servlet.mvc.method.RequestMappingInfo.paths;
+import static org.springframework.web.util.ServletRequestPathUtils.getParsedRequestPath;
 import static org.springframework.web.util.ServletRequestPathUtils.setParsedRequestPath;
 
 /**
@@ -84,6 +124,12 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
 
     private static final Logger logger = getLogger(WebEndpointMappingHandlerFilterFunction.class);
 
+    /**
+     * The {@link RequestMappingInterner} of the {@link RequestMappingInfo RequestMappingInfos} shared by the services
+     * and the routes
+     */
+    static final RequestMappingInterner<RequestMappingInfo> requestMappingInfoInterner = new RequestMappingInterner<>();
+
     private final String routeId;
 
     @Nonnull
@@ -92,9 +138,100 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
     @Nonnull
     private ApplicationContext context;
 
-    volatile Collection<RequestMappingContext> requestMappingContexts = null;
+    @Nullable
+    private LoadBalancerClientFactory clientFactory;
+
+    /**
+     * The cache of the load-balancing {@link HandlerFilterFunction HandlerFilterFunctions} keyed by the application
+     * name, which are invalidated when the instances of the application are changed
+     */
+    private final Map<String, HandlerFilterFunction<ServerResponse, ServerResponse>> loadBalancerFilterFunctions = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link RequestMappingTable RequestMappingTables} keyed by the application name, thus the tables and the
+     * {@link MatchingResultCache matching result caches} of the other applications are kept by the incremental refresh
+     */
+    volatile Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = null;
+
+    /**
+     * The {@link RequestMappingTable} of the excluded mappings
+     */
+    volatile RequestMappingTable<RequestMappingContext, ServletMatchingRequest> excludedRequestMappingContexts = null;
+
+    /**
+     * The {@link Statistics} of the {@link MatchingResultCache matching result caches} across the refreshes
+     */
+    private final Statistics matchingCacheStatistics = new Statistics();
+
+    /**
+     * The {@link WebEndpointMappingInstanceIndex WebEndpointMappingInstanceIndexes} keyed by the application name
+     */
+    volatile Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = emptyMap();
+
+    /**
+     * The last built {@link ServiceRequestMappings} keyed by the application name, whose {@link RequestMappingTable}
+     * is reused if the {@link WebEndpointMappingsFingerprint fingerprints} of the mappings are unchanged
+     */
+    final Map<String, ServiceRequestMappings> serviceRequestMappingsCache = new ConcurrentHashMap<>();
+
+    /**
+     * The generation of the refreshes, which is increased by every incremental refresh
+     */
+    private final AtomicLong refreshGeneration = new AtomicLong();
+
+    /**
+     * The generations of the {@link ServiceRequestMappings} swapped into {@link #serviceRequestMappingsCache} keyed by
+     * the application name, guarded by <code>this</code>, thus the full refresh never overwrites the applications
+     * refreshed incrementally after it started
+     */
+    private final Map<String, Long> serviceRefreshGenerations = new HashMap<>();
+
+    /**
+     * The {@link ZonePreferenceFilter} of the instances chosen by the mappings
+     */
+    private volatile ZonePreferenceFilter zonePreferenceFilter = ZonePreferenceFilter.NONE;
+
+    /**
+     * The {@link SlowStartFilter} keeping the first-seen times of the instances
+     */
+    private volatile SlowStartFilter slowStartFilter = SlowStartFilter.NONE;
+
+    /**
+     * The {@link OutlierDetector.Statistics} shared by the {@link OutlierDetector OutlierDetectors} across the refreshes
+     */
+    private final OutlierDetector.Statistics outlierStatistics = new OutlierDetector.Statistics();
 
-    volatile Collection<RequestMappingInfo> excludedRequestMappingInfoSet = null;
+    /**
+     * The {@link OutlierDetector} tracking the responses routed by this function
+     */
+    private volatile OutlierDetector outlierDetector = OutlierDetector.NONE;
+
+    /**
+     * The {@link HashPolicy} of the route, <code>null</code> if the instance is not chosen by the consistent hashing
+     */
+    @Nullable
+    private volatile HashPolicy hashPolicy;
+
+    /**
+     * The {@link ConsistentHashSelector} of the instances chosen by the {@link HashPolicy}
+     */
+    private final ConsistentHashSelector consistentHashSelector = new ConsistentHashSelector();
+
+    /**
+     * The positions of the round-robin over the filtered instances keyed by the application name
+     */
+    private final Map<String, AtomicInteger> roundRobinPositions = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link ParallelServiceLoader} building the {@link RequestMappingContext RequestMappingContexts} of the
+     * applications in parallel on the full refresh
+     */
+    volatile ParallelServiceLoader parallelServiceLoader = ParallelServiceLoader.of(null);
+
+    /**
+     * The in-flight full refresh, which is cancelled by the next one
+     */
+    CompletableFuture<Void> refreshing = completedFuture(null);
 
     public WebEndpointMappingHandlerFilterFunction(final String routeId) {
         this.routeId = routeId;
@@ -117,10 +254,9 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
             return next.handle(request);
         }
 
-        HandlerFilterFunction<ServerResponse, ServerResponse> lbHandlerFunctionDefinition = lb(applicationName);
         Map<String, Object> attributes = request.attributes();
         String rewritePath = (String) attributes.remove(WEB_ENDPOINT_REWRITE_PATH_ATTRIBUTE_NAME);
-        int id = requestMappingContext.id;
+        int id = requestMappingContext.getId();
         ServerRequest newRequest = from(request)
                 .uri(create(rewritePath))
                 .header(ID_HEADER_NAME, valueOf(id))
@@ -128,12 +264,108 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
 
         attributes.put(GATEWAY_REQUEST_URL_ATTR, newRequest.uri());
 
-        return lbHandlerFunctionDefinition.filter(newRequest, next);
+        WebEndpointMappingInstanceIndex instanceIndex = this.serviceInstanceIndexes.getOrDefault(applicationName, EMPTY);
+        HashPolicy hashPolicy = this.hashPolicy;
+        String hashKey = hashPolicy == null ? null : hashPolicy.getHashKey(request,
+                (r, name) -> r.headers().firstHeader(name),
+                WebEndpointMappingHandlerFilterFunction::getCookieValue,
+                (r, name) -> requestMappingContext.getPathVariable(getParsedRequestPath(r.servletRequest()).pathWithinApplication(), name));
+        if (hashKey != null) {
+            // The instance is chosen by the consistent hashing of the request key
+            ConsistentHashSelector consistentHashSelector = this.consistentHashSelector;
+            ServiceInstance serviceInstance = choose(applicationName, instanceIndex, id, hashKey, hashPolicy.getLoadFactor());
+            if (serviceInstance != null) {
+                setRequestUrl(newRequest, reconstructURI(serviceInstance, newRequest.uri()));
+                consistentHashSelector.begin(serviceInstance);
+                try {
+                    return handle(applicationName, newRequest, next, null);
+                } finally {
+                    consistentHashSelector.end(serviceInstance);
+                }
+            }
+        }
+
+        if (this.zonePreferenceFilter.isEnabled() || this.slowStartFilter.isEnabled()
+                || this.outlierDetector.isEjecting(applicationName) || !instanceIndex.isServedByAll(id)) {
+            // Only the instances exposing the mapping are chosen during the rolling deployment, the instances in the
+            // gateway's zone are preferred, the new instances are chosen less often in the slow-start window, and the
+            // ejected instances are never chosen
+            ServiceInstance serviceInstance = choose(applicationName, instanceIndex, id);
+            if (serviceInstance != null) {
+                setRequestUrl(newRequest, reconstructURI(serviceInstance, newRequest.uri()));
+                return handle(applicationName, newRequest, next, null);
+            }
+        }
+
+        return handle(applicationName, newRequest, next, getLoadBalancerFilterFunction(applicationName));
+    }
+
+    /**
+     * Handle the request by the load-balancing {@link HandlerFilterFunction} or the next {@link HandlerFunction} if
+     * the instance was chosen, the response of the instance in the request URL is recorded into the
+     * {@link OutlierDetector} if enabled
+     *
+     * @param applicationName            the application name
+     * @param request                    {@link ServerRequest}
+     * @param next                       the next {@link HandlerFunction}
+     * @param loadBalancerFilterFunction the load-balancing {@link HandlerFilterFunction}, <code>null</code> if the
+     *                                   instance was chosen
+     * @return {@link ServerResponse}
+     * @throws Exception if failed
+     */
+    private ServerResponse handle(String applicationName, ServerRequest request, HandlerFunction<ServerResponse> next,
+                                  @Nullable HandlerFilterFunction<ServerResponse, ServerResponse> loadBalancerFilterFunction) throws Exception {
+        OutlierDetector outlierDetector = this.outlierDetector;
+        if (!outlierDetector.isEnabled()) {
+            return loadBalancerFilterFunction == null ? next.handle(request) : loadBalancerFilterFunction.filter(request, next);
+        }
+        long startTime = nanoTime();
+        int statusCode = 0;
+        try {
+            ServerResponse response = loadBalancerFilterFunction == null ? next.handle(request) :
+                    loadBalancerFilterFunction.filter(request, next);
+            statusCode = response.statusCode().value();
+            return response;
+        } finally {
+            // The request URL was reconstructed by the chosen instance
+            Object requestUrl = request.attributes().get(GATEWAY_REQUEST_URL_ATTR);
+            if (requestUrl instanceof URI url && url.getHost() != null) {
+                outlierDetector.record(applicationName, url.getHost(), getPort(url), statusCode,
+                        NANOSECONDS.toMillis(nanoTime() - startTime));
+            }
+        }
     }
 
     public void setApplicationContext(ApplicationContext context) {
         this.context = context;
         this.discoveryClient = context.getBean(DiscoveryClient.class);
+        this.clientFactory = context.getBeanProvider(LoadBalancerClientFactory.class).getIfAvailable();
+    }
+
+    /**
+     * Get the load-balancing {@link HandlerFilterFunction} of the application from the cache
+     *
+     * @param applicationName the application name
+     * @return non-null
+     */
+    @Nonnull
+    HandlerFilterFunction<ServerResponse, ServerResponse> getLoadBalancerFilterFunction(String applicationName) {
+        return this.loadBalancerFilterFunctions.computeIfAbsent(applicationName, LoadBalancerFilterFunctions::lb);
+    }
+
+    /**
+     * Invalidate the cached states of the application whose instances were changed, record the first-seen times of
+     * the instances for the slow start, and remove the outliers of the gone instances
+     *
+     * @param applicationName  the application name
+     * @param serviceInstances all {@link ServiceInstance service instances} of the application
+     */
+    public void onServiceInstancesChanged(String applicationName, List<ServiceInstance> serviceInstances) {
+        this.loadBalancerFilterFunctions.remove(applicationName);
+        this.roundRobinPositions.remove(applicationName);
+        this.slowStartFilter.onServiceInstancesChanged(applicationName, serviceInstances);
+        this.outlierDetector.retain(applicationName, serviceInstances);
+        this.consistentHashSelector.retain(applicationName, serviceInstances);
     }
 
     public void refresh(RouteProperties routeProperties, ApplicationContext context) {
@@ -145,36 +377,263 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
             return;
         }
 
-        Collection<RequestMappingContext> requestMappingContexts = buildRequestMappingContexts(routeProperties);
+        if (this.requestMappingContexts == null) {
+            refreshParallelServiceLoader();
+        }
+        refreshSettings(routeProperties, context);
+
+        Collection<String> subscribedServices = getSubscribedServices(routeProperties.getUri());
+        long generation = this.refreshGeneration.get();
+        // The applications timed out or failed are absent, and fall back to the last built ones at the swap
+        CompletableFuture<Void> refreshing = this.parallelServiceLoader.load(subscribedServices,
+                        this::buildServiceRequestMappings, applicationName -> null)
+                .thenAccept(serviceRequestMappingsMap -> refresh(routeProperties, subscribedServices, serviceRequestMappingsMap, generation));
+
+        if (this.requestMappingContexts == null) {
+            // The initial refresh blocks until the route is ready
+            refreshing.join();
+            return;
+        }
+        // The subsequent refreshes never block the event publisher, and the previous one is cancelled
+        synchronized (this) {
+            this.refreshing.cancel(false);
+            this.refreshing = refreshing;
+        }
+        refreshing.exceptionally(e -> {
+            if (!refreshing.isCancelled()) {
+                logger.error("The full refresh of the route['{}'] was failed", this.routeId, e);
+            }
+            return null;
+        });
+    }
 
-        Set<RequestMappingInfo> excludedRequestMappingInfoSet = buildExcludedRequestMappingInfoSet(routeProperties);
+    /**
+     * Swap in the {@link RequestMappingTable RequestMappingTables} of the full refresh
+     *
+     * @param routeProperties           {@link RouteProperties}
+     * @param subscribedServices        the subscribed applications
+     * @param serviceRequestMappingsMap the loaded {@link ServiceRequestMappings} keyed by the application name
+     * @param generation                the {@link #refreshGeneration generation} when the full refresh started
+     */
+    private void refresh(RouteProperties routeProperties, Collection<String> subscribedServices,
+                         Map<String, ServiceRequestMappings> serviceRequestMappingsMap, long generation) {
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> excludedRequestMappingContexts =
+                buildExcludedRequestMappingContexts(buildExcludedRequestMappingInfoSet(routeProperties));
+        Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = new HashMap<>(subscribedServices.size());
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = new HashMap<>(subscribedServices.size());
 
+        // The tables were built by the loading, the lock only guards the copy-on-write swap
         synchronized (this) {
+            for (String subscribedService : subscribedServices) {
+                ServiceRequestMappings serviceRequestMappings = serviceRequestMappingsMap.get(subscribedService);
+                if (serviceRequestMappings == null
+                        || this.serviceRefreshGenerations.getOrDefault(subscribedService, 0L) > generation) {
+                    // Timed out, failed, or refreshed incrementally after the full refresh started
+                    serviceRequestMappings = getServiceRequestMappings(subscribedService);
+                } else {
+                    this.serviceRequestMappingsCache.put(subscribedService, serviceRequestMappings);
+                    this.serviceRefreshGenerations.put(subscribedService, generation);
+                }
+                if (serviceRequestMappings != null) {
+                    requestMappingContexts.put(subscribedService, serviceRequestMappings.requestMappingTable);
+                    serviceInstanceIndexes.put(subscribedService, serviceRequestMappings.instanceIndex);
+                }
+            }
+            // The applications no longer subscribed
+            this.serviceRequestMappingsCache.keySet().retainAll(requestMappingContexts.keySet());
+            this.serviceRefreshGenerations.keySet().retainAll(requestMappingContexts.keySet());
             this.requestMappingContexts = requestMappingContexts;
-            this.excludedRequestMappingInfoSet = excludedRequestMappingInfoSet;
+            this.excludedRequestMappingContexts = excludedRequestMappingContexts;
+            this.serviceInstanceIndexes = serviceInstanceIndexes;
         }
 
-        logger.trace("The 'requestMappingContexts' and 'excludedRequestMappingInfoSet' were refreshed!");
+        logger.trace("The 'requestMappingContexts' and 'excludedRequestMappingContexts' were refreshed!");
     }
 
-    Collection<RequestMappingContext> buildRequestMappingContexts(RouteProperties routeProperties) {
-        URI routeUri = routeProperties.getUri();
-        Collection<String> subscribedServices = getSubscribedServices(routeUri);
-        Collection<RequestMappingContext> requestMappingContexts = new LinkedList<>();
-        // TODO support ZonePreferenceFilter
-        for (String subscribedService : subscribedServices) {
-            ServiceInstance sampleServiceInstance = choose(subscribedService);
-            if (sampleServiceInstance != null) {
-                Collection<WebEndpointMapping> webEndpointMappings = getWebEndpointMappings(sampleServiceInstance);
-                for (WebEndpointMapping webEndpointMapping : webEndpointMappings) {
-                    RequestMappingContext requestMappingContext = new RequestMappingContext(webEndpointMapping);
-                    requestMappingContexts.add(requestMappingContext);
-                }
+    /**
+     * Refresh the {@link RequestMappingTable} and the {@link WebEndpointMappingInstanceIndex} of the changed
+     * application only, the ones of the other applications and the excluded mappings are reused
+     *
+     * @param routeProperties  {@link RouteProperties}
+     * @param context          {@link ApplicationContext}
+     * @param applicationName  the name of the changed application
+     * @param serviceInstances all {@link ServiceInstance service instances} of the application
+     */
+    public void refresh(RouteProperties routeProperties, ApplicationContext context, String applicationName,
+                        List<ServiceInstance> serviceInstances) {
+        if (context != this.context) {
+            return;
+        }
+
+        if (!Objects.equals(this.routeId, routeProperties.getId())) {
+            return;
+        }
+
+        if (this.requestMappingContexts == null) {
+            // Not initialized
+            refresh(routeProperties, context);
+            return;
+        }
+
+        if (!isSubscribedService(routeProperties.getUri(), applicationName)) {
+            return;
+        }
+
+        refreshSettings(routeProperties, context);
+
+        long generation = this.refreshGeneration.incrementAndGet();
+        // The table is built outside the lock, which only guards the copy-on-write swap
+        ServiceRequestMappings serviceRequestMappings = buildServiceRequestMappings(applicationName, serviceInstances);
+        synchronized (this) {
+            if (this.serviceRefreshGenerations.getOrDefault(applicationName, 0L) >= generation) {
+                logger.trace("The application['{}'] was refreshed by a newer refresh", applicationName);
+                return;
             }
+            this.serviceRefreshGenerations.put(applicationName, generation);
+            this.serviceRequestMappingsCache.put(applicationName, serviceRequestMappings);
+            Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = new HashMap<>(this.requestMappingContexts);
+            requestMappingContexts.put(applicationName, serviceRequestMappings.requestMappingTable);
+            Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = new HashMap<>(this.serviceInstanceIndexes);
+            serviceInstanceIndexes.put(applicationName, serviceRequestMappings.instanceIndex);
+            this.requestMappingContexts = requestMappingContexts;
+            this.serviceInstanceIndexes = serviceInstanceIndexes;
+        }
+
+        logger.trace("The 'requestMappingContexts' of application['{}'] were refreshed!", applicationName);
+    }
+
+    private void refreshSettings(RouteProperties routeProperties, ApplicationContext context) {
+        this.zonePreferenceFilter = ZonePreferenceFilter.of(context.getEnvironment());
+        SlowStartFilter slowStartFilter = SlowStartFilter.of(context.getEnvironment());
+        if (slowStartFilter.getWindow() != this.slowStartFilter.getWindow()) {
+            this.slowStartFilter = slowStartFilter;
+        }
+        OutlierDetector outlierDetector = OutlierDetector.of(context.getEnvironment(), this.outlierStatistics);
+        if (!outlierDetector.hasSameSettings(this.outlierDetector)) {
+            this.outlierDetector = outlierDetector;
+        }
+        WebEndpointConfig webEndpointConfig = getWebEndpointConfig(routeProperties.getMetadata());
+        this.hashPolicy = webEndpointConfig == null ? null : webEndpointConfig.getHashPolicy();
+    }
+
+    /**
+     * Swap in the {@link ParallelServiceLoader} if its properties were changed, which is invoked by the initial
+     * refresh and then on the {@link org.springframework.cloud.context.environment.EnvironmentChangeEvent} only
+     */
+    public synchronized void refreshParallelServiceLoader() {
+        ApplicationContext context = this.context;
+        if (context == null) {
+            return;
+        }
+        ParallelServiceLoader parallelServiceLoader = this.parallelServiceLoader;
+        if (!parallelServiceLoader.hasSameSettings(context.getEnvironment())) {
+            this.parallelServiceLoader = ParallelServiceLoader.of(context.getEnvironment());
+            parallelServiceLoader.shutdown();
+        }
+    }
+
+    /**
+     * Build the {@link RequestMappingTable RequestMappingTables} of the subscribed services keyed by the application
+     * name, each one is built from the union of the mappings of all instances of the service
+     *
+     * @param routeProperties {@link RouteProperties}
+     * @return non-null
+     */
+    Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> buildRequestMappingContexts(RouteProperties routeProperties) {
+        Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = new LinkedHashMap<>();
+        for (String subscribedService : getSubscribedServices(routeProperties.getUri())) {
+            requestMappingContexts.put(subscribedService, buildServiceRequestMappings(subscribedService).requestMappingTable);
         }
         return requestMappingContexts;
     }
 
+    private ServiceRequestMappings buildServiceRequestMappings(String applicationName) {
+        List<ServiceInstance> serviceInstances = getServiceInstances(applicationName);
+        // The instances discovered before the first refresh are warm
+        this.slowStartFilter.initialize(applicationName, serviceInstances);
+        return buildServiceRequestMappings(applicationName, serviceInstances);
+    }
+
+    /**
+     * Get the last built {@link ServiceRequestMappings} of the application, which is the fallback when the application
+     * is timed out or failed to build, or refreshed incrementally after the full refresh started
+     *
+     * @param applicationName the application name
+     * @return <code>null</code> if the application was never built
+     */
+    @Nullable
+    private ServiceRequestMappings getServiceRequestMappings(String applicationName) {
+        return this.serviceRequestMappingsCache.get(applicationName);
+    }
+
+    /**
+     * Build the {@link RequestMappingTable} of the application from the union of the mappings of the instances, and
+     * index the instances by the mappings they serve. The result is cached only when it is swapped in, thus the late
+     * result of the timed-out loading is discarded.
+     *
+     * @param applicationName  the application name
+     * @param serviceInstances all {@link ServiceInstance service instances} of the application
+     * @return non-null
+     */
+    private ServiceRequestMappings buildServiceRequestMappings(String applicationName, List<ServiceInstance> serviceInstances) {
+        int matchingCacheMaxSize = getMatchingCacheMaxSize();
+        WebEndpointMappingsFingerprint fingerprint = WebEndpointMappingsFingerprint.of(serviceInstances);
+        ServiceRequestMappings previous = this.serviceRequestMappingsCache.get(applicationName);
+        if (previous != null && !fingerprint.isEmpty() && fingerprint.equals(previous.fingerprint)
+                && previous.requestMappingTable.getCache().getMaxSize() == matchingCacheMaxSize) {
+            // The mappings are unchanged, only the instances are re-indexed
+            Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>(serviceInstances.size());
+            for (ServiceInstance serviceInstance : serviceInstances) {
+                instanceWebEndpointMappings.put(serviceInstance, previous.fingerprint.getWebEndpointMappings(serviceInstance));
+            }
+            logger.trace("The mappings of application['{}'] were unchanged", applicationName);
+            ServiceRequestMappings serviceRequestMappings = new ServiceRequestMappings(previous.requestMappingTable,
+                    new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings), previous.fingerprint);
+            return serviceRequestMappings;
+        }
+        Map<ServiceInstance, Collection<WebEndpointMapping>> instanceWebEndpointMappings = new LinkedHashMap<>(serviceInstances.size());
+        // The union of mappings keyed by the id
+        Map<Integer, WebEndpointMapping> webEndpointMappings = new LinkedHashMap<>();
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            Collection<WebEndpointMapping> instanceMappings = fingerprint.getWebEndpointMappings(serviceInstance);
+            instanceWebEndpointMappings.put(serviceInstance, instanceMappings);
+            for (WebEndpointMapping webEndpointMapping : instanceMappings) {
+                webEndpointMappings.putIfAbsent(webEndpointMapping.getId(), webEndpointMapping);
+            }
+        }
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>(webEndpointMappings.size());
+        for (WebEndpointMapping webEndpointMapping : webEndpointMappings.values()) {
+            RequestMappingInfo requestMappingInfo = requestMappingInfoInterner.intern(webEndpointMapping,
+                    WebEndpointMappingHandlerFilterFunction::buildRequestMappingInfo);
+            requestMappingContexts.add(new RequestMappingContext(requestMappingInfo, webEndpointMapping.getId()));
+        }
+        MatchingResultCache<String, RequestMappingContext> cache = new MatchingResultCache<>(matchingCacheMaxSize, this.matchingCacheStatistics);
+        ServiceRequestMappings serviceRequestMappings = new ServiceRequestMappings(buildRequestMappingTable(requestMappingContexts, cache),
+                new WebEndpointMappingInstanceIndex(instanceWebEndpointMappings), fingerprint);
+        return serviceRequestMappings;
+    }
+
+    private int getMatchingCacheMaxSize() {
+        ApplicationContext context = this.context;
+        String maxSize = context == null ? DEFAULT_MATCHING_CACHE_MAX_SIZE :
+                context.getEnvironment().getProperty(MATCHING_CACHE_MAX_SIZE_PROPERTY_NAME, DEFAULT_MATCHING_CACHE_MAX_SIZE);
+        return parseInt(maxSize);
+    }
+
+    /**
+     * Build the {@link RequestMappingTable} of {@link RequestMappingContext RequestMappingContexts}, whose best match
+     * of HTTP HEAD request is found by sorting all matches, because the "methods" condition takes precedence over
+     * the others for it
+     *
+     * @param requestMappingContexts {@link RequestMappingContext RequestMappingContexts}
+     * @param cache                  {@link MatchingResultCache}
+     * @return non-null
+     */
+    static RequestMappingTable<RequestMappingContext, ServletMatchingRequest> buildRequestMappingTable(List<RequestMappingContext> requestMappingContexts,
+                                          MatchingResultCache<String, RequestMappingContext> cache) {
+        return new RequestMappingTable<>(requestMappingContexts, cache, request -> HEAD.matches(request.getMethod()));
+    }
+
     Set<RequestMappingInfo> buildExcludedRequestMappingInfoSet(RouteProperties routeProperties) {
         WebEndpointConfig webEndpointConfig = getWebEndpointConfig(routeProperties.getMetadata());
         if (webEndpointConfig == null) {
@@ -184,15 +643,94 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
         List<WebEndpointConfig.Mapping> excludes = webEndpointConfig.getExcludes();
         Set<RequestMappingInfo> requestMappingInfoSet = new HashSet<>(excludes.size());
         for (WebEndpointConfig.Mapping exclude : excludes) {
-            requestMappingInfoSet.add(buildRequestMappingInfo(exclude));
+            requestMappingInfoSet.add(requestMappingInfoInterner.intern(exclude, WebEndpointMappingHandlerFilterFunction::buildRequestMappingInfo));
         }
         return requestMappingInfoSet;
     }
 
+    /**
+     * Build the {@link RequestMappingTable} of the excluded {@link RequestMappingInfo RequestMappingInfos}
+     *
+     * @param excludedRequestMappingInfos the excluded {@link RequestMappingInfo RequestMappingInfos}
+     * @return non-null
+     */
+    static RequestMappingTable<RequestMappingContext, ServletMatchingRequest> buildExcludedRequestMappingContexts(Collection<RequestMappingInfo> excludedRequestMappingInfos) {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>(excludedRequestMappingInfos.size());
+        for (RequestMappingInfo excludedRequestMappingInfo : excludedRequestMappingInfos) {
+            requestMappingContexts.add(new RequestMappingContext(excludedRequestMappingInfo, 0));
+        }
+        // The exclusions are never cached
+        return buildRequestMappingTable(requestMappingContexts, new MatchingResultCache<>(0));
+    }
+
+    /**
+     * Choose the {@link ServiceInstance} in round-robin from the instances that are filtered by the
+     * {@link WebEndpointMappingInstanceIndex}, the {@link OutlierDetector}, the {@link ZonePreferenceFilter} and the
+     * {@link SlowStartFilter}
+     *
+     * @param applicationName the application name
+     * @param instanceIndex   the {@link WebEndpointMappingInstanceIndex} of the application
+     * @param mappingId       the id of the matched {@link WebEndpointMapping}
+     * @return <code>null</code> if no {@link ServiceInstance} is available
+     */
+    @Nullable
+    private ServiceInstance choose(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId) {
+        List<ServiceInstance> serviceInstances = this.slowStartFilter.filter(this.zonePreferenceFilter.filter(
+                this.outlierDetector.filter(instanceIndex.filter(getServiceInstances(applicationName), mappingId))));
+        int size = serviceInstances.size();
+        if (size == 0) {
+            return null;
+        }
+        AtomicInteger position = this.roundRobinPositions.computeIfAbsent(applicationName, name -> new AtomicInteger());
+        return serviceInstances.get((position.getAndIncrement() & Integer.MAX_VALUE) % size);
+    }
+
+    /**
+     * Choose the {@link ServiceInstance} by the consistent hashing of the request key from the instances that are
+     * filtered by the {@link WebEndpointMappingInstanceIndex}, the {@link OutlierDetector} and the
+     * {@link ZonePreferenceFilter}, the {@link SlowStartFilter} is not applied, because the keys of the warming instance
+     * must not be moved.
+     *
+     * @param applicationName the application name
+     * @param instanceIndex   the {@link WebEndpointMappingInstanceIndex} of the application
+     * @param mappingId       the id of the matched {@link WebEndpointMapping}
+     * @param hashKey         the hash key of the request
+     * @param loadFactor      the load factor of the bounded load
+     * @return <code>null</code> if no {@link ServiceInstance} is available
+     * @see ConsistentHashSelector
+     */
+    @Nullable
+    ServiceInstance choose(String applicationName, WebEndpointMappingInstanceIndex instanceIndex, int mappingId,
+                           String hashKey, double loadFactor) {
+        List<ServiceInstance> serviceInstances = getServiceInstances(applicationName);
+        return this.consistentHashSelector.choose(serviceInstances, this.zonePreferenceFilter.filter(
+                this.outlierDetector.filter(instanceIndex.filter(serviceInstances, mappingId))), hashKey, loadFactor);
+    }
+
     @Nullable
-    private ServiceInstance choose(String applicationName) {
-        List<ServiceInstance> serviceInstances = this.discoveryClient.getInstances(applicationName);
-        return serviceInstances.stream().findAny().orElse(null);
+    static String getCookieValue(ServerRequest request, String name) {
+        Cookie cookie = request.cookies().getFirst(name);
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    /**
+     * Get the {@link ServiceInstance service instances} of the application from the {@link ServiceInstanceListSupplier}
+     * of the {@link LoadBalancerClientFactory}, which are cached by the load balancer, or from the
+     * {@link DiscoveryClient} if the supplier is absent
+     *
+     * @param applicationName the application name
+     * @return non-null
+     */
+    @Nonnull
+    List<ServiceInstance> getServiceInstances(String applicationName) {
+        LoadBalancerClientFactory clientFactory = this.clientFactory;
+        ServiceInstanceListSupplier serviceInstanceListSupplier = clientFactory == null ? null :
+                clientFactory.getInstance(applicationName, ServiceInstanceListSupplier.class);
+        if (serviceInstanceListSupplier == null) {
+            return this.discoveryClient.getInstances(applicationName);
+        }
+        List<ServiceInstance> serviceInstances = serviceInstanceListSupplier.get().blockFirst();
+        return serviceInstances == null ? emptyList() : serviceInstances;
     }
 
     private RequestMappingContext getMatchingRequestMappingContext(String applicationName, ServerRequest request) {
@@ -200,6 +738,11 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
         return getMatchingRequestMappingContext(applicationName, routeId, request);
     }
 
+    static boolean isSubscribedService(URI uri, String applicationName) {
+        String host = uri.getHost();
+        return ALL_SERVICES.equals(host) || commaDelimitedListToSet(host).contains(applicationName);
+    }
+
     Collection<String> getSubscribedServices(URI uri) {
         String host = uri.getHost();
         if (ALL_SERVICES.equals(host)) {
@@ -216,11 +759,20 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
             return null;
         }
 
-        Collection<RequestMappingContext> requestMappingContexts = this.requestMappingContexts;
+        Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = this.requestMappingContexts;
 
-        if (isEmpty(requestMappingContexts)) {
+        if (requestMappingContexts == null) {
+            // No RequestMappingContexts for routing
+            logger.trace("The 'requestMappingContexts' of route id['{}'] was not initialized", routeId);
+            return null;
+        }
+
+        // Only the mappings of the requested application will be scanned
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> requestMappingTable = requestMappingContexts.get(applicationName);
+
+        if (requestMappingTable == null || requestMappingTable.isEmpty()) {
             // No RequestMappingContext found
-            logger.trace("No RequestMappingContext was not found by route id['{}'] : {}", routeId, requestMappingContexts);
+            logger.trace("No RequestMappingContext was not found by route id['{}'] and application['{}']", routeId, applicationName);
             return null;
         }
 
@@ -232,53 +784,289 @@ public class WebEndpointMappingHandlerFilterFunction implements HandlerFilterFun
         RequestPath rewriteRequestPath = parse(rewritePath, null);
         setParsedRequestPath(rewriteRequestPath, servletRequest);
 
-        List<RequestMappingContext> matchesRequestMappings = newArrayList(requestMappingContexts.size());
-        for (RequestMappingContext requestMappingContext : requestMappingContexts) {
-            if (matchesRequestMapping(requestMappingContext, servletRequest)) {
-                // matches the request mappings
-                matchesRequestMappings.add(requestMappingContext);
-            }
+        return requestMappingTable.getMatchingRequestMappingContext(
+                new ServletMatchingRequest(servletRequest, rewriteRequestPath.pathWithinApplication()));
+    }
+
+    boolean isExcludedRequest(HttpServletRequest request) {
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> excludedRequestMappingContexts = this.excludedRequestMappingContexts;
+        return excludedRequestMappingContexts != null && isExcludedRequest(excludedRequestMappingContexts, request);
+    }
+
+    /**
+     * Whether the request is excluded, only the excluded mappings that accept the request method and whose literal
+     * path segments match the request path will be evaluated, thus the most requests are rejected by the lookups of
+     * the literal segments.
+     *
+     * @param excludedRequestMappingContexts the {@link RequestMappingTable} of the excluded mappings
+     * @param request                        {@link HttpServletRequest} with the parsed request path
+     * @return <code>true</code> if excluded
+     */
+    static boolean isExcludedRequest(RequestMappingTable<RequestMappingContext, ServletMatchingRequest> excludedRequestMappingContexts, HttpServletRequest request) {
+        if (excludedRequestMappingContexts.isEmpty()) {
+            return false;
+        }
+        PathContainer path = getParsedRequestPath(request).pathWithinApplication();
+        return excludedRequestMappingContexts.anyMatch(new ServletMatchingRequest(request, path));
+    }
+
+    /**
+     * Get the port of the {@link URI}, the default port of the scheme if absent
+     *
+     * @param url {@link URI}
+     * @return the port
+     */
+    static int getPort(URI url) {
+        int port = url.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(url.getScheme()) ? 443 : 80;
         }
-        matchesRequestMappings.sort((v1, v2) -> v1.compareTo(v2, servletRequest));
+        return port;
+    }
 
-        return first(matchesRequestMappings);
+    /**
+     * Get the {@link Statistics} of the {@link MatchingResultCache matching result caches}
+     *
+     * @return non-null
+     */
+    public Statistics getMatchingCacheStatistics() {
+        return this.matchingCacheStatistics;
     }
 
-    private boolean matchesRequestMapping(RequestMappingContext requestMappingContext, HttpServletRequest servletRequest) {
-        RequestMappingInfo requestMappingInfo = requestMappingContext.requestMappingInfo;
-        return matches(requestMappingInfo, servletRequest);
+    /**
+     * Get the {@link OutlierDetector.Statistics} of the failures and the ejections
+     *
+     * @return non-null
+     */
+    public OutlierDetector.Statistics getOutlierStatistics() {
+        return this.outlierStatistics;
     }
 
-    boolean isExcludedRequest(HttpServletRequest request) {
-        Collection<RequestMappingInfo> excludedRequestMappingInfoSet = this.excludedRequestMappingInfoSet;
-        if (excludedRequestMappingInfoSet != null) {
-            for (RequestMappingInfo excludedRequestMappingInfo : excludedRequestMappingInfoSet) {
-                if (matches(excludedRequestMappingInfo, request)) {
-                    return true;
-                }
-            }
+    /**
+     * Get the count of the instances being ejected by the {@link OutlierDetector}
+     *
+     * @return the count
+     */
+    public int getEjectedInstanceCount() {
+        return this.outlierDetector.getEjectedInstanceCount();
+    }
+
+    /**
+     * The {@link RequestMappingTable} and the {@link WebEndpointMappingInstanceIndex} of an application, which are
+     * built and swapped in together
+     */
+    static class ServiceRequestMappings {
+
+        final RequestMappingTable<RequestMappingContext, ServletMatchingRequest> requestMappingTable;
+
+        final WebEndpointMappingInstanceIndex instanceIndex;
+
+        final WebEndpointMappingsFingerprint fingerprint;
+
+        ServiceRequestMappings(RequestMappingTable<RequestMappingContext, ServletMatchingRequest> requestMappingTable,
+                               WebEndpointMappingInstanceIndex instanceIndex, WebEndpointMappingsFingerprint fingerprint) {
+            this.requestMappingTable = requestMappingTable;
+            this.instanceIndex = instanceIndex;
+            this.fingerprint = fingerprint;
         }
-        return false;
     }
 
-    private boolean matches(RequestMappingInfo requestMappingInfo, HttpServletRequest servletRequest) {
-        return requestMappingInfo.getMatchingCondition(servletRequest) != null;
+    /**
+     * The {@link MatchingRequest} adapted from the {@link HttpServletRequest}
+     */
+    static class ServletMatchingRequest implements MatchingRequest {
+
+        private final HttpServletRequest request;
+
+        private final PathContainer path;
+
+        ServletMatchingRequest(HttpServletRequest request, PathContainer path) {
+            this.request = request;
+            this.path = path;
+        }
+
+        @Override
+        public String getMethod() {
+            return this.request.getMethod();
+        }
+
+        @Override
+        public PathContainer getPath() {
+            return this.path;
+        }
+
+        @Override
+        public List<String> getParameterValues(String name) {
+            String[] values = this.request.getParameterValues(name);
+            return values == null ? null : List.of(values);
+        }
+
+        @Override
+        public List<String> getHeaderValues(String name) {
+            Enumeration<String> values = this.request.getHeaders(name);
+            return values == null ? null : list(values);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return this.request.getHeader(name);
+        }
+
+        @Override
+        public boolean isPreFlight() {
+            return isPreFlightRequest(this.request);
+        }
+
+        HttpServletRequest getRequest() {
+            return this.request;
+        }
     }
 
-    static class RequestMappingContext {
+    static class RequestMappingContext extends AbstractRequestMappingContext<RequestMappingContext, ServletMatchingRequest> {
 
-        private final RequestMappingInfo requestMappingInfo;
+        final RequestMappingInfo requestMappingInfo;
 
-        private int id;
+        /**
+         * The parsed {@link PathPattern PathPatterns} to be iterated without allocation
+         */
+        private final PathPattern[] pathPatterns;
 
         RequestMappingContext(WebEndpointMapping webEndpointMapping) {
-            this.requestMappingInfo = buildRequestMappingInfo(webEndpointMapping);
-            this.id = webEndpointMapping.getId();
+            this(buildRequestMappingInfo(webEndpointMapping), webEndpointMapping.getId());
+        }
+
+        RequestMappingContext(RequestMappingInfo requestMappingInfo, int id) {
+            this(requestMappingInfo, requestMappingInfo.getPathPatternsCondition().getPatterns().toArray(PathPattern[]::new), id);
+        }
+
+        private RequestMappingContext(RequestMappingInfo requestMappingInfo, PathPattern[] pathPatterns, int id) {
+            super(id, of(pathPatterns).map(PathPattern::getPatternString).toArray(String[]::new));
+            this.requestMappingInfo = requestMappingInfo;
+            this.pathPatterns = pathPatterns;
+        }
+
+        /**
+         * Whether matches the path and the request, that is equivalent to
+         * {@link RequestMappingInfo#getMatchingCondition(HttpServletRequest)} with the path, but allocates no request
+         *
+         * @param request the {@link ServletMatchingRequest} with the path to match the patterns
+         * @return <code>true</code> if matches
+         */
+        @Override
+        public boolean matches(ServletMatchingRequest request) {
+            RequestMappingInfo info = this.requestMappingInfo;
+            HttpServletRequest servletRequest = request.getRequest();
+            return info.getMethodsCondition().getMatchingCondition(servletRequest) != null
+                    && matchesPatterns(request.getPath())
+                    && info.getParamsCondition().getMatchingCondition(servletRequest) != null
+                    && info.getHeadersCondition().getMatchingCondition(servletRequest) != null
+                    && info.getConsumesCondition().getMatchingCondition(servletRequest) != null
+                    && info.getProducesCondition().getMatchingCondition(servletRequest) != null;
+        }
+
+        private boolean matchesPatterns(PathContainer path) {
+            for (PathPattern pattern : this.pathPatterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the value of the path variable from the first pattern matching the path
+         *
+         * @param path the path
+         * @param name the name of the path variable
+         * @return <code>null</code> if absent
+         */
+        @Nullable
+        String getPathVariable(PathContainer path, String name) {
+            for (PathPattern pattern : this.pathPatterns) {
+                PathMatchInfo pathMatchInfo = pattern.matchAndExtract(path);
+                if (pathMatchInfo != null) {
+                    return pathMatchInfo.getUriVariables().get(name);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Set<RequestMethod> getMethods() {
+            return this.requestMappingInfo.getMethodsCondition().getMethods();
+        }
+
+        @Override
+        public Collection<String> getParamNames() {
+            return this.requestMappingInfo.getParamsCondition().getExpressions().stream().map(NameValueExpression::getName).toList();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return this.requestMappingInfo.getHeadersCondition().getExpressions().stream().map(NameValueExpression::getName).toList();
+        }
+
+        @Override
+        public boolean hasConsumes() {
+            return !this.requestMappingInfo.getConsumesCondition().isEmpty();
+        }
+
+        @Override
+        public boolean hasProduces() {
+            return !this.requestMappingInfo.getProducesCondition().isEmpty();
+        }
+
+        @Override
+        public int compareTo(RequestMappingContext other, ServletMatchingRequest request) {
+            return compareTo(other, request.getRequest());
         }
 
         int compareTo(RequestMappingContext other, HttpServletRequest request) {
             return this.requestMappingInfo.compareTo(other.requestMappingInfo, request);
         }
+
+        /**
+         * Compare with the other by the conditions that do not depend on the request, in the same order of
+         * {@link RequestMappingInfo#compareTo(RequestMappingInfo, HttpServletRequest)} except the "produces"
+         * and the HTTP HEAD
+         *
+         * @param other the other {@link RequestMappingContext}
+         * @return the comparison result
+         */
+        @Override
+        public int compareTo(RequestMappingContext other) {
+            int result = compareToRequestIndependently(other);
+            if (result != 0) {
+                return result;
+            }
+            return this.requestMappingInfo.getMethodsCondition().compareTo(other.requestMappingInfo.getMethodsCondition(), null);
+        }
+
+        /**
+         * Compare with the other by the conditions before the "produces" that do not depend on the request
+         *
+         * @param other the other {@link RequestMappingContext}
+         * @return the comparison result
+         */
+        @Override
+        public int compareToRequestIndependently(RequestMappingContext other) {
+            RequestMappingInfo info = this.requestMappingInfo;
+            RequestMappingInfo otherInfo = other.requestMappingInfo;
+            // The conditions below never use the HttpServletRequest
+            int result = info.getActivePatternsCondition().compareTo(otherInfo.getActivePatternsCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            result = info.getParamsCondition().compareTo(otherInfo.getParamsCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            result = info.getHeadersCondition().compareTo(otherInfo.getHeadersCondition(), null);
+            if (result != 0) {
+                return result;
+            }
+            return info.getConsumesCondition().compareTo(otherInfo.getConsumesCondition(), null);
+        }
     }
 
     private static RequestMappingInfo buildRequestMappingInfo(WebEndpointConfig.Mapping mapping) {
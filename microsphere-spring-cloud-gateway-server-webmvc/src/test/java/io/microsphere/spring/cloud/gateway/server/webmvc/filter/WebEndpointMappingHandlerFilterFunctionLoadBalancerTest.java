@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.microsphere.spring.cloud.gateway.server.webmvc.filter;
+
+import io.microsphere.spring.cloud.gateway.commons.loadbalancer.WebEndpointMappingInstanceIndex;
+import io.microsphere.spring.cloud.gateway.commons.mapping.ParallelServiceLoader;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.RequestMappingContext;
+import io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.ServletMatchingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.gateway.server.mvc.config.RouteProperties;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockPropertySource;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static io.microsphere.collection.Lists.ofList;
+import static io.microsphere.spring.cloud.gateway.commons.constants.CommonsPropertyConstants.REFRESH_TIMEOUT_PROPERTY_NAME;
+import static io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.getPort;
+import static java.net.URI.create;
+import static java.time.Duration.ofSeconds;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The load balancing Test of {@link WebEndpointMappingHandlerFilterFunction}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see WebEndpointMappingHandlerFilterFunction
+ * @since 1.0.0
+ */
+class WebEndpointMappingHandlerFilterFunctionLoadBalancerTest {
+
+    static final String APPLICATION_NAME = "test-app";
+
+    private DiscoveryClient discoveryClient;
+
+    private LoadBalancerClientFactory clientFactory;
+
+    private WebEndpointMappingHandlerFilterFunction function;
+
+    private GenericApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        this.discoveryClient = mock(DiscoveryClient.class);
+        this.clientFactory = mock(LoadBalancerClientFactory.class);
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(DiscoveryClient.class, () -> this.discoveryClient);
+        context.registerBean(LoadBalancerClientFactory.class, () -> this.clientFactory);
+        context.refresh();
+        this.context = context;
+        this.function = new WebEndpointMappingHandlerFilterFunction("test-route");
+        this.function.setApplicationContext(context);
+    }
+
+    @Test
+    void testGetLoadBalancerFilterFunction() {
+        HandlerFilterFunction<ServerResponse, ServerResponse> filterFunction = this.function.getLoadBalancerFilterFunction(APPLICATION_NAME);
+        assertSame(filterFunction, this.function.getLoadBalancerFilterFunction(APPLICATION_NAME));
+        assertNotSame(filterFunction, this.function.getLoadBalancerFilterFunction("other-app"));
+
+        this.function.onServiceInstancesChanged(APPLICATION_NAME, ofList());
+        assertNotSame(filterFunction, this.function.getLoadBalancerFilterFunction(APPLICATION_NAME));
+    }
+
+    @Test
+    void testGetServiceInstances() {
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get()).thenReturn(Flux.just(ofList(serviceInstance)));
+        when(this.clientFactory.getInstance(APPLICATION_NAME, ServiceInstanceListSupplier.class)).thenReturn(supplier);
+
+        assertEquals(ofList(serviceInstance), this.function.getServiceInstances(APPLICATION_NAME));
+        verify(this.discoveryClient, never()).getInstances(APPLICATION_NAME);
+
+        when(supplier.get()).thenReturn(Flux.empty());
+        assertEquals(ofList(), this.function.getServiceInstances(APPLICATION_NAME));
+
+        // fall back to the DiscoveryClient
+        List<ServiceInstance> serviceInstances = ofList(serviceInstance);
+        when(this.discoveryClient.getInstances("other-app")).thenReturn(serviceInstances);
+        assertSame(serviceInstances, this.function.getServiceInstances("other-app"));
+    }
+
+    @Test
+    void testRefreshIncrementally() {
+        when(this.discoveryClient.getServices()).thenReturn(ofList(APPLICATION_NAME, "other-app"));
+        RouteProperties routeProperties = new RouteProperties();
+        routeProperties.setId("test-route");
+        routeProperties.setUri(create("we://all"));
+        this.function.refresh(routeProperties, this.context);
+        verify(this.discoveryClient, times(1)).getInstances(APPLICATION_NAME);
+        verify(this.discoveryClient, times(1)).getInstances("other-app");
+        Map<String, RequestMappingTable<RequestMappingContext, ServletMatchingRequest>> requestMappingContexts = this.function.requestMappingContexts;
+        Map<String, WebEndpointMappingInstanceIndex> serviceInstanceIndexes = this.function.serviceInstanceIndexes;
+
+        // Only the changed application is rebuilt from the instances of the event, the tables and the matching result
+        // caches of the other applications are kept
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+        this.function.refresh(routeProperties, this.context, APPLICATION_NAME, ofList(serviceInstance));
+        verify(this.discoveryClient, times(1)).getInstances(APPLICATION_NAME);
+        verify(this.discoveryClient, times(1)).getServices();
+        assertNotSame(requestMappingContexts.get(APPLICATION_NAME), this.function.requestMappingContexts.get(APPLICATION_NAME));
+        assertSame(requestMappingContexts.get("other-app"), this.function.requestMappingContexts.get("other-app"));
+        assertNotSame(serviceInstanceIndexes.get(APPLICATION_NAME), this.function.serviceInstanceIndexes.get(APPLICATION_NAME));
+        assertSame(serviceInstanceIndexes.get("other-app"), this.function.serviceInstanceIndexes.get("other-app"));
+
+        // The other route is ignored
+        routeProperties.setId("other-route");
+        requestMappingContexts = this.function.requestMappingContexts;
+        this.function.refresh(routeProperties, this.context, APPLICATION_NAME, ofList());
+        assertSame(requestMappingContexts, this.function.requestMappingContexts);
+    }
+
+    @Test
+    void testRefreshIncrementallyDuringFullRefresh() throws Exception {
+        when(this.discoveryClient.getServices()).thenReturn(ofList(APPLICATION_NAME));
+        RouteProperties routeProperties = new RouteProperties();
+        routeProperties.setId("test-route");
+        routeProperties.setUri(create("we://all"));
+        this.function.refresh(routeProperties, this.context);
+
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(this.discoveryClient.getInstances(APPLICATION_NAME)).thenAnswer(invocation -> {
+            loading.countDown();
+            refreshed.await();
+            return ofList(serviceInstance);
+        });
+        this.function.refresh(routeProperties, this.context);
+        assertTrue(loading.await(5, SECONDS));
+
+        // The application is refreshed incrementally while the full refresh is loading the stale instances
+        ServiceInstance newServiceInstance = new DefaultServiceInstance("new-test-instance", APPLICATION_NAME, "127.0.0.2", 8080, false);
+        this.function.refresh(routeProperties, this.context, APPLICATION_NAME, ofList(newServiceInstance));
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> requestMappingTable = this.function.requestMappingContexts.get(APPLICATION_NAME);
+        WebEndpointMappingInstanceIndex instanceIndex = this.function.serviceInstanceIndexes.get(APPLICATION_NAME);
+        refreshed.countDown();
+        this.function.refreshing.get(5, SECONDS);
+
+        // The newer incremental one is kept by the full refresh
+        assertSame(requestMappingTable, this.function.requestMappingContexts.get(APPLICATION_NAME));
+        assertSame(instanceIndex, this.function.serviceInstanceIndexes.get(APPLICATION_NAME));
+        assertSame(instanceIndex, this.function.serviceRequestMappingsCache.get(APPLICATION_NAME).instanceIndex);
+    }
+
+    @Test
+    void testRefreshParallelServiceLoader() {
+        when(this.discoveryClient.getServices()).thenReturn(ofList(APPLICATION_NAME));
+        RouteProperties routeProperties = new RouteProperties();
+        routeProperties.setId("test-route");
+        routeProperties.setUri(create("we://all"));
+        MockPropertySource propertySource = new MockPropertySource().withProperty(REFRESH_TIMEOUT_PROPERTY_NAME, "1000");
+        this.context.getEnvironment().getPropertySources().addFirst(propertySource);
+        // The initial refresh creates the loader from the properties
+        this.function.refresh(routeProperties, this.context);
+        ParallelServiceLoader parallelServiceLoader = this.function.parallelServiceLoader;
+        assertEquals(ofSeconds(1), parallelServiceLoader.getTimeout());
+
+        // The changed properties are not applied by the refreshes
+        propertySource.setProperty(REFRESH_TIMEOUT_PROPERTY_NAME, "2000");
+        this.function.refresh(routeProperties, this.context);
+        assertSame(parallelServiceLoader, this.function.parallelServiceLoader);
+
+        // but on the EnvironmentChangeEvent
+        this.function.refreshParallelServiceLoader();
+        assertEquals(ofSeconds(2), this.function.parallelServiceLoader.getTimeout());
+        assertTrue(parallelServiceLoader.getExecutor().isShutdown());
+        parallelServiceLoader = this.function.parallelServiceLoader;
+        this.function.refreshParallelServiceLoader();
+        assertSame(parallelServiceLoader, this.function.parallelServiceLoader);
+    }
+
+    @Test
+    void testRefreshWithUnchangedMappings() {
+        when(this.discoveryClient.getServices()).thenReturn(ofList(APPLICATION_NAME));
+        RouteProperties routeProperties = new RouteProperties();
+        routeProperties.setId("test-route");
+        routeProperties.setUri(create("we://all"));
+        this.function.refresh(routeProperties, this.context);
+        ServiceInstance serviceInstance = new DefaultServiceInstance("test-instance", APPLICATION_NAME, "127.0.0.1", 8080, false);
+        this.function.refresh(routeProperties, this.context, APPLICATION_NAME, ofList(serviceInstance));
+        WebEndpointMappingInstanceIndex instanceIndex = this.function.serviceInstanceIndexes.get(APPLICATION_NAME);
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> requestMappingTable = this.function.requestMappingContexts.get(APPLICATION_NAME);
+
+        // The scale-up with the same mappings reuses the compiled table, only the instances are re-indexed
+        ServiceInstance newServiceInstance = new DefaultServiceInstance("new-test-instance", APPLICATION_NAME, "127.0.0.2", 8080, false);
+        this.function.refresh(routeProperties, this.context, APPLICATION_NAME, ofList(serviceInstance, newServiceInstance));
+        assertSame(requestMappingTable, this.function.requestMappingContexts.get(APPLICATION_NAME));
+        assertNotSame(instanceIndex, this.function.serviceInstanceIndexes.get(APPLICATION_NAME));
+    }
+
+    @Test
+    void testGetPort() {
+        assertEquals(8080, getPort(create("http://127.0.0.1:8080/test")));
+        assertEquals(80, getPort(create("http://127.0.0.1/test")));
+        assertEquals(443, getPort(create("https://127.0.0.1/test")));
+    }
+}
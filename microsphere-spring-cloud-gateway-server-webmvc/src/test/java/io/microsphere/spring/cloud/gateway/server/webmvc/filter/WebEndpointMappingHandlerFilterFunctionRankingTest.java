@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.microsphere.spring.cloud.gateway.server.webmvc.filter;
+
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache;
+import io.microsphere.spring.cloud.gateway.commons.mapping.MatchingResultCache.Statistics;
+import io.microsphere.spring.cloud.gateway.commons.mapping.RequestMappingTable;
+import io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.RequestMappingContext;
+import io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.ServletMatchingRequest;
+import io.microsphere.spring.web.metadata.WebEndpointMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.RequestPath;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.microsphere.spring.cloud.gateway.server.webmvc.filter.WebEndpointMappingHandlerFilterFunction.buildRequestMappingTable;
+import static io.microsphere.util.ArrayUtils.ofArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.server.RequestPath.parse;
+import static org.springframework.web.util.ServletRequestPathUtils.setParsedRequestPath;
+
+/**
+ * The equivalence Test between the ranked {@link RequestMappingContext RequestMappingContexts} and
+ * the sort of all matches per request
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see RequestMappingTable
+ * @see WebEndpointMappingHandlerFilterFunction.RequestMappingContext
+ * @since 1.0.0
+ */
+class WebEndpointMappingHandlerFilterFunctionRankingTest {
+
+    static final String[][] PATTERNS = {
+            ofArray("/users"),
+            ofArray("/users/{id}"),
+            ofArray("/users/*"),
+            ofArray("/users/**"),
+            ofArray("/users/me"),
+            ofArray("/users/{id}/orders"),
+            ofArray("/users/{id:\\d+}"),
+            ofArray("/{*path}"),
+            ofArray("/**"),
+            ofArray("/users", "/users/me")
+    };
+
+    static final String[][] METHODS = {
+            ofArray(),
+            ofArray("GET"),
+            ofArray("POST"),
+            ofArray("GET", "POST"),
+            ofArray("HEAD"),
+            ofArray("GET", "HEAD")
+    };
+
+    static final String[][] PARAMS = {
+            ofArray(),
+            ofArray("a"),
+            ofArray("a=1"),
+            ofArray("!a")
+    };
+
+    static final String[][] HEADERS = {
+            ofArray(),
+            ofArray("X-A"),
+            ofArray("X-A=1")
+    };
+
+    static final String[][] CONSUMES = {
+            ofArray(),
+            ofArray("application/json"),
+            ofArray("text/plain"),
+            ofArray("application/*")
+    };
+
+    static final String[][] PRODUCES = {
+            ofArray(),
+            ofArray(),
+            ofArray("application/json"),
+            ofArray("text/plain"),
+            ofArray("application/json", "text/plain"),
+            ofArray("text/*")
+    };
+
+    static final String[] PATHS = ofArray("/users", "/users/1", "/users/me", "/users/1/orders", "/x/y", "/");
+
+    static final String[] REQUEST_METHODS = ofArray("GET", "POST", "HEAD", "PUT");
+
+    static final String[] CONTENT_TYPES = ofArray(null, "application/json", "text/plain");
+
+    static final String[] ACCEPTS = ofArray(null, "*/*", "application/json", "text/plain", "text/plain, application/json;q=0.5");
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        this.random = new Random(20260101L);
+    }
+
+    @Test
+    void testEquivalence() {
+        for (int round = 0; round < 20; round++) {
+            List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                requestMappingContexts.add(new RequestMappingContext(randomWebEndpointMapping(round * 100 + i)));
+            }
+            RequestMappingTable<RequestMappingContext, ServletMatchingRequest> table = buildRequestMappingTable(requestMappingContexts, new MatchingResultCache<>(0));
+            assertEquals(requestMappingContexts.size(), table.size());
+
+            for (int i = 0; i < 200; i++) {
+                MockHttpServletRequest request = randomRequest();
+                RequestPath requestPath = parse(request.getRequestURI(), null);
+                setParsedRequestPath(requestPath, request);
+                ServletMatchingRequest matchingRequest = new ServletMatchingRequest(request, requestPath.pathWithinApplication());
+                RequestMappingContext expected = getMatchingRequestMappingContextBySorting(requestMappingContexts, request);
+                RequestMappingContext actual = table.match(matchingRequest);
+                assertSame(expected, actual, () -> "The request : " + request.getMethod() + " " + request.getRequestURI());
+            }
+        }
+    }
+
+    @Test
+    void testMatchingCache() {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requestMappingContexts.add(new RequestMappingContext(randomWebEndpointMapping(i)));
+        }
+        Statistics statistics = new Statistics();
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> table = buildRequestMappingTable(requestMappingContexts, new MatchingResultCache<>(64, statistics));
+
+        for (int i = 0; i < 2000; i++) {
+            MockHttpServletRequest request = randomRequest();
+            RequestPath requestPath = parse(request.getRequestURI(), null);
+            setParsedRequestPath(requestPath, request);
+            ServletMatchingRequest matchingRequest = new ServletMatchingRequest(request, requestPath.pathWithinApplication());
+            RequestMappingContext expected = getMatchingRequestMappingContextBySorting(requestMappingContexts, request);
+            assertSame(expected, table.getMatchingRequestMappingContext(matchingRequest));
+        }
+        assertEquals(2000, statistics.getHitCount() + statistics.getMissCount());
+        assertTrue(statistics.getHitCount() > 0);
+        assertTrue(statistics.getEvictionCount() > 0);
+    }
+
+    @Test
+    void testProducesTies() {
+        List<RequestMappingContext> requestMappingContexts = new ArrayList<>();
+        requestMappingContexts.add(new RequestMappingContext(WebEndpointMapping.webmvc().endpoint("json")
+                .patterns("/users").produces("application/json").build()));
+        requestMappingContexts.add(new RequestMappingContext(WebEndpointMapping.webmvc().endpoint("text")
+                .patterns("/users").produces("text/plain").build()));
+        RequestMappingTable<RequestMappingContext, ServletMatchingRequest> table = buildRequestMappingTable(requestMappingContexts, new MatchingResultCache<>(0));
+
+        RequestMappingContext first = table.get(0);
+        assertEquals(0, first.getRank());
+        assertEquals(2, first.getTieEnd());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.addHeader(ACCEPT, "text/plain, application/json;q=0.5");
+        RequestPath requestPath = parse("/users", null);
+        setParsedRequestPath(requestPath, request);
+        assertSame(requestMappingContexts.get(1), table.match(new ServletMatchingRequest(request, requestPath.pathWithinApplication())));
+
+        request = new MockHttpServletRequest("GET", "/orders");
+        requestPath = parse("/orders", null);
+        setParsedRequestPath(requestPath, request);
+        assertNull(table.match(new ServletMatchingRequest(request, requestPath.pathWithinApplication())));
+    }
+
+    static RequestMappingContext getMatchingRequestMappingContextBySorting(List<RequestMappingContext> requestMappingContexts,
+                                                                           HttpServletRequest request) {
+        List<RequestMappingContext> matches = new ArrayList<>();
+        for (RequestMappingContext requestMappingContext : requestMappingContexts) {
+            if (requestMappingContext.requestMappingInfo.getMatchingCondition(request) != null) {
+                matches.add(requestMappingContext);
+            }
+        }
+        matches.sort((v1, v2) -> v1.compareTo(v2, request));
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    WebEndpointMapping randomWebEndpointMapping(int id) {
+        WebEndpointMapping.Builder<String> builder = WebEndpointMapping.<String>webmvc()
+                .endpoint("endpoint-" + id)
+                .patterns(random(PATTERNS))
+                .params(random(PARAMS))
+                .headers(random(HEADERS))
+                .consumes(random(CONSUMES))
+                .produces(random(PRODUCES));
+        String[] methods = random(METHODS);
+        if (methods.length > 0) {
+            builder.methods(methods);
+        }
+        return builder.build();
+    }
+
+    MockHttpServletRequest randomRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest(random(REQUEST_METHODS), random(PATHS));
+        if (this.random.nextBoolean()) {
+            request.addParameter("a", this.random.nextBoolean() ? "1" : "2");
+        }
+        if (this.random.nextBoolean()) {
+            request.addHeader("X-A", this.random.nextBoolean() ? "1" : "2");
+        }
+        String contentType = random(CONTENT_TYPES);
+        if (contentType != null) {
+            request.setContentType(contentType);
+            request.addHeader(CONTENT_TYPE, contentType);
+        }
+        String accept = random(ACCEPTS);
+        if (accept != null) {
+            request.addHeader(ACCEPT, accept);
+        }
+        return request;
+    }
+
+    <T> T random(T[] values) {
+        return values[this.random.nextInt(values.length)];
+    }
+}
@@ -193,14 +193,14 @@ class WebEndpointMappingHandlerFilterFunctionTest {
         uri = URI.create("we://test-app-1");
         RouteProperties routeProperties = new RouteProperties();
         routeProperties.setUri(uri);
-        assertTrue(function.buildRequestMappingContexts(routeProperties).isEmpty());
+        assertTrue(function.buildRequestMappingContexts(routeProperties).get("test-app-1").isEmpty());
 
 
         routeProperties.setId(routeId + "[0]");
         function.refresh(routeProperties, this.webApplicationContext);
 
         HttpServletRequest request = new MockHttpServletRequest();
-        function.excludedRequestMappingInfoSet = null;
+        function.excludedRequestMappingContexts = null;
         assertFalse(function.isExcludedRequest(request));
 
         function.requestMappingContexts = null;